@@ -1,8 +1,10 @@
 package com.examportal.gateway;
 
+import com.examportal.gateway.loadbalancer.SessionAffinityLoadBalancerConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
 
 /**
  * API Gateway Application
@@ -10,6 +12,7 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
  */
 @SpringBootApplication
 @EnableDiscoveryClient
+@LoadBalancerClient(name = "TEST-SERVICE", configuration = SessionAffinityLoadBalancerConfig.class)
 public class ApiGatewayApplication {
 
     public static void main(String[] args) {
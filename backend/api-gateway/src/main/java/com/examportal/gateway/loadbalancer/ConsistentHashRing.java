@@ -0,0 +1,101 @@
+package com.examportal.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Consistent Hash Ring
+ * Immutable ring of service instances, each placed at a number of virtual nodes.
+ * A key belongs to the first virtual node at or after its hash, wrapping around.
+ * - Virtual nodes spread each instance's share of the keys evenly around the ring
+ * - When an instance joins it takes keys only from the others, and when one leaves
+ *   only its keys move; all other keys keep their instance
+ * Instances are identified by host and port, which stay the same across re-registrations.
+ */
+public final class ConsistentHashRing {
+
+    private final Set<String> members;
+    private final long[] points;
+    private final ServiceInstance[] owners;
+
+    public ConsistentHashRing(Collection<ServiceInstance> instances, int virtualNodes) {
+        ServiceInstance[] sorted = instances.stream()
+            .sorted(Comparator.comparing(ConsistentHashRing::memberKey))
+            .toArray(ServiceInstance[]::new);
+        this.members = Arrays.stream(sorted).map(ConsistentHashRing::memberKey).collect(Collectors.toUnmodifiableSet());
+
+        // Sort all virtual nodes by point, carrying their owner's index along
+        long[][] nodes = new long[sorted.length * virtualNodes][];
+        int n = 0;
+        for (int owner = 0; owner < sorted.length; owner++) {
+            String key = memberKey(sorted[owner]);
+            for (int i = 0; i < virtualNodes; i++) {
+                nodes[n++] = new long[] {hash(key + "#" + i), owner};
+            }
+        }
+        Arrays.sort(nodes, Comparator.comparingLong(node -> node[0]));
+        this.points = new long[nodes.length];
+        this.owners = new ServiceInstance[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            points[i] = nodes[i][0];
+            owners[i] = sorted[(int) nodes[i][1]];
+        }
+    }
+
+    /**
+     * Instance owning the key, or null if the ring is empty
+     */
+    public ServiceInstance get(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * Whether the ring was built from exactly these instances
+     */
+    public boolean hasMembers(Collection<ServiceInstance> instances) {
+        if (instances.size() != members.size()) {
+            return false;
+        }
+        for (ServiceInstance instance : instances) {
+            if (!members.contains(memberKey(instance))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String memberKey(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    /**
+     * 64-bit FNV-1a followed by the MurmurHash3 finalizer, so that short, similar keys
+     * such as consecutive session IDs land far apart on the ring
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,91 @@
+package com.examportal.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Session Affinity Load Balancer
+ * Routes all requests for a test session to the same instance, so that per-session
+ * state held in memory by the instance (live answers, timers, channels) is hit.
+ * - The session ID is taken from /api/test-sessions/{id}/** and /ws/test-sessions/{id}
+ *   and looked up on a consistent-hash ring of the discovered instances
+ * - The ring is rebuilt only when the set of instances changes; a joining or leaving
+ *   instance moves about 1/n of the sessions
+ * - Requests without a session ID (starts, listings, exports) are spread round-robin
+ */
+public class SessionAffinityLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionAffinityLoadBalancer.class);
+
+    private static final Pattern SESSION_PATH = Pattern.compile("^/(?:api|ws)/test-sessions/(\\d+)(?:/.*)?$");
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final int virtualNodes;
+    private final AtomicInteger position = new AtomicInteger(ThreadLocalRandom.current().nextInt(1000));
+    private volatile ConsistentHashRing ring;
+
+    public SessionAffinityLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                       String serviceId, int virtualNodes) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.virtualNodes = virtualNodes;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+            .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        String sessionId = sessionId(request);
+        return supplier.get(request).next().map(instances -> choose(instances, sessionId));
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances, String sessionId) {
+        if (instances.isEmpty()) {
+            log.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+        if (sessionId == null) {
+            int next = position.getAndIncrement() & Integer.MAX_VALUE;
+            return new DefaultResponse(instances.get(next % instances.size()));
+        }
+        return new DefaultResponse(ringOf(instances).get(sessionId));
+    }
+
+    private ConsistentHashRing ringOf(List<ServiceInstance> instances) {
+        ConsistentHashRing current = ring;
+        if (current == null || !current.hasMembers(instances)) {
+            current = new ConsistentHashRing(instances, virtualNodes);
+            ring = current;
+            log.info("Rebuilt hash ring for {} with {} instances", serviceId, instances.size());
+        }
+        return current;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static String sessionId(Request request) {
+        if (!(request.getContext() instanceof RequestDataContext context) || context.getClientRequest() == null) {
+            return null;
+        }
+        Matcher matcher = SESSION_PATH.matcher(context.getClientRequest().getUrl().getPath());
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.examportal.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Session Affinity Load Balancer Configuration
+ * Per-client load balancer configuration, applied to Test Service through
+ * {@code @LoadBalancerClient}. Deliberately not a {@code @Configuration}, so that
+ * component scanning does not apply it to every service.
+ */
+public class SessionAffinityLoadBalancerConfig {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> sessionAffinityLoadBalancer(
+            Environment environment, LoadBalancerClientFactory loadBalancerClientFactory) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        int virtualNodes = environment.getProperty("gateway.session-affinity.virtual-nodes", Integer.class, 160);
+        return new SessionAffinityLoadBalancer(
+            loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+            serviceId, virtualNodes);
+    }
+}
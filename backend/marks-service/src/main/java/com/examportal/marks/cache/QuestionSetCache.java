@@ -0,0 +1,88 @@
+package com.examportal.marks.cache;
+
+import com.examportal.marks.client.InterServiceClient;
+import com.examportal.marks.dto.QuestionSetDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Question Set Cache
+ * Last fetched copy of each question set with its ETag.
+ * - Every get revalidates with a conditional GET, so marks are always calculated
+ *   against the current set, but an unchanged set is a 304 without its questions
+ * - Beyond max-entries the cache is cleared; sets are refetched on their next use
+ * Cached sets are shared between callers and must not be modified.
+ */
+@Component
+@Slf4j
+public class QuestionSetCache {
+
+    private static final String SERVICE = "question-service";
+
+    private final InterServiceClient interServiceClient;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Counter notModified;
+    private final Counter fetched;
+
+    @Value("${question-set-cache.max-entries:256}")
+    private int maxEntries;
+
+    public QuestionSetCache(InterServiceClient interServiceClient, MeterRegistry meterRegistry) {
+        this.interServiceClient = interServiceClient;
+        this.notModified = meterRegistry.counter("question_set_cache.gets", "result", "not_modified");
+        this.fetched = meterRegistry.counter("question_set_cache.gets", "result", "fetched");
+        Gauge.builder("question_set_cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Get the current version of a question set from Question Service
+     */
+    public QuestionSetDTO get(Long questionSetId) {
+        Entry cached = entries.get(questionSetId);
+        log.debug("Fetching question set {} from Question Service (If-None-Match: {})",
+                questionSetId, cached != null ? cached.eTag : null);
+
+        ResponseEntity<QuestionSetDTO> response;
+        try {
+            response = interServiceClient.getIfNoneMatch(SERVICE, "/api/question-sets/{id}",
+                    cached != null ? cached.eTag : null, QuestionSetDTO.class, questionSetId);
+        } catch (Exception e) {
+            log.error("Failed to fetch question set: {}", e.getMessage());
+            throw new RuntimeException("Failed to fetch question set from Question Service", e);
+        }
+
+        if (cached != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            notModified.increment();
+            return cached.questionSet;
+        }
+        QuestionSetDTO questionSet = response.getBody();
+        if (questionSet == null) {
+            throw new RuntimeException("Question set not found with ID: " + questionSetId);
+        }
+        fetched.increment();
+        log.info("Fetched question set: {} with {} questions",
+                questionSet.getName(), questionSet.getQuestions().size());
+
+        String eTag = response.getHeaders().getETag();
+        if (eTag != null) {
+            if (entries.size() >= maxEntries && !entries.containsKey(questionSetId)) {
+                entries.clear();
+            }
+            entries.put(questionSetId, new Entry(questionSet, eTag));
+        }
+        return questionSet;
+    }
+
+    private record Entry(QuestionSetDTO questionSet, String eTag) {
+    }
+}
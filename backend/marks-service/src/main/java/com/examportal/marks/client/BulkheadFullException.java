@@ -0,0 +1,13 @@
+package com.examportal.marks.client;
+
+/**
+ * Bulkhead Full Exception
+ * Mirrors the BulkheadFullException from Test Service
+ * Thrown when all concurrent calls allowed to a downstream service are in use
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String service) {
+        super("Too many concurrent calls to " + service);
+    }
+}
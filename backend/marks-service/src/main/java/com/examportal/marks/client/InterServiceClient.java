@@ -0,0 +1,241 @@
+package com.examportal.marks.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerInterceptor;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerRequestFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Inter-Service Client
+ * Mirrors the InterServiceClient from Test Service
+ * Shared HTTP client for calls to other services of the portal.
+ * - One pool of persistent connections shared by all downstream services
+ * - Per-service connect and read timeouts (services.<name>.*)
+ * - Per-service bulkhead: at most max-concurrent-calls in flight, waiting up to bulkhead-wait-ms for a slot
+ * - Instances resolved through Eureka unless load-balanced is false for the service
+ * - Latency of every call published as interservice.client.requests
+ */
+@Component
+@Slf4j
+public class InterServiceClient {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final Map<String, Route> routes = new HashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public InterServiceClient(Environment environment,
+                              LoadBalancerClient loadBalancerClient,
+                              LoadBalancerRequestFactory loadBalancerRequestFactory,
+                              MeterRegistry meterRegistry,
+                              @Value("${http-client.max-connections:200}") int maxConnections,
+                              @Value("${http-client.max-connections-per-route:50}") int maxConnectionsPerRoute,
+                              @Value("${http-client.idle-eviction-ms:30000}") long idleEvictionMillis,
+                              @Value("${http-client.connection-ttl-ms:300000}") long connectionTtlMillis) {
+        this.meterRegistry = meterRegistry;
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnectionsPerRoute)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setTimeToLive(TimeValue.ofMilliseconds(connectionTtlMillis))
+                .build())
+            .build();
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMillis))
+            .build();
+
+        LoadBalancerInterceptor loadBalancer = new LoadBalancerInterceptor(loadBalancerClient, loadBalancerRequestFactory);
+        Map<String, RouteProperties> configured = Binder.get(environment)
+            .bind("services", Bindable.mapOf(String.class, RouteProperties.class))
+            .orElse(Map.of());
+        configured.forEach((service, properties) -> {
+            routes.put(service, new Route(service, properties, restTemplate(properties, loadBalancer)));
+            log.info("Inter-service route {} -> {} (load-balanced: {}, connect {} ms, read {} ms, max {} concurrent calls)",
+                service, properties.getUrl(), properties.isLoadBalanced(), properties.getConnectTimeoutMs(),
+                properties.getReadTimeoutMs(), properties.getMaxConcurrentCalls());
+        });
+    }
+
+    /**
+     * GET a resource from a downstream service
+     * The path is a URI template; it is also the uri tag of the latency metric
+     */
+    public <T> T get(String service, String path, Class<T> responseType, Object... uriVariables) {
+        Route route = route(service);
+        return execute(route, HttpMethod.GET, path,
+            () -> route.restTemplate.getForObject(route.properties.getUrl() + path, responseType, uriVariables));
+    }
+
+    /**
+     * Conditional GET: sends If-None-Match with the given ETag, if any
+     * Returns a 304 response without a body when the resource has not changed
+     */
+    public <T> ResponseEntity<T> getIfNoneMatch(String service, String path, String eTag, Class<T> responseType,
+                                                Object... uriVariables) {
+        Route route = route(service);
+        HttpHeaders headers = new HttpHeaders();
+        if (eTag != null) {
+            headers.setIfNoneMatch(eTag);
+        }
+        return execute(route, HttpMethod.GET, path, () -> route.restTemplate.exchange(
+            route.properties.getUrl() + path, HttpMethod.GET, new HttpEntity<>(headers), responseType, uriVariables));
+    }
+
+    /**
+     * POST a request to a downstream service
+     */
+    public <T> T post(String service, String path, Object request, Class<T> responseType, Object... uriVariables) {
+        Route route = route(service);
+        return execute(route, HttpMethod.POST, path,
+            () -> route.restTemplate.postForObject(route.properties.getUrl() + path, request, responseType, uriVariables));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private Route route(String service) {
+        Route route = routes.get(service);
+        if (route == null) {
+            throw new IllegalArgumentException("No route configured for service: " + service);
+        }
+        return route;
+    }
+
+    private <T> T execute(Route route, HttpMethod method, String path, Supplier<T> call) {
+        long start = System.nanoTime();
+        if (!acquire(route)) {
+            record(route, method, path, "REJECTED", start);
+            throw new BulkheadFullException(route.service);
+        }
+
+        String outcome = "UNKNOWN";
+        try {
+            T response = call.get();
+            outcome = "SUCCESS";
+            return response;
+        } catch (HttpClientErrorException e) {
+            outcome = "CLIENT_ERROR";
+            throw e;
+        } catch (HttpServerErrorException e) {
+            outcome = "SERVER_ERROR";
+            throw e;
+        } catch (ResourceAccessException e) {
+            outcome = "IO_ERROR"; // Includes connect and read timeouts
+            throw e;
+        } finally {
+            route.bulkhead.release();
+            record(route, method, path, outcome, start);
+        }
+    }
+
+    private boolean acquire(Route route) {
+        try {
+            return route.bulkhead.tryAcquire(route.properties.getBulkheadWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void record(Route route, HttpMethod method, String path, String outcome, long start) {
+        Timer.builder("interservice.client.requests")
+            .description("Calls to other services, including time spent waiting for a bulkhead slot")
+            .tag("service", route.service)
+            .tag("method", method.name())
+            .tag("uri", path)
+            .tag("outcome", outcome)
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @SuppressWarnings("deprecation") // Per-request connect timeout; the pool-level ConnectionConfig cannot vary by service
+    private RestTemplate restTemplate(RouteProperties properties, LoadBalancerInterceptor loadBalancer) {
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(Timeout.ofMilliseconds(properties.getConnectTimeoutMs()))
+            .setConnectionRequestTimeout(Timeout.ofMilliseconds(properties.getConnectTimeoutMs()))
+            .setResponseTimeout(Timeout.ofMilliseconds(properties.getReadTimeoutMs()))
+            .build();
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setHttpContextFactory((method, uri) -> {
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(requestConfig);
+            return context;
+        });
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        if (properties.isLoadBalanced()) {
+            restTemplate.getInterceptors().add(loadBalancer);
+        }
+        return restTemplate;
+    }
+
+    private final class Route {
+        final String service;
+        final RouteProperties properties;
+        final RestTemplate restTemplate;
+        final Semaphore bulkhead;
+
+        Route(String service, RouteProperties properties, RestTemplate restTemplate) {
+            this.service = service;
+            this.properties = properties;
+            this.restTemplate = restTemplate;
+            this.bulkhead = new Semaphore(properties.getMaxConcurrentCalls());
+            Gauge.builder("interservice.client.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .tag("service", service)
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Settings of one downstream service (services.<name>.*)
+     */
+    @Data
+    public static class RouteProperties {
+        private String url;
+        private boolean loadBalanced = true;
+        private long connectTimeoutMs = 1000;
+        private long readTimeoutMs = 5000;
+        private int maxConcurrentCalls = 50;
+        private long bulkheadWaitMs = 100;
+    }
+}
@@ -0,0 +1,39 @@
+package com.examportal.marks.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Virtual Thread Configuration
+ * Mirrors the VirtualThreadConfig from Test Service
+ * Active when spring.threads.virtual.enabled is set (requires a Java 21 runtime).
+ * Spring Boot then serves requests and runs scheduled tasks on virtual threads;
+ * this adds the connection limit that keeps them from flooding MySQL.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(Environment environment) {
+        int maxConcurrency = environment.getProperty("database.max-concurrency", Integer.class, 10);
+        long acquireTimeoutMillis = environment.getProperty("database.acquire-timeout-ms", Long.class, 5000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitingDataSource)) {
+                    log.info("Limiting data source '{}' to {} concurrent connections", beanName, maxConcurrency);
+                    return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+}
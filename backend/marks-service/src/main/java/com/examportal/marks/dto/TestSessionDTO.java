@@ -19,6 +19,9 @@ public class TestSessionDTO {
     private String department;
     private String yearOfAdmission;
     private Long questionSetId;
-    private String answers; // JSON string
+    private String answers; // Legacy JSON string
+    private byte[] answerBits; // 3 bits per question, see AnswerCodec
+    private byte[] answerLayout; // Question IDs in answer position order, null for sessions started before it was stored
     private String status;
+    private Long version; // Bumped by every answer write, see Result.testSessionVersion
 }
@@ -15,7 +15,9 @@ import java.time.LocalDateTime;
  * Represents the result of a completed test session
  */
 @Entity
-@Table(name = "results")
+@Table(name = "results", indexes = {
+    @Index(name = "idx_results_usn_key", columnList = "usnKey")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -33,6 +35,8 @@ public class Result {
     @Column(nullable = false)
     private String usn;
 
+    private Long usnKey; // Packed USN, see UsnCodec; null for malformed USNs and rows not yet backfilled
+
     @NotBlank(message = "Student name is required")
     @Column(nullable = false)
     private String studentName;
@@ -64,6 +68,8 @@ public class Result {
     @Column(nullable = false)
     private Double percentage;
 
+    private Long testSessionVersion; // Session version the marks were calculated from, null for older results
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
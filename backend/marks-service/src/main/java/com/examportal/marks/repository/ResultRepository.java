@@ -1,8 +1,11 @@
 package com.examportal.marks.repository;
 
 import com.examportal.marks.entity.Result;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -20,11 +23,28 @@ public interface ResultRepository extends JpaRepository<Result, Long> {
      */
     Optional<Result> findByTestSessionId(Long testSessionId);
     
+    /**
+     * Find result by test session ID, locked against a concurrent recalculation
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Result r WHERE r.testSessionId = :testSessionId")
+    Optional<Result> findForUpdateByTestSessionId(@Param("testSessionId") Long testSessionId);
+    
     /**
      * Find results by USN
      */
     List<Result> findByUsn(String usn);
     
+    /**
+     * Find results by packed USN, see UsnCodec
+     */
+    List<Result> findByUsnKey(long usnKey);
+    
+    /**
+     * Find results by USN whose packed USN is not filled in yet
+     */
+    List<Result> findByUsnAndUsnKeyIsNull(String usn);
+    
     /**
      * Find results by semester
      */
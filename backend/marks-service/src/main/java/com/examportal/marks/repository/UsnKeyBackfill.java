@@ -0,0 +1,65 @@
+package com.examportal.marks.repository;
+
+import com.examportal.marks.util.UsnCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * USN Key Backfill
+ * Fills in results.usn_key for rows written before the column existed
+ * - Walks the rows with a null key in id order, one batch per statement
+ * - Rows whose USN does not pass UsnCodec stay null and are only found by the string column
+ * Several instances may run it at once; they write the same values.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UsnKeyBackfill {
+
+    private static final String SELECT_MISSING =
+        "SELECT id, usn FROM results WHERE usn_key IS NULL AND id > ? ORDER BY id LIMIT ?";
+    private static final String UPDATE_KEY = "UPDATE results SET usn_key = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${results.usn-backfill.batch-size:1000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long lastId = 0;
+        int updated = 0;
+        int skipped = 0;
+        while (true) {
+            List<Object[]> updates = new ArrayList<>(batchSize);
+            List<Long> ids = jdbcTemplate.query(SELECT_MISSING, (rs, rowNum) -> {
+                long id = rs.getLong(1);
+                long usnKey = UsnCodec.encode(rs.getString(2));
+                if (usnKey != UsnCodec.INVALID) {
+                    updates.add(new Object[] {usnKey, id});
+                }
+                return id;
+            }, lastId, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_KEY, updates);
+            }
+            updated += updates.size();
+            skipped += ids.size() - updates.size();
+            lastId = ids.get(ids.size() - 1);
+        }
+        if (updated > 0 || skipped > 0) {
+            log.info("Backfilled USN keys for {} results, {} with malformed USNs left as is", updated, skipped);
+        }
+    }
+}
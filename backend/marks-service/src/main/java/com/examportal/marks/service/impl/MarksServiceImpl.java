@@ -1,5 +1,7 @@
 package com.examportal.marks.service.impl;
 
+import com.examportal.marks.cache.QuestionSetCache;
+import com.examportal.marks.client.InterServiceClient;
 import com.examportal.marks.dto.DashboardStats;
 import com.examportal.marks.dto.QuestionDTO;
 import com.examportal.marks.dto.QuestionSetDTO;
@@ -7,19 +9,22 @@ import com.examportal.marks.dto.TestSessionDTO;
 import com.examportal.marks.entity.Result;
 import com.examportal.marks.repository.ResultRepository;
 import com.examportal.marks.service.MarksService;
+import com.examportal.marks.util.AnswerCodec;
+import com.examportal.marks.util.UsnCodec;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Marks Service Implementation
@@ -32,56 +37,88 @@ import java.util.Optional;
 public class MarksServiceImpl implements MarksService {
 
     private final ResultRepository resultRepository;
-    private final RestTemplate restTemplate;
+    private final InterServiceClient interServiceClient;
+    private final QuestionSetCache questionSetCache;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    @Value("${services.test-service.url:http://localhost:8086}")
-    private String testServiceUrl;
-
-    @Value("${services.question-service.url:http://localhost:8085}")
-    private String questionServiceUrl;
-
     @Override
     public Result calculateMarks(Long testSessionId) {
         log.info("Calculating marks for test session: {}", testSessionId);
 
-        // Check if result already exists
+        // Fetch test session from Test Service
+        TestSessionDTO testSession = fetchTestSession(testSessionId);
+
+        // Check if an up-to-date result already exists; answers merged after an auto-submit
+        // bump the session version and are graded again
         Optional<Result> existing = resultRepository.findByTestSessionId(testSessionId);
-        if (existing.isPresent()) {
+        if (existing.isPresent() && isCurrent(existing.get(), testSession)) {
             log.warn("Result already exists for test session: {}", testSessionId);
             return existing.get();
         }
 
-        // Fetch test session from Test Service
-        TestSessionDTO testSession = fetchTestSession(testSessionId);
-
         // Fetch question set from Question Service
-        QuestionSetDTO questionSet = fetchQuestionSet(testSession.getQuestionSetId());
-
-        // Parse student answers
-        Map<String, String> studentAnswers = parseAnswers(testSession.getAnswers());
+        QuestionSetDTO questionSet = questionSetCache.get(testSession.getQuestionSetId());
 
         // Calculate marks
         int totalQuestions = questionSet.getQuestions().size();
         int correctAnswers = 0;
         int wrongAnswers = 0;
 
-        for (QuestionDTO question : questionSet.getQuestions()) {
-            String studentAnswer = studentAnswers.get(question.getId().toString());
-            if (studentAnswer != null && studentAnswer.equalsIgnoreCase(question.getCorrectOption())) {
-                correctAnswers++;
-            } else if (studentAnswer != null) {
-                wrongAnswers++;
+        if (testSession.getAnswerBits() != null) {
+            // Packed answers are addressed by position in the layout the session started with.
+            // Questions removed from the set since then cannot be graded and do not count.
+            Map<Long, QuestionDTO> questionsById = questionSet.getQuestions().stream()
+                    .collect(Collectors.toMap(QuestionDTO::getId, Function.identity()));
+            long[] layout = testSession.getAnswerLayout() != null
+                    ? AnswerCodec.decodeLayout(testSession.getAnswerLayout())
+                    : AnswerCodec.layout(questionsById.keySet());
+            totalQuestions = 0;
+            for (int position = 0; position < layout.length; position++) {
+                QuestionDTO question = questionsById.get(layout[position]);
+                if (question == null) {
+                    continue;
+                }
+                totalQuestions++;
+                int answerCode = AnswerCodec.get(testSession.getAnswerBits(), position);
+                if (answerCode == AnswerCodec.UNANSWERED) {
+                    continue;
+                }
+                if (answerCode == AnswerCodec.encodeOption(question.getCorrectOption())) {
+                    correctAnswers++;
+                } else {
+                    wrongAnswers++;
+                }
+            }
+        } else {
+            // Legacy sessions store answers as JSON keyed by question ID
+            Map<String, String> studentAnswers = parseAnswers(testSession.getAnswers());
+            for (QuestionDTO question : questionSet.getQuestions()) {
+                String studentAnswer = studentAnswers.get(question.getId().toString());
+                if (studentAnswer != null && studentAnswer.equalsIgnoreCase(question.getCorrectOption())) {
+                    correctAnswers++;
+                } else if (studentAnswer != null) {
+                    wrongAnswers++;
+                }
             }
         }
 
         // Calculate percentage
         double percentage = totalQuestions > 0 ? (correctAnswers * 100.0) / totalQuestions : 0.0;
 
-        // Create result
-        Result result = new Result();
+        // Create result, or update it in place if its answers changed
+        Result result = resultRepository.findForUpdateByTestSessionId(testSessionId).orElseGet(Result::new);
+        if (result.getId() != null) {
+            if (isCurrent(result, testSession)) {
+                return result; // Recalculated concurrently
+            }
+            log.info("Recalculating marks for test session {}: answers changed since version {}",
+                    testSessionId, result.getTestSessionVersion());
+        }
         result.setTestSessionId(testSessionId);
+        result.setTestSessionVersion(testSession.getVersion());
         result.setUsn(testSession.getUsn());
+        long usnKey = UsnCodec.encode(testSession.getUsn());
+        result.setUsnKey(usnKey != UsnCodec.INVALID ? usnKey : null);
         result.setStudentName(testSession.getStudentName());
         result.setSemester(testSession.getSemester());
         result.setDepartment(testSession.getDepartment());
@@ -99,6 +136,15 @@ public class MarksServiceImpl implements MarksService {
         return saved;
     }
 
+    /**
+     * A result is current unless the session was written after it was calculated.
+     * Results from before versions were recorded are kept as they are.
+     */
+    private static boolean isCurrent(Result result, TestSessionDTO testSession) {
+        return result.getTestSessionVersion() == null || testSession.getVersion() == null
+                || result.getTestSessionVersion() >= testSession.getVersion();
+    }
+
     @Override
     public Optional<Result> getResultByTestSessionId(Long testSessionId) {
         log.debug("Fetching result for test session: {}", testSessionId);
@@ -108,7 +154,7 @@ public class MarksServiceImpl implements MarksService {
     @Override
     public List<Result> getResultsByUsn(String usn) {
         log.debug("Fetching results for USN: {}", usn);
-        return resultRepository.findByUsn(usn);
+        return findResultsByUsn(usn);
     }
 
     @Override
@@ -126,7 +172,7 @@ public class MarksServiceImpl implements MarksService {
     @Override
     public DashboardStats getDashboardStatsByUsn(String usn) {
         log.debug("Calculating dashboard statistics for USN: {}", usn);
-        return calculateStats(resultRepository.findByUsn(usn));
+        return calculateStats(findResultsByUsn(usn));
     }
 
     @Override
@@ -141,15 +187,28 @@ public class MarksServiceImpl implements MarksService {
         return calculateStats(resultRepository.findBySemester(semester));
     }
 
+    /**
+     * Look up results by packed USN, falling back to the string column for malformed USNs
+     * and for rows whose key is still null, e.g. written by an older instance during a rolling deploy
+     */
+    private List<Result> findResultsByUsn(String usn) {
+        long usnKey = UsnCodec.encode(usn);
+        if (usnKey == UsnCodec.INVALID) {
+            return resultRepository.findByUsn(usn);
+        }
+        return Stream.concat(resultRepository.findByUsnKey(usnKey).stream(),
+            resultRepository.findByUsnAndUsnKeyIsNull(usn).stream()).toList();
+    }
+
     /**
      * Fetch test session from Test Service
      */
     private TestSessionDTO fetchTestSession(Long testSessionId) {
-        String url = testServiceUrl + "/api/test-sessions/" + testSessionId;
-        log.info("Fetching test session from: {}", url);
+        log.info("Fetching test session {} from Test Service", testSessionId);
 
         try {
-            TestSessionDTO testSession = restTemplate.getForObject(url, TestSessionDTO.class);
+            TestSessionDTO testSession = interServiceClient.get(
+                    "test-service", "/api/test-sessions/{id}", TestSessionDTO.class, testSessionId);
             if (testSession == null) {
                 throw new RuntimeException("Test session not found with ID: " + testSessionId);
             }
@@ -161,31 +220,13 @@ public class MarksServiceImpl implements MarksService {
         }
     }
 
-    /**
-     * Fetch question set from Question Service
-     */
-    private QuestionSetDTO fetchQuestionSet(Long questionSetId) {
-        String url = questionServiceUrl + "/api/question-sets/" + questionSetId;
-        log.info("Fetching question set from: {}", url);
-
-        try {
-            QuestionSetDTO questionSet = restTemplate.getForObject(url, QuestionSetDTO.class);
-            if (questionSet == null) {
-                throw new RuntimeException("Question set not found with ID: " + questionSetId);
-            }
-            log.info("Fetched question set: {} with {} questions",
-                    questionSet.getName(), questionSet.getQuestions().size());
-            return questionSet;
-        } catch (Exception e) {
-            log.error("Failed to fetch question set: {}", e.getMessage());
-            throw new RuntimeException("Failed to fetch question set from Question Service", e);
-        }
-    }
-
     /**
      * Parse JSON answers string to Map
      */
     private Map<String, String> parseAnswers(String answersJson) {
+        if (answersJson == null) {
+            return new HashMap<>();
+        }
         try {
             return objectMapper.readValue(answersJson, HashMap.class);
         } catch (JsonProcessingException e) {
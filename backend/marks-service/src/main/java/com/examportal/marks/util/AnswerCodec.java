@@ -0,0 +1,163 @@
+package com.examportal.marks.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Answer Codec
+ * Mirrors the AnswerCodec from Test Service
+ * Packs the answers of a test session into 3 bits per question
+ * Questions are addressed by their position in the session's layout: the question IDs of
+ * the set when the session started, in ascending order. The layout is stored with the session
+ * so later membership changes of the set do not shift positions.
+ * - 0: Not answered
+ * - 1-4: Options A-D
+ * Example: 100 questions -> 38 bytes
+ */
+public final class AnswerCodec {
+
+    public static final int BITS_PER_ANSWER = 3;
+    public static final int UNANSWERED = 0;
+
+    private static final int MASK = (1 << BITS_PER_ANSWER) - 1;
+    private static final String OPTIONS = "ABCD";
+
+    private AnswerCodec() {
+    }
+
+    /**
+     * Build the position layout of a question set (sorted question IDs)
+     */
+    public static long[] layout(Collection<Long> questionIds) {
+        return questionIds.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    /**
+     * Position of a question in a layout, or -1 if it is not part of the set
+     */
+    public static int positionOf(long[] layout, long questionId) {
+        int position = Arrays.binarySearch(layout, questionId);
+        return position >= 0 ? position : -1;
+    }
+
+    /**
+     * Encode a layout for storage: each question ID as the unsigned varint of its
+     * difference to the previous one, so a 100 question layout takes about 100-200 bytes
+     */
+    public static byte[] encodeLayout(long[] layout) {
+        byte[] out = new byte[layout.length * 10];
+        int length = 0;
+        long previous = 0;
+        for (long questionId : layout) {
+            if (questionId <= previous) {
+                throw new IllegalArgumentException("Layout must hold ascending positive question IDs");
+            }
+            long delta = questionId - previous;
+            while ((delta & ~0x7FL) != 0) {
+                out[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            out[length++] = (byte) delta;
+            previous = questionId;
+        }
+        return Arrays.copyOf(out, length);
+    }
+
+    /**
+     * Decode a layout written by {@link #encodeLayout(long[])}
+     */
+    public static long[] decodeLayout(byte[] encoded) {
+        long[] layout = new long[encoded.length];
+        int count = 0;
+        long previous = 0;
+        int index = 0;
+        while (index < encoded.length) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (index >= encoded.length || shift > 63) {
+                    throw new IllegalArgumentException("Truncated layout");
+                }
+                b = encoded[index++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += delta;
+            layout[count++] = previous;
+        }
+        return Arrays.copyOf(layout, count);
+    }
+
+    /**
+     * Allocate an empty answer array for the given number of questions
+     */
+    public static byte[] allocate(int questionCount) {
+        return new byte[(questionCount * BITS_PER_ANSWER + 7) / 8];
+    }
+
+    /**
+     * Read the answer code at a position
+     */
+    public static int get(byte[] bits, int position) {
+        int bit = position * BITS_PER_ANSWER;
+        int index = bit >>> 3;
+        if (bits == null || index >= bits.length) {
+            return UNANSWERED;
+        }
+        int window = (bits[index] & 0xFF) | (index + 1 < bits.length ? (bits[index + 1] & 0xFF) << 8 : 0);
+        return (window >>> (bit & 7)) & MASK;
+    }
+
+    /**
+     * Write the answer code at a position in place
+     */
+    public static void set(byte[] bits, int position, int code) {
+        if (code < UNANSWERED || code > OPTIONS.length()) {
+            throw new IllegalArgumentException("Invalid answer code: " + code);
+        }
+        int bit = position * BITS_PER_ANSWER;
+        int index = bit >>> 3;
+        int shift = bit & 7;
+        int window = (bits[index] & 0xFF) | (index + 1 < bits.length ? (bits[index + 1] & 0xFF) << 8 : 0);
+        window = (window & ~(MASK << shift)) | (code << shift);
+        bits[index] = (byte) window;
+        if (index + 1 < bits.length) {
+            bits[index + 1] = (byte) (window >>> 8);
+        }
+    }
+
+    /**
+     * Encode an option letter (A, B, C or D) as an answer code
+     */
+    public static int encodeOption(String option) {
+        if (option == null || option.length() != 1) {
+            throw new IllegalArgumentException("Invalid option: " + option);
+        }
+        int index = OPTIONS.indexOf(Character.toUpperCase(option.charAt(0)));
+        if (index < 0) {
+            throw new IllegalArgumentException("Invalid option: " + option);
+        }
+        return index + 1;
+    }
+
+    /**
+     * Decode an answer code to its option letter, or null if not answered
+     */
+    public static String decodeOption(int code) {
+        return code == UNANSWERED ? null : String.valueOf(OPTIONS.charAt(code - 1));
+    }
+
+    /**
+     * Count answered questions
+     */
+    public static int countAnswered(byte[] bits, int questionCount) {
+        int answered = 0;
+        for (int position = 0; position < questionCount; position++) {
+            if (get(bits, position) != UNANSWERED) {
+                answered++;
+            }
+        }
+        return answered;
+    }
+}
@@ -0,0 +1,113 @@
+package com.examportal.marks.util;
+
+/**
+ * USN Codec
+ * Mirrors the UsnCodec from Test Service
+ * Validates and packs a USN into a single long without allocating
+ * USN Format: 1MS22CS023
+ * - Region digit, college code (2 letters), year of admission (2 digits),
+ *   department code (2 letters), roll number (3 digits)
+ * The fields are packed most significant first into 41 bits, so ordering by key
+ * is the same as ordering by USN. Letters must be upper case, as the frontend sends them.
+ */
+public final class UsnCodec {
+
+    /**
+     * Returned by {@link #encode(CharSequence)} for anything that is not a USN
+     */
+    public static final long INVALID = -1L;
+
+    public static final int LENGTH = 10;
+
+    private static final int LETTER_BITS = 5;
+    private static final int YEAR_BITS = 7;
+    private static final int ROLL_BITS = 10;
+
+    private static final int ROLL_SHIFT = 0;
+    private static final int DEPARTMENT_SHIFT = ROLL_SHIFT + ROLL_BITS;
+    private static final int YEAR_SHIFT = DEPARTMENT_SHIFT + 2 * LETTER_BITS;
+    private static final int COLLEGE_SHIFT = YEAR_SHIFT + YEAR_BITS;
+    private static final int REGION_SHIFT = COLLEGE_SHIFT + 2 * LETTER_BITS;
+
+    private static final long LETTER_MASK = (1L << LETTER_BITS) - 1;
+    private static final long YEAR_MASK = (1L << YEAR_BITS) - 1;
+    private static final long ROLL_MASK = (1L << ROLL_BITS) - 1;
+
+    private UsnCodec() {
+    }
+
+    /**
+     * Pack a USN, or return {@link #INVALID} if it is malformed
+     */
+    public static long encode(CharSequence usn) {
+        if (usn == null || usn.length() != LENGTH) {
+            return INVALID;
+        }
+        int region = digit(usn.charAt(0));
+        int college1 = letter(usn.charAt(1));
+        int college2 = letter(usn.charAt(2));
+        int year1 = digit(usn.charAt(3));
+        int year2 = digit(usn.charAt(4));
+        int department1 = letter(usn.charAt(5));
+        int department2 = letter(usn.charAt(6));
+        int roll1 = digit(usn.charAt(7));
+        int roll2 = digit(usn.charAt(8));
+        int roll3 = digit(usn.charAt(9));
+        // Bad characters map to -1, so one sign check covers all of them
+        if ((region | college1 | college2 | year1 | year2
+                | department1 | department2 | roll1 | roll2 | roll3) < 0) {
+            return INVALID;
+        }
+        return (long) region << REGION_SHIFT
+            | (long) (college1 << LETTER_BITS | college2) << COLLEGE_SHIFT
+            | (long) (year1 * 10 + year2) << YEAR_SHIFT
+            | (long) (department1 << LETTER_BITS | department2) << DEPARTMENT_SHIFT
+            | roll1 * 100 + roll2 * 10 + roll3;
+    }
+
+    /**
+     * Rebuild the USN string from a key
+     */
+    public static String decode(long key) {
+        char[] chars = new char[LENGTH];
+        chars[0] = (char) ('0' + (key >>> REGION_SHIFT));
+        chars[1] = letterAt(key, COLLEGE_SHIFT + LETTER_BITS);
+        chars[2] = letterAt(key, COLLEGE_SHIFT);
+        int year = yearOfAdmission(key);
+        chars[3] = (char) ('0' + year / 10);
+        chars[4] = (char) ('0' + year % 10);
+        chars[5] = letterAt(key, DEPARTMENT_SHIFT + LETTER_BITS);
+        chars[6] = letterAt(key, DEPARTMENT_SHIFT);
+        int roll = rollNumber(key);
+        chars[7] = (char) ('0' + roll / 100);
+        chars[8] = (char) ('0' + roll / 10 % 10);
+        chars[9] = (char) ('0' + roll % 10);
+        return new String(chars);
+    }
+
+    /**
+     * Two digit year of admission, e.g. 22
+     */
+    public static int yearOfAdmission(long key) {
+        return (int) (key >>> YEAR_SHIFT & YEAR_MASK);
+    }
+
+    /**
+     * Roll number within the department, e.g. 23
+     */
+    public static int rollNumber(long key) {
+        return (int) (key >>> ROLL_SHIFT & ROLL_MASK);
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+    private static int letter(char c) {
+        return c >= 'A' && c <= 'Z' ? c - 'A' : -1;
+    }
+
+    private static char letterAt(long key, int shift) {
+        return (char) ('A' + (key >>> shift & LETTER_MASK));
+    }
+}
@@ -0,0 +1,58 @@
+package com.examportal.question.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP Cache Policy
+ * ETags and Cache-Control for conditional GETs of question sets and questions
+ * - ETags are strong and derived from the entity's @Version, so they can be checked
+ *   without loading the entity
+ * - With max-age-seconds 0 (default) caches may store responses but must revalidate
+ *   every time; unchanged data then costs a 304 without a body
+ */
+@Component
+public class HttpCachePolicy {
+
+    @Value("${http-cache.max-age-seconds:0}")
+    private long maxAgeSeconds;
+
+    /**
+     * Cache-Control for cacheable responses
+     */
+    public CacheControl cacheControl() {
+        return maxAgeSeconds > 0
+                ? CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).mustRevalidate()
+                : CacheControl.noCache();
+    }
+
+    /**
+     * Strong ETag of one version of an entity, e.g. "question-set-12-v5"
+     */
+    public static String eTag(String kind, long id, long version) {
+        return "\"" + kind + "-" + id + "-v" + version + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header matches an ETag
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match uses the weak comparison, so W/ prefixes are ignored
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
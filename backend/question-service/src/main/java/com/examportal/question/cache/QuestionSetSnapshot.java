@@ -0,0 +1,8 @@
+package com.examportal.question.cache;
+
+/**
+ * Question Set Snapshot
+ * Immutable JSON rendering of a question set with its questions at one version
+ */
+public record QuestionSetSnapshot(long id, long version, byte[] json) {
+}
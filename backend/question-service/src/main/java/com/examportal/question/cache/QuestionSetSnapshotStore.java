@@ -0,0 +1,164 @@
+package com.examportal.question.cache;
+
+import com.examportal.question.dto.QuestionSetSummary;
+import com.examportal.question.dto.StudentQuestion;
+import com.examportal.question.entity.QuestionSet;
+import com.examportal.question.repository.QuestionSetRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Question Set Snapshot Store
+ * Keeps the serialized forms of every question set in memory, one snapshot per set and view.
+ * - FULL: the QuestionSet entity with its questions and answer keys, for admin and grading callers
+ * - STUDENT: id, text and options only, in a compact array layout (see {@link #writeStudentView}),
+ *   built from scalar projections without hydrating entities
+ * - A read looks up the set's version by primary key and serves the snapshot if it matches
+ * - A changed set (or one this instance has not served yet) is rendered once per view;
+ *   later reads reuse the bytes
+ * - Versions come from the database, so changes made through other instances are picked up
+ * Must be called inside a transaction. Snapshots are shared and must not be modified.
+ */
+@Component
+@Slf4j
+public class QuestionSetSnapshotStore {
+
+    /**
+     * Serialized views of a question set
+     */
+    public enum View {
+        FULL, STUDENT
+    }
+
+    private final QuestionSetRepository questionSetRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<View, Map<Long, QuestionSetSnapshot>> snapshots = Map.of(
+            View.FULL, new ConcurrentHashMap<>(),
+            View.STUDENT, new ConcurrentHashMap<>());
+
+    private final Counter hits;
+    private final Counter builds;
+
+    public QuestionSetSnapshotStore(QuestionSetRepository questionSetRepository, ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry) {
+        this.questionSetRepository = questionSetRepository;
+        this.objectMapper = objectMapper;
+        this.hits = meterRegistry.counter("question_set_snapshots.gets", "result", "hit");
+        this.builds = meterRegistry.counter("question_set_snapshots.gets", "result", "build");
+        for (View view : View.values()) {
+            Gauge.builder("question_set_snapshots.size", snapshots.get(view), Map::size)
+                    .tag("view", view.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Get the current snapshot of a question set, building it if the set changed
+     */
+    public Optional<QuestionSetSnapshot> get(Long questionSetId, View view) {
+        Map<Long, QuestionSetSnapshot> viewSnapshots = snapshots.get(view);
+        Optional<Long> version = questionSetRepository.findVersionById(questionSetId);
+        if (version.isEmpty()) {
+            viewSnapshots.remove(questionSetId);
+            return Optional.empty();
+        }
+
+        QuestionSetSnapshot snapshot = viewSnapshots.get(questionSetId);
+        if (snapshot != null && snapshot.version() == version.get()) {
+            hits.increment();
+            return Optional.of(snapshot);
+        }
+        Optional<QuestionSetSnapshot> built = switch (view) {
+            case FULL -> questionSetRepository.findWithQuestionsById(questionSetId)
+                    .map(questionSet -> render(questionSet.getId(), questionSet.getVersion(), questionSet,
+                            this::writeFull));
+            case STUDENT -> questionSetRepository.findSummaryById(questionSetId)
+                    .map(summary -> render(summary.getId(), summary.getVersion(),
+                            new StudentView(summary, questionSetRepository.findStudentQuestions(questionSetId)),
+                            this::writeStudentView));
+        };
+        return built.map(candidate -> store(viewSnapshots, view, candidate));
+    }
+
+    /**
+     * Drop the snapshots of a deleted question set
+     */
+    public void evict(Long questionSetId) {
+        snapshots.values().forEach(viewSnapshots -> viewSnapshots.remove(questionSetId));
+    }
+
+    private <T> QuestionSetSnapshot render(long id, long version, T source, Renderer<T> renderer) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            renderer.write(source, generator);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize question set " + id, e);
+        }
+        return new QuestionSetSnapshot(id, version, out.toByteArray());
+    }
+
+    private QuestionSetSnapshot store(Map<Long, QuestionSetSnapshot> viewSnapshots, View view,
+                                      QuestionSetSnapshot built) {
+        builds.increment();
+        log.debug("Built {} snapshot of question set {} at version {} ({} bytes)",
+                view, built.id(), built.version(), built.json().length);
+        // Concurrent builds may finish out of order; never replace a newer snapshot
+        return viewSnapshots.merge(built.id(), built,
+                (current, candidate) -> candidate.version() >= current.version() ? candidate : current);
+    }
+
+    private void writeFull(QuestionSet questionSet, JsonGenerator generator) throws IOException {
+        objectMapper.writeValue(generator, questionSet);
+    }
+
+    /**
+     * Student layout: set fields by name, each question as [id, questionText, optionA, optionB, optionC, optionD]
+     * ordered by question ID
+     */
+    private void writeStudentView(StudentView view, JsonGenerator generator) throws IOException {
+        QuestionSetSummary summary = view.summary();
+        generator.writeStartObject();
+        generator.writeNumberField("id", summary.getId());
+        generator.writeStringField("name", summary.getName());
+        generator.writeStringField("description", summary.getDescription());
+        generator.writeNumberField("semester", summary.getSemester());
+        generator.writeStringField("department", summary.getDepartment());
+        if (summary.getDurationMinutes() != null) {
+            generator.writeNumberField("durationMinutes", summary.getDurationMinutes());
+        }
+        generator.writeNumberField("version", summary.getVersion());
+        generator.writeArrayFieldStart("questions");
+        for (StudentQuestion question : view.questions()) {
+            generator.writeStartArray();
+            generator.writeNumber(question.getId());
+            generator.writeString(question.getQuestionText());
+            generator.writeString(question.getOptionA());
+            generator.writeString(question.getOptionB());
+            generator.writeString(question.getOptionC());
+            generator.writeString(question.getOptionD());
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private record StudentView(QuestionSetSummary summary, List<StudentQuestion> questions) {
+    }
+
+    @FunctionalInterface
+    private interface Renderer<T> {
+        void write(T source, JsonGenerator generator) throws IOException;
+    }
+}
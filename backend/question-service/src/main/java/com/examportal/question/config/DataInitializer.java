@@ -78,6 +78,7 @@ public class DataInitializer implements CommandLineRunner {
         set1.setDescription("Basic questions on DSA and Database concepts");
         set1.setSemester(6);
         set1.setDepartment("CS");
+        set1.setDurationMinutes(30);
         
         Set<Question> questions = new HashSet<>();
         questions.add(q1);
@@ -1,15 +1,28 @@
 package com.examportal.question.controller;
 
+import com.examportal.question.cache.HttpCachePolicy;
+import com.examportal.question.dto.DuplicateCluster;
+import com.examportal.question.dto.NearDuplicate;
+import com.examportal.question.dto.QuestionSearchPage;
 import com.examportal.question.entity.Question;
+import com.examportal.question.entity.QuestionImport;
 import com.examportal.question.service.QuestionService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Question Controller
@@ -21,26 +34,92 @@ import java.util.List;
 @Slf4j
 public class QuestionController {
 
+    private static final String ETAG_KIND = "question";
+    private static final String NEAR_DUPLICATES_HEADER = "X-Near-Duplicates";
+
     private final QuestionService questionService;
+    private final HttpCachePolicy httpCachePolicy;
 
     /**
      * Create a new question
+     * IDs of existing near-duplicates, if any, are listed in the X-Near-Duplicates header.
      */
     @PostMapping
     public ResponseEntity<Question> createQuestion(@Valid @RequestBody Question question) {
         log.info("POST /api/questions - Creating new question");
         Question created = questionService.createQuestion(question);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        List<NearDuplicate> nearDuplicates = questionService.findNearDuplicates(created, null);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CREATED);
+        if (!nearDuplicates.isEmpty()) {
+            log.info("Question {} is similar to {} existing questions", created.getId(), nearDuplicates.size());
+            response.header(NEAR_DUPLICATES_HEADER, nearDuplicates.stream()
+                    .map(nearDuplicate -> nearDuplicate.getQuestionId().toString())
+                    .collect(Collectors.joining(",")));
+        }
+        return response.body(created);
+    }
+
+    /**
+     * Import questions in bulk from a CSV or JSON upload, optionally adding them to a question set
+     * CSV needs a header row naming the question fields; JSON is an array (or a sequence) of questions.
+     * Returns 202 with the import to poll at /api/questions/imports/{id}.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<QuestionImport> importQuestions(
+            @RequestParam(required = false) Long questionSetId,
+            HttpServletRequest request) throws IOException {
+        log.info("POST /api/questions/import - Importing questions, questionSetId={}", questionSetId);
+        QuestionImport.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? QuestionImport.Format.CSV : QuestionImport.Format.JSON;
+        try {
+            QuestionImport questionImport = questionService.importQuestions(
+                    format, request.getInputStream(), questionSetId);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/questions/imports/" + questionImport.getId()))
+                    .body(questionImport);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Get the progress of a bulk import and the rows it rejected
+     */
+    @GetMapping("/imports/{id}")
+    public ResponseEntity<QuestionImport> getImport(@PathVariable Long id) {
+        log.info("GET /api/questions/imports/{} - Fetching import progress", id);
+        return questionService.getImport(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     /**
      * Get question by ID
+     * A matching If-None-Match gets a 304 after a version lookup, without loading the question.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Question> getQuestionById(@PathVariable Long id) {
+    public ResponseEntity<Question> getQuestionById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("GET /api/questions/{} - Fetching question", id);
+        Optional<Long> version = questionService.getQuestionVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String eTag = HttpCachePolicy.eTag(ETAG_KIND, id, version.get());
+        if (HttpCachePolicy.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(httpCachePolicy.cacheControl())
+                    .build();
+        }
+
         return questionService.getQuestionById(id)
-                .map(ResponseEntity::ok)
+                .map(question -> ResponseEntity.ok()
+                        .eTag(HttpCachePolicy.eTag(ETAG_KIND, id, question.getVersion()))
+                        .cacheControl(httpCachePolicy.cacheControl())
+                        .body(question))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -70,6 +149,78 @@ public class QuestionController {
         return ResponseEntity.ok(questions);
     }
 
+    /**
+     * Search question text and options, best match first
+     * Every word of q must match; a word ending in * matches any word starting with it.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchQuestions(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer semester,
+            @RequestParam(required = false) String department,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("GET /api/questions/search - Searching questions for '{}', page {}", q, page);
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Page must be 0 or more and size 1 to 100"));
+        }
+        try {
+            QuestionSearchPage results = questionService.searchQuestions(q, semester, department, page, size);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Find near-duplicates of a question, most similar first
+     */
+    @GetMapping("/{id}/duplicates")
+    public ResponseEntity<?> getNearDuplicates(
+            @PathVariable Long id,
+            @RequestParam(required = false) Double threshold) {
+        log.info("GET /api/questions/{}/duplicates - Finding near-duplicates", id);
+        try {
+            List<NearDuplicate> nearDuplicates = questionService.findNearDuplicates(id, threshold);
+            return ResponseEntity.ok(nearDuplicates);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Find near-duplicates of a question before creating it
+     */
+    @PostMapping("/duplicates/check")
+    public ResponseEntity<?> checkNearDuplicates(
+            @Valid @RequestBody Question question,
+            @RequestParam(required = false) Double threshold) {
+        log.info("POST /api/questions/duplicates/check - Checking a question for near-duplicates");
+        try {
+            question.setId(null);
+            List<NearDuplicate> nearDuplicates = questionService.findNearDuplicates(question, threshold);
+            return ResponseEntity.ok(nearDuplicates);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Group the whole question bank into clusters of near-duplicates, largest first
+     */
+    @GetMapping("/duplicates")
+    public ResponseEntity<?> clusterNearDuplicates(@RequestParam(required = false) Double threshold) {
+        log.info("GET /api/questions/duplicates - Clustering near-duplicates, threshold={}", threshold);
+        try {
+            List<DuplicateCluster> clusters = questionService.clusterNearDuplicates(threshold);
+            return ResponseEntity.ok(clusters);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Update question
      */
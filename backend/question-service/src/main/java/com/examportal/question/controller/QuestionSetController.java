@@ -1,15 +1,24 @@
 package com.examportal.question.controller;
 
+import com.examportal.question.cache.HttpCachePolicy;
+import com.examportal.question.cache.QuestionSetSnapshotStore;
+import com.examportal.question.dto.QuestionIdsRequest;
+import com.examportal.question.dto.QuestionSetSummary;
 import com.examportal.question.entity.QuestionSet;
 import com.examportal.question.service.QuestionSetService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
 
 /**
  * QuestionSet Controller
@@ -21,7 +30,12 @@ import java.util.List;
 @Slf4j
 public class QuestionSetController {
 
+    private static final Map<QuestionSetSnapshotStore.View, String> ETAG_KINDS = Map.of(
+            QuestionSetSnapshotStore.View.FULL, "question-set",
+            QuestionSetSnapshotStore.View.STUDENT, "question-set-student");
+
     private final QuestionSetService questionSetService;
+    private final HttpCachePolicy httpCachePolicy;
 
     /**
      * Create a new question set
@@ -34,40 +48,54 @@ public class QuestionSetController {
     }
 
     /**
-     * Get question set by ID
+     * Get question set by ID, with answer keys
+     * For admin and grading callers; students get the student view
      */
     @GetMapping("/{id}")
-    public ResponseEntity<QuestionSet> getQuestionSetById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getQuestionSetById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("GET /api/question-sets/{} - Fetching question set", id);
-        return questionSetService.getQuestionSetById(id)
-                .map(ResponseEntity::ok)
+        return snapshotResponse(id, QuestionSetSnapshotStore.View.FULL, ifNoneMatch);
+    }
+
+    /**
+     * Get the student view of a question set: id, text and options of each question, without answer keys
+     * Questions are arrays [id, questionText, optionA, optionB, optionC, optionD] ordered by question ID
+     */
+    @GetMapping("/{id}/student")
+    public ResponseEntity<byte[]> getStudentQuestionSet(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.info("GET /api/question-sets/{}/student - Fetching student view of question set", id);
+        return snapshotResponse(id, QuestionSetSnapshotStore.View.STUDENT, ifNoneMatch);
+    }
+
+    /**
+     * Get the current version of a question set
+     * Lets clients revalidate a cached copy without fetching its questions
+     */
+    @GetMapping("/{id}/version")
+    public ResponseEntity<java.util.Map<String, Long>> getQuestionSetVersion(@PathVariable Long id) {
+        log.debug("GET /api/question-sets/{}/version - Fetching question set version", id);
+        return questionSetService.getQuestionSetVersion(id)
+                .map(version -> ResponseEntity.ok(java.util.Map.of("id", id, "version", version)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
-     * Get all question sets with optional filters
+     * Get summaries of all question sets with optional filters
+     * Fetch a set by ID for its questions
      */
     @GetMapping
-    public ResponseEntity<List<QuestionSet>> getAllQuestionSets(
+    public ResponseEntity<List<QuestionSetSummary>> getAllQuestionSets(
             @RequestParam(required = false) Integer semester,
             @RequestParam(required = false) String department) {
         
         log.info("GET /api/question-sets - Fetching question sets with filters: semester={}, department={}", 
                 semester, department);
         
-        List<QuestionSet> questionSets;
-        
-        if (semester != null && department != null) {
-            questionSets = questionSetService.getQuestionSetsBySemesterAndDepartment(semester, department);
-        } else if (semester != null) {
-            questionSets = questionSetService.getQuestionSetsBySemester(semester);
-        } else if (department != null) {
-            questionSets = questionSetService.getQuestionSetsByDepartment(department);
-        } else {
-            questionSets = questionSetService.getAllQuestionSets();
-        }
-        
-        return ResponseEntity.ok(questionSets);
+        return ResponseEntity.ok(questionSetService.getQuestionSetSummaries(semester, department));
     }
 
     /**
@@ -118,6 +146,45 @@ public class QuestionSetController {
         }
     }
 
+    /**
+     * Add questions to question set in bulk, skipping ones already in it
+     * Returns the set's new version; fetch the set for its questions.
+     */
+    @PostMapping("/{setId}/questions")
+    public ResponseEntity<Map<String, Object>> addQuestionsToSet(
+            @PathVariable Long setId,
+            @Valid @RequestBody QuestionIdsRequest request) {
+        log.info("POST /api/question-sets/{}/questions - Adding {} questions to set",
+                setId, request.getQuestionIds().size());
+        return membershipResponse(setId, () -> questionSetService.addQuestionsToSet(setId, request.getQuestionIds()));
+    }
+
+    /**
+     * Remove questions from question set in bulk
+     */
+    @PostMapping("/{setId}/questions/remove")
+    public ResponseEntity<Map<String, Object>> removeQuestionsFromSet(
+            @PathVariable Long setId,
+            @Valid @RequestBody QuestionIdsRequest request) {
+        log.info("POST /api/question-sets/{}/questions/remove - Removing {} questions from set",
+                setId, request.getQuestionIds().size());
+        return membershipResponse(setId,
+                () -> questionSetService.removeQuestionsFromSet(setId, request.getQuestionIds()));
+    }
+
+    /**
+     * Replace the questions of question set
+     */
+    @PutMapping("/{setId}/questions")
+    public ResponseEntity<Map<String, Object>> replaceQuestionsInSet(
+            @PathVariable Long setId,
+            @Valid @RequestBody QuestionIdsRequest request) {
+        log.info("PUT /api/question-sets/{}/questions - Replacing questions of set with {} questions",
+                setId, request.getQuestionIds().size());
+        return membershipResponse(setId,
+                () -> questionSetService.replaceQuestionsInSet(setId, request.getQuestionIds()));
+    }
+
     /**
      * Delete question set
      */
@@ -127,4 +194,44 @@ public class QuestionSetController {
         questionSetService.deleteQuestionSet(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Run a membership change: 200 with the new version, 400 for unknown questions, 404 for an unknown set
+     */
+    private ResponseEntity<Map<String, Object>> membershipResponse(Long setId, LongSupplier change) {
+        try {
+            return ResponseEntity.ok(Map.of("id", setId, "version", change.getAsLong()));
+        } catch (IllegalArgumentException e) {
+            log.error("Validation error: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Serve a pre-serialized snapshot of the set's current version.
+     * A matching If-None-Match gets a 304 after a version lookup, without loading the set.
+     */
+    private ResponseEntity<byte[]> snapshotResponse(Long id, QuestionSetSnapshotStore.View view, String ifNoneMatch) {
+        Optional<Long> version = questionSetService.getQuestionSetVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String eTag = HttpCachePolicy.eTag(ETAG_KINDS.get(view), id, version.get());
+        if (HttpCachePolicy.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(httpCachePolicy.cacheControl())
+                    .build();
+        }
+
+        return questionSetService.getQuestionSetSnapshot(id, view)
+                .map(snapshot -> ResponseEntity.ok()
+                        .eTag(HttpCachePolicy.eTag(ETAG_KINDS.get(view), id, snapshot.version()))
+                        .cacheControl(httpCachePolicy.cacheControl())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(snapshot.json()))
+                .orElse(ResponseEntity.notFound().build());
+    }
 }
@@ -0,0 +1,18 @@
+package com.examportal.question.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Duplicate Cluster DTO
+ * A group of questions linked by near-duplicate pairs, ordered by question ID
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateCluster {
+    private List<Long> questionIds;
+}
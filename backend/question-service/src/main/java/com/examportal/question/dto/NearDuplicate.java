@@ -0,0 +1,17 @@
+package com.examportal.question.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Near Duplicate DTO
+ * A question similar to another one, with their estimated similarity (0 to 1)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearDuplicate {
+    private Long questionId;
+    private double similarity;
+}
@@ -0,0 +1,21 @@
+package com.examportal.question.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Question IDs Request DTO
+ * Request body for changing the membership of a question set in bulk
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionIdsRequest {
+
+    @NotNull(message = "Question IDs are required")
+    private List<@NotNull(message = "Question IDs must not be null") Long> questionIds;
+}
@@ -0,0 +1,18 @@
+package com.examportal.question.dto;
+
+import com.examportal.question.entity.Question;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Question Search Hit DTO
+ * A question matching a search, with its relevance score
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionSearchHit {
+    private Question question;
+    private double score;
+}
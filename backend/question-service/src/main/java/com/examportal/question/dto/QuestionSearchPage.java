@@ -0,0 +1,21 @@
+package com.examportal.question.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Question Search Page DTO
+ * One page of search hits, best match first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionSearchPage {
+    private List<QuestionSearchHit> items;
+    private int total; // Questions matching the search
+    private int page;
+    private int size;
+}
@@ -0,0 +1,23 @@
+package com.examportal.question.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Question Set Summary DTO
+ * Question set without its questions, used for listings
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionSetSummary {
+    private Long id;
+    private String name;
+    private String description;
+    private Integer semester;
+    private String department;
+    private Integer durationMinutes;
+    private Integer questionCount;
+    private Long version;
+}
@@ -0,0 +1,21 @@
+package com.examportal.question.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Student Question DTO
+ * Question as shown to students: text and options, without the answer key
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentQuestion {
+    private Long id;
+    private String questionText;
+    private String optionA;
+    private String optionB;
+    private String optionC;
+    private String optionD;
+}
@@ -0,0 +1,206 @@
+package com.examportal.question.duplicate;
+
+import com.examportal.question.entity.Question;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * MinHasher
+ * MinHash signatures and LSH band keys of questions, for finding reworded copies
+ * - A question is its text followed by its options in sorted order (so shuffled options
+ *   do not matter), lower-cased with punctuation and spacing collapsed
+ * - Shingles are its overlapping 5-character substrings; two questions' similarity is the
+ *   Jaccard similarity of their shingle sets
+ * - HASHES min-hashes are split into BANDS bands of ROWS; questions sharing any band key are
+ *   candidates. Pairs at similarity 0.7 share a band with probability 0.95, pairs at 0.4
+ *   with probability 0.16
+ * - Only the low 8 bits of each min-hash are kept for verifying candidates (b-bit MinHash);
+ *   {@link #similarity} corrects for the chance matches that causes
+ */
+public final class MinHasher {
+
+    public static final int HASHES = 80;
+    public static final int BANDS = 16;
+    public static final int ROWS = HASHES / BANDS;
+
+    /**
+     * Longs per signature when packed with {@link #pack}
+     */
+    static final int SIGNATURE_WORDS = HASHES / Long.BYTES;
+
+    private static final int SHINGLE_LENGTH = 5;
+    private static final long[] MULTIPLIERS = new long[HASHES];
+    private static final long[] INCREMENTS = new long[HASHES];
+
+    static {
+        // Fixed seed: signatures are stored, so they must not change between runs
+        SplittableRandom random = new SplittableRandom(0x5EED_0F_D0C5L);
+        for (int i = 0; i < HASHES; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1;
+            INCREMENTS[i] = random.nextLong();
+        }
+    }
+
+    private MinHasher() {
+    }
+
+    /**
+     * Full 32-bit min-hashes of a question
+     */
+    public static long[] minHashes(Question question) {
+        String text = normalize(question);
+        long[] minimums = new long[HASHES];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+        int shingles = Math.max(1, text.length() - SHINGLE_LENGTH + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingle = hashShingle(text, start, Math.min(text.length(), start + SHINGLE_LENGTH));
+            for (int i = 0; i < HASHES; i++) {
+                // Multiply-shift hashing; the top 32 bits are the well-mixed ones
+                long hash = (MULTIPLIERS[i] * shingle + INCREMENTS[i]) >>> 32;
+                if (hash < minimums[i]) {
+                    minimums[i] = hash;
+                }
+            }
+        }
+        return minimums;
+    }
+
+    /**
+     * Low 8 bits of each min-hash, as stored for verifying candidates
+     */
+    public static byte[] signature(long[] minHashes) {
+        byte[] signature = new byte[HASHES];
+        for (int i = 0; i < HASHES; i++) {
+            signature[i] = (byte) minHashes[i];
+        }
+        return signature;
+    }
+
+    /**
+     * One key per band, hashing the band's number and its min-hashes
+     */
+    public static long[] bandKeys(long[] minHashes) {
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int row = 0; row < ROWS; row++) {
+                key = mix(key * 31 + minHashes[band * ROWS + row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Estimated Jaccard similarity of two questions from their stored signatures
+     */
+    public static double similarity(byte[] first, byte[] second) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (first[i] == second[i]) {
+                equal++;
+            }
+        }
+        return estimate(equal);
+    }
+
+    /**
+     * Pack a signature into SIGNATURE_WORDS longs at an offset, for comparing eight hashes at a time
+     */
+    static void pack(byte[] signature, long[] words, int offset) {
+        for (int word = 0; word < SIGNATURE_WORDS; word++) {
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = value << 8 | (signature[word * Long.BYTES + i] & 0xFF);
+            }
+            words[offset + word] = value;
+        }
+    }
+
+    /**
+     * {@link #similarity(byte[], byte[])} of two packed signatures
+     */
+    static double similarity(long[] first, int firstOffset, long[] second, int secondOffset) {
+        int equal = 0;
+        for (int word = 0; word < SIGNATURE_WORDS; word++) {
+            equal += zeroBytes(first[firstOffset + word] ^ second[secondOffset + word]);
+        }
+        return estimate(equal);
+    }
+
+    private static double estimate(int equal) {
+        // Different shingles still agree on 8 bits one time in 256
+        double chance = 1.0 / 256;
+        double estimate = ((double) equal / HASHES - chance) / (1 - chance);
+        return Math.max(0, Math.min(1, estimate));
+    }
+
+    /**
+     * Number of zero bytes in a long, without branches
+     */
+    private static int zeroBytes(long value) {
+        long low = 0x7F7F7F7F7F7F7F7FL;
+        // The high bit of each byte ends up set exactly when the byte is zero
+        long nonZero = ((value & low) + low) | value | low;
+        return Long.bitCount(~nonZero);
+    }
+
+    private static String normalize(Question question) {
+        List<String> options = new ArrayList<>(4);
+        options.add(words(question.getOptionA()));
+        options.add(words(question.getOptionB()));
+        options.add(words(question.getOptionC()));
+        options.add(words(question.getOptionD()));
+        options.sort(null);
+        StringBuilder text = new StringBuilder(words(question.getQuestionText()));
+        for (String option : options) {
+            text.append(" | ").append(option);
+        }
+        return text.toString();
+    }
+
+    private static String words(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder words = new StringBuilder(value.length());
+        boolean space = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && !words.isEmpty()) {
+                    words.append(' ');
+                }
+                words.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return words.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static long hashShingle(String text, int from, int to) {
+        long hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = hash * 0x100000001B3L + text.charAt(i);
+        }
+        return mix(hash);
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
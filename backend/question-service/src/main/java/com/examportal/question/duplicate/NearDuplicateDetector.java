@@ -0,0 +1,297 @@
+package com.examportal.question.duplicate;
+
+import com.examportal.question.dto.DuplicateCluster;
+import com.examportal.question.dto.NearDuplicate;
+import com.examportal.question.entity.Question;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Near Duplicate Detector
+ * Finds reworded copies of questions with MinHash signatures and LSH buckets stored in the database
+ * - Every question has a row in question_signatures and one row per band in
+ *   question_signature_bands, written in the same transaction as the question itself
+ * - Checking a question looks up its band keys through an index and verifies the candidates by
+ *   signature, so the cost depends on how many similar questions there are, not on the bank size
+ * - Clustering the bank walks the band rows in key order (see {@link SignatureClusterer}); it holds
+ *   the 80-byte signatures of all questions in memory while it runs
+ * - At startup, questions without a signature (rows older than this feature, or written outside the
+ *   service) are signed and signatures of deleted questions are dropped
+ * Similarities are estimates, usually within 0.05 of the exact value.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NearDuplicateDetector {
+
+    // LSH finds few pairs below this (40% of those at 0.5), so lower thresholds would be misleading
+    private static final double MIN_THRESHOLD = 0.5;
+    private static final int MAX_KEYS_PER_QUERY = 1000;
+
+    private static final String SELECT_CANDIDATES =
+        "SELECT b.band_key, s.question_id, s.signature FROM question_signature_bands b "
+            + "JOIN question_signatures s ON s.question_id = b.question_id WHERE b.band_key IN (:keys)";
+    private static final String INSERT_SIGNATURE =
+        "INSERT INTO question_signatures (question_id, signature) VALUES (?, ?)";
+    private static final String INSERT_BAND =
+        "INSERT INTO question_signature_bands (question_id, band_key) VALUES (?, ?)";
+    private static final String DELETE_BANDS = "DELETE FROM question_signature_bands WHERE question_id = ?";
+    private static final String DELETE_SIGNATURE = "DELETE FROM question_signatures WHERE question_id = ?";
+    private static final String SELECT_SIGNATURES =
+        "SELECT question_id, signature FROM question_signatures WHERE question_id > ? ORDER BY question_id LIMIT ?";
+    private static final String SELECT_BANDS =
+        "SELECT band_key, question_id FROM question_signature_bands "
+            + "WHERE band_key >= ? AND (band_key > ? OR question_id > ?) ORDER BY band_key, question_id LIMIT ?";
+    private static final String SELECT_UNSIGNED =
+        "SELECT q.id, q.question_text, q.optiona, q.optionb, q.optionc, q.optiond FROM questions q "
+            + "LEFT JOIN question_signatures s ON s.question_id = q.id "
+            + "WHERE s.question_id IS NULL AND q.id > ? ORDER BY q.id LIMIT ?";
+    private static final String DELETE_ORPHAN_BANDS =
+        "DELETE FROM question_signature_bands WHERE question_id IN (SELECT s.question_id FROM question_signatures s "
+            + "LEFT JOIN questions q ON q.id = s.question_id WHERE q.id IS NULL)";
+    private static final String DELETE_ORPHAN_SIGNATURES =
+        "DELETE FROM question_signatures WHERE question_id NOT IN (SELECT id FROM questions)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${near-duplicates.threshold:0.7}")
+    private double defaultThreshold;
+
+    @Value("${near-duplicates.max-matches:10}")
+    private int maxMatches;
+
+    @Value("${near-duplicates.batch-size:10000}")
+    private int batchSize;
+
+    /**
+     * Store the signatures of questions that were just inserted, returning the near-duplicates of
+     * each among the stored questions and the questions before it in the list
+     * Call inside the transaction that inserted them.
+     */
+    public Map<Long, List<NearDuplicate>> index(List<Question> questions) {
+        List<Signed> signed = sign(questions);
+        Map<Long, List<Candidate>> buckets = candidates(signed);
+        Map<Long, List<NearDuplicate>> found = new HashMap<>();
+        for (Signed question : signed) {
+            List<NearDuplicate> matches = verify(question, buckets, defaultThreshold);
+            if (!matches.isEmpty()) {
+                found.put(question.id(), matches);
+            }
+            Candidate candidate = new Candidate(question.id(), question.signature());
+            for (long key : question.bandKeys()) {
+                buckets.computeIfAbsent(key, k -> new ArrayList<>()).add(candidate);
+            }
+        }
+        insert(signed);
+        return found;
+    }
+
+    /**
+     * Store the signature of a question that was just inserted, without looking for near-duplicates
+     */
+    public void add(Question question) {
+        insert(sign(List.of(question)));
+    }
+
+    /**
+     * Replace the signature of an updated question
+     */
+    public void update(Question question) {
+        remove(question.getId());
+        add(question);
+    }
+
+    /**
+     * Drop the signature of a deleted question
+     */
+    public void remove(Long questionId) {
+        jdbcTemplate.update(DELETE_BANDS, questionId);
+        jdbcTemplate.update(DELETE_SIGNATURE, questionId);
+    }
+
+    /**
+     * Stored questions at least as similar to a question as the threshold, most similar first
+     * The question itself is left out if it has an ID. A null threshold means the configured one.
+     */
+    public List<NearDuplicate> findSimilar(Question question, Double threshold) {
+        double minSimilarity = threshold(threshold);
+        List<Signed> signed = sign(List.of(question));
+        return verify(signed.get(0), candidates(signed), minSimilarity);
+    }
+
+    /**
+     * Group the whole bank into clusters of near-duplicates, largest first
+     */
+    public List<DuplicateCluster> cluster(Double threshold) {
+        long start = System.nanoTime();
+        SignatureClusterer clusterer = new SignatureClusterer(threshold(threshold));
+        while (true) {
+            int loaded = clusterer.questionCount();
+            jdbcTemplate.query(SELECT_SIGNATURES,
+                (RowCallbackHandler) rs -> clusterer.addSignature(rs.getLong(1), rs.getBytes(2)),
+                clusterer.lastQuestionId(), batchSize);
+            if (clusterer.questionCount() - loaded < batchSize) {
+                break;
+            }
+        }
+
+        long lastKey = Long.MIN_VALUE;
+        long lastQuestionId = 0;
+        while (true) {
+            List<long[]> bands = jdbcTemplate.query(SELECT_BANDS,
+                (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)},
+                lastKey, lastKey, lastQuestionId, batchSize);
+            for (long[] band : bands) {
+                clusterer.addBand(band[0], band[1]);
+            }
+            if (bands.size() < batchSize) {
+                break;
+            }
+            lastKey = bands.get(bands.size() - 1)[0];
+            lastQuestionId = bands.get(bands.size() - 1)[1];
+        }
+
+        List<DuplicateCluster> clusters = clusterer.clusters();
+        log.info("Clustered {} questions into {} near-duplicate clusters in {} ms ({} comparisons)",
+            clusterer.questionCount(), clusters.size(), (System.nanoTime() - start) / 1_000_000,
+            clusterer.comparisons());
+        return clusters;
+    }
+
+    /**
+     * Sign questions that have no signature yet and drop signatures of deleted questions
+     * Several instances may run it at once; a batch another instance got to first is skipped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int removed = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(DELETE_ORPHAN_BANDS);
+            return jdbcTemplate.update(DELETE_ORPHAN_SIGNATURES);
+        });
+        long lastId = 0;
+        int signed = 0;
+        while (true) {
+            List<Question> questions = jdbcTemplate.query(SELECT_UNSIGNED, (rs, rowNum) -> {
+                Question question = new Question();
+                question.setId(rs.getLong(1));
+                question.setQuestionText(rs.getString(2));
+                question.setOptionA(rs.getString(3));
+                question.setOptionB(rs.getString(4));
+                question.setOptionC(rs.getString(5));
+                question.setOptionD(rs.getString(6));
+                return question;
+            }, lastId, batchSize);
+            if (questions.isEmpty()) {
+                break;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(sign(questions)));
+                signed += questions.size();
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Questions after ID {} were signed by another instance", lastId);
+            }
+            lastId = questions.get(questions.size() - 1).getId();
+        }
+        if (signed > 0 || removed > 0) {
+            log.info("Signed {} questions for near-duplicate detection, dropped {} stale signatures", signed, removed);
+        }
+    }
+
+    private double threshold(Double threshold) {
+        if (threshold == null) {
+            return defaultThreshold;
+        }
+        if (threshold < MIN_THRESHOLD || threshold > 1) {
+            throw new IllegalArgumentException("Similarity threshold must be between " + MIN_THRESHOLD + " and 1");
+        }
+        return threshold;
+    }
+
+    private static List<Signed> sign(List<Question> questions) {
+        List<Signed> signed = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            long[] minHashes = MinHasher.minHashes(question);
+            signed.add(new Signed(question.getId(), MinHasher.signature(minHashes), MinHasher.bandKeys(minHashes)));
+        }
+        return signed;
+    }
+
+    /**
+     * Stored questions in the buckets of the given questions, by band key
+     */
+    private Map<Long, List<Candidate>> candidates(List<Signed> signed) {
+        Set<Long> keys = new LinkedHashSet<>();
+        for (Signed question : signed) {
+            for (long key : question.bandKeys()) {
+                keys.add(key);
+            }
+        }
+        Map<Long, List<Candidate>> buckets = new HashMap<>();
+        List<Long> pending = new ArrayList<>(keys);
+        for (int from = 0; from < pending.size(); from += MAX_KEYS_PER_QUERY) {
+            List<Long> chunk = pending.subList(from, Math.min(pending.size(), from + MAX_KEYS_PER_QUERY));
+            namedParameterJdbcTemplate.query(SELECT_CANDIDATES, Map.of("keys", chunk), (RowCallbackHandler) rs ->
+                buckets.computeIfAbsent(rs.getLong(1), key -> new ArrayList<>())
+                    .add(new Candidate(rs.getLong(2), rs.getBytes(3))));
+        }
+        return buckets;
+    }
+
+    private List<NearDuplicate> verify(Signed question, Map<Long, List<Candidate>> buckets, double threshold) {
+        Map<Long, Double> similarities = new HashMap<>();
+        for (long key : question.bandKeys()) {
+            for (Candidate candidate : buckets.getOrDefault(key, List.of())) {
+                if (!Objects.equals(candidate.questionId(), question.id())
+                        && !similarities.containsKey(candidate.questionId())) {
+                    similarities.put(candidate.questionId(),
+                        MinHasher.similarity(question.signature(), candidate.signature()));
+                }
+            }
+        }
+        return similarities.entrySet().stream()
+            .filter(entry -> entry.getValue() >= threshold)
+            .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey()))
+            .limit(maxMatches)
+            .map(entry -> new NearDuplicate(entry.getKey(), Math.round(entry.getValue() * 1000) / 1000.0))
+            .toList();
+    }
+
+    private void insert(List<Signed> signed) {
+        List<Object[]> signatures = new ArrayList<>(signed.size());
+        List<Object[]> bands = new ArrayList<>(signed.size() * MinHasher.BANDS);
+        for (Signed question : signed) {
+            signatures.add(new Object[] {question.id(), question.signature()});
+            for (long key : question.bandKeys()) {
+                bands.add(new Object[] {question.id(), key});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SIGNATURE, signatures);
+        jdbcTemplate.batchUpdate(INSERT_BAND, bands);
+    }
+
+    private record Signed(Long id, byte[] signature, long[] bandKeys) {
+    }
+
+    private record Candidate(Long questionId, byte[] signature) {
+    }
+}
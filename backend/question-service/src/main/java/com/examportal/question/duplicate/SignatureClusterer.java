@@ -0,0 +1,167 @@
+package com.examportal.question.duplicate;
+
+import com.examportal.question.dto.DuplicateCluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Signature Clusterer
+ * Groups questions into near-duplicate clusters during one clustering run
+ * - Signatures are added in question ID order, then band rows in band key order
+ * - Within a bucket (the questions sharing a band key) each question is compared with one
+ *   representative of every cluster met in the bucket so far, not with every member, so a
+ *   bucket of many copies costs linear rather than quadratic time
+ * - A bucket keeps at most MAX_REPRESENTATIVES of them. Only questions built from one template
+ *   fill a bucket with that many dissimilar clusters; pairs missed there usually meet in another band
+ * - Verified pairs are joined with union-find; clusters are the resulting components
+ * Not thread-safe.
+ */
+final class SignatureClusterer {
+
+    private static final int WORDS = MinHasher.SIGNATURE_WORDS;
+    private static final int MAX_REPRESENTATIVES = 32;
+
+    private final double threshold;
+
+    private long[] ids = new long[1024];
+    private long[] signatures = new long[1024 * WORDS];
+    private int count;
+
+    private int[] parent; // Allocated once the first band row arrives
+    private int[] size;
+
+    private long bucketKey;
+    private int[] bucket = new int[16];
+    private int bucketSize;
+    private final int[] representatives = new int[MAX_REPRESENTATIVES];
+    private long comparisons;
+
+    SignatureClusterer(double threshold) {
+        this.threshold = threshold;
+    }
+
+    void addSignature(long questionId, byte[] signature) {
+        if (parent != null) {
+            throw new IllegalStateException("Signatures must be added before band rows");
+        }
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+            signatures = Arrays.copyOf(signatures, count * 2 * WORDS);
+        }
+        ids[count] = questionId;
+        MinHasher.pack(signature, signatures, count * WORDS);
+        count++;
+    }
+
+    long lastQuestionId() {
+        return count == 0 ? 0 : ids[count - 1];
+    }
+
+    int questionCount() {
+        return count;
+    }
+
+    long comparisons() {
+        return comparisons;
+    }
+
+    void addBand(long bandKey, long questionId) {
+        startBands();
+        int slot = Arrays.binarySearch(ids, 0, count, questionId);
+        if (slot < 0) {
+            return; // Signed after the signatures were loaded
+        }
+        if (bucketSize > 0 && bandKey != bucketKey) {
+            closeBucket();
+        }
+        bucketKey = bandKey;
+        if (bucketSize == bucket.length) {
+            bucket = Arrays.copyOf(bucket, bucketSize * 2);
+        }
+        bucket[bucketSize++] = slot;
+    }
+
+    /**
+     * Clusters of two or more questions, largest first
+     */
+    List<DuplicateCluster> clusters() {
+        startBands();
+        closeBucket();
+        Map<Integer, List<Long>> components = new HashMap<>();
+        for (int slot = 0; slot < count; slot++) {
+            int root = find(slot);
+            if (size[root] > 1) {
+                // Slots are in ID order, so every cluster is too
+                components.computeIfAbsent(root, r -> new ArrayList<>(size[r])).add(ids[slot]);
+            }
+        }
+        return components.values().stream()
+                .sorted(Comparator.<List<Long>>comparingInt(List::size).reversed()
+                        .thenComparing(questionIds -> questionIds.get(0)))
+                .map(DuplicateCluster::new)
+                .toList();
+    }
+
+    private void startBands() {
+        if (parent == null) {
+            parent = new int[count];
+            size = new int[count];
+            for (int slot = 0; slot < count; slot++) {
+                parent[slot] = slot;
+                size[slot] = 1;
+            }
+        }
+    }
+
+    private void closeBucket() {
+        int representativeCount = 0;
+        for (int i = 0; i < bucketSize; i++) {
+            int slot = bucket[i];
+            boolean joined = false;
+            for (int r = 0; r < representativeCount; r++) {
+                int representative = representatives[r];
+                if (find(slot) == find(representative)) {
+                    joined = true;
+                    continue;
+                }
+                comparisons++;
+                if (MinHasher.similarity(signatures, slot * WORDS, signatures, representative * WORDS) >= threshold) {
+                    union(slot, representative);
+                    joined = true;
+                }
+            }
+            if (!joined && representativeCount < MAX_REPRESENTATIVES) {
+                representatives[representativeCount++] = slot;
+            }
+        }
+        bucketSize = 0;
+    }
+
+    private int find(int slot) {
+        while (parent[slot] != slot) {
+            parent[slot] = parent[parent[slot]]; // Path halving
+            slot = parent[slot];
+        }
+        return slot;
+    }
+
+    private void union(int first, int second) {
+        int a = find(first);
+        int b = find(second);
+        if (a == b) {
+            return;
+        }
+        if (size[a] < size[b]) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+    }
+}
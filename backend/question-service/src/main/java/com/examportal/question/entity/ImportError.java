@@ -0,0 +1,24 @@
+package com.examportal.question.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ImportError Embeddable
+ * A row rejected or flagged by a bulk question import
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportError {
+
+    @Column(name = "source_row", nullable = false)
+    private long row; // CSV line number, or 1-based position in the JSON input
+
+    @Column(nullable = false, length = 500)
+    private String message;
+}
@@ -60,4 +60,8 @@ public class Question {
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
+
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version; // Bumped on every change, used as the ETag
 }
@@ -0,0 +1,92 @@
+package com.examportal.question.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * QuestionImport Entity
+ * Progress and outcome of one bulk question import, updated after every batch
+ */
+@Entity
+@Table(name = "question_imports")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionImport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Format format;
+
+    private Long questionSetId; // Set the imported questions are attached to, if any
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ImportStatus status = ImportStatus.QUEUED;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    @Column(nullable = false)
+    private long processedBytes; // Approximate, for progress reporting
+
+    @Column(nullable = false)
+    private int rowsRead;
+
+    @Column(nullable = false)
+    private int rowsImported;
+
+    @Column(nullable = false)
+    private int rowsFailed;
+
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int rowsNearDuplicate; // Imported, but similar to questions already in the bank or earlier rows
+
+    // Only the first question-import.max-errors are kept; rowsFailed has the full count
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "question_import_errors", joinColumns = @JoinColumn(name = "import_id"))
+    @OrderColumn(name = "error_index")
+    private List<ImportError> errors = new ArrayList<>();
+
+    // Imported rows flagged as near-duplicates, capped like errors
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "question_import_near_duplicates", joinColumns = @JoinColumn(name = "import_id"))
+    @OrderColumn(name = "flag_index")
+    private List<ImportError> nearDuplicates = new ArrayList<>();
+
+    @Column(length = 500)
+    private String failureMessage; // Why a FAILED import stopped
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime finishedAt;
+
+    public enum Format {
+        CSV,
+        JSON
+    }
+
+    public enum ImportStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -3,13 +3,14 @@ package com.examportal.question.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -42,15 +43,23 @@ public class QuestionSet {
     @Column(nullable = false, length = 10)
     private String department; // CS, EC, ME, etc.
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @Positive(message = "Duration must be positive")
+    private Integer durationMinutes; // Time allowed per attempt, null for untimed sets
+
+    @ManyToMany(fetch = FetchType.LAZY) // Load with QuestionSetRepository.findWithQuestionsById
+    @OrderBy("id")
     @JoinTable(
         name = "question_set_questions",
         joinColumns = @JoinColumn(name = "question_set_id"),
         inverseJoinColumns = @JoinColumn(name = "question_id")
     )
-    private Set<Question> questions = new HashSet<>();
+    private Set<Question> questions = new LinkedHashSet<>();
 
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
+
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version; // Bumped on every change to the set, its membership or its questions
 }
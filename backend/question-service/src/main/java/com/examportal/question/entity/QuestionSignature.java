@@ -0,0 +1,35 @@
+package com.examportal.question.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * QuestionSignature Entity
+ * MinHash signature and LSH band keys of a question, for near-duplicate detection
+ * Written and read with JDBC by NearDuplicateDetector; mapped here for the schema.
+ */
+@Entity
+@Table(name = "question_signatures")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionSignature {
+
+    @Id
+    private Long questionId;
+
+    @Column(nullable = false, length = 80)
+    private byte[] signature; // Low 8 bits of each min-hash, see MinHasher
+
+    // One key per LSH band; questions sharing a key are near-duplicate candidates
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "question_signature_bands", joinColumns = @JoinColumn(name = "question_id"),
+            indexes = @Index(name = "idx_signature_bands_key", columnList = "band_key, question_id"))
+    @Column(name = "band_key", nullable = false)
+    private Set<Long> bandKeys = new HashSet<>();
+}
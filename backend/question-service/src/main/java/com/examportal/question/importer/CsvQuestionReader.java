@@ -0,0 +1,147 @@
+package com.examportal.question.importer;
+
+import com.examportal.question.entity.Question;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * CSV Question Reader
+ * Reads questions from RFC 4180 CSV with a header row naming the columns
+ * - Columns are matched to QuestionRowReader.FIELDS by name, case-insensitively, in any order;
+ *   unknown columns are ignored
+ * - Quoted fields may contain commas, doubled quotes and line breaks
+ * - Rows are numbered by the line they start on; blank lines are skipped
+ * Only one row is held in memory; a row longer than MAX_ROW_CHARS (e.g. from an unclosed quote)
+ * stops the import.
+ */
+final class CsvQuestionReader implements QuestionRowReader {
+
+    static final int MAX_ROW_CHARS = 64 * 1024;
+
+    private static final int EOF = -1;
+
+    private final Reader in;
+    private final int[] columns = new int[FIELDS.length]; // Index of each field's column
+    private final int columnCount;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private long line = 1;
+    private long rowLine;
+
+    CsvQuestionReader(InputStream in) throws IOException {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        if (!readRow()) {
+            throw new IllegalStateException("CSV input is empty");
+        }
+        columnCount = fields.size();
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < columnCount; i++) {
+            // A UTF-8 byte order mark would otherwise stick to the first column name
+            String name = fields.get(i).replace("\uFEFF", "").trim();
+            for (int f = 0; f < FIELDS.length; f++) {
+                if (FIELDS[f].equalsIgnoreCase(name)) {
+                    columns[f] = i;
+                }
+            }
+        }
+        List<String> missing = new ArrayList<>();
+        for (int f = 0; f < FIELDS.length; f++) {
+            if (columns[f] < 0) {
+                missing.add(FIELDS[f]);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("CSV header is missing columns: " + String.join(", ", missing));
+        }
+    }
+
+    @Override
+    public Question next() throws IOException {
+        do {
+            if (!readRow()) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isBlank());
+
+        if (fields.size() != columnCount) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT,
+                "Expected %d columns but found %d", columnCount, fields.size()));
+        }
+        String[] values = new String[FIELDS.length];
+        for (int f = 0; f < FIELDS.length; f++) {
+            values[f] = fields.get(columns[f]);
+        }
+        return QuestionRowReader.question(values);
+    }
+
+    @Override
+    public long row() {
+        return rowLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Read the fields of the next row, returning false at the end of the input
+     */
+    private boolean readRow() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        rowLine = line;
+        int c = in.read();
+        if (c == EOF) {
+            return false;
+        }
+        boolean quoted = false;
+        int length = 0;
+        while (true) {
+            if (quoted) {
+                if (c == '"') {
+                    c = in.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue; // Closing quote; look at the character after it unquoted
+                    }
+                    field.append('"');
+                } else if (c == EOF) {
+                    throw new IllegalStateException("Unterminated quoted field in the row on line " + rowLine);
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == EOF) {
+                fields.add(field.toString());
+                if (c == '\n') {
+                    line++;
+                }
+                return true;
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            if (++length > MAX_ROW_CHARS) {
+                throw new IllegalStateException(String.format(Locale.ROOT,
+                    "Row on line %d is longer than %d characters", rowLine, MAX_ROW_CHARS));
+            }
+            c = in.read();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.examportal.question.importer;
+
+import com.examportal.question.entity.Question;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * JSON Question Reader
+ * Reads questions from a JSON array of question objects, or from a sequence of
+ * question objects (e.g. newline-delimited JSON)
+ * - Objects use the field names of the Question entity; other fields are ignored
+ * - Rows are numbered by their 1-based position in the input
+ * The parser streams the input and only materializes one question object at a time.
+ * Syntax errors stop the import, since the parser cannot find the next row after them.
+ */
+final class JsonQuestionReader implements QuestionRowReader {
+
+    private final JsonParser parser;
+    private final boolean array;
+    private boolean started;
+    private long row;
+
+    JsonQuestionReader(InputStream in, ObjectMapper objectMapper) throws IOException {
+        this.parser = objectMapper.createParser(in);
+        JsonToken first = parser.nextToken();
+        if (first == null) {
+            throw new IllegalStateException("JSON input is empty");
+        }
+        if (first != JsonToken.START_ARRAY && first != JsonToken.START_OBJECT) {
+            throw new IllegalStateException("JSON input must be an array of questions or a sequence of question objects");
+        }
+        this.array = first == JsonToken.START_ARRAY;
+    }
+
+    @Override
+    public Question next() throws IOException {
+        // Without an array the first object is already the current token
+        JsonToken token = started || array ? parser.nextToken() : parser.currentToken();
+        started = true;
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+        row++;
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            throw new IllegalArgumentException("Expected a question object");
+        }
+        JsonNode node = parser.readValueAsTree();
+        String[] values = new String[FIELDS.length];
+        for (int f = 0; f < FIELDS.length; f++) {
+            JsonNode value = node.get(FIELDS[f]);
+            if (value != null && !value.isNull()) {
+                if (!value.isValueNode()) {
+                    throw new IllegalArgumentException("Field " + FIELDS[f] + " must be a string or number");
+                }
+                values[f] = value.asText();
+            }
+        }
+        return QuestionRowReader.question(values);
+    }
+
+    @Override
+    public long row() {
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
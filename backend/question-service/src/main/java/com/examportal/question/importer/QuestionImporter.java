@@ -0,0 +1,349 @@
+package com.examportal.question.importer;
+
+import com.examportal.question.dto.NearDuplicate;
+import com.examportal.question.duplicate.NearDuplicateDetector;
+import com.examportal.question.entity.ImportError;
+import com.examportal.question.entity.Question;
+import com.examportal.question.entity.QuestionImport;
+import com.examportal.question.repository.QuestionImportRepository;
+import com.examportal.question.repository.QuestionSetMembershipRepository;
+import com.examportal.question.repository.QuestionSetRepository;
+import com.examportal.question.search.QuestionSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Question Importer
+ * Imports question banks uploaded as CSV or JSON in the background.
+ * - The upload is spooled to a temporary file and a QUEUED QuestionImport is returned to poll
+ * - A bounded pool of workers streams rows out of the file, validates them and inserts the valid
+ *   ones with JDBC batching, since Hibernate cannot batch inserts into IDENTITY tables
+ * - Every batch commits on its own together with its question set links, the set's version bump,
+ *   its near-duplicate signatures and the import's progress, and is then added to the search
+ *   index; a failure keeps the batches committed before it
+ * - Invalid rows are counted and reported by row number without stopping the import
+ * - Rows similar to questions already in the bank, or to earlier rows, are imported and flagged
+ * Memory use is one batch of rows however large the upload is.
+ * An import cut short by a restart stays RUNNING and has to be uploaded again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QuestionImporter {
+
+    private static final String INSERT_QUESTION =
+        "INSERT INTO questions (question_text, optiona, optionb, optionc, optiond, correct_option, "
+            + "semester, department, created_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    // Column lengths of the questions table
+    private static final int MAX_TEXT_LENGTH = 1000;
+    private static final int MAX_OPTION_LENGTH = 255;
+    private static final int MAX_DEPARTMENT_LENGTH = 10;
+    private static final Set<String> OPTIONS = Set.of("A", "B", "C", "D");
+
+    private final QuestionImportRepository questionImportRepository;
+    private final QuestionSetRepository questionSetRepository;
+    private final QuestionSetMembershipRepository questionSetMembershipRepository;
+    private final QuestionSearchIndex questionSearchIndex;
+    private final NearDuplicateDetector nearDuplicateDetector;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    @Value("${question-import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${question-import.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs;
+
+    @Value("${question-import.max-errors:100}")
+    private int maxErrors;
+
+    private ExecutorService workers;
+
+    @PostConstruct
+    public void start() {
+        workers = Executors.newFixedThreadPool(maxConcurrentJobs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Spool an upload and queue its import, optionally adding the questions to a question set
+     */
+    public QuestionImport submit(QuestionImport.Format format, InputStream input, Long questionSetId)
+            throws IOException {
+        if (questionSetId != null && !questionSetRepository.existsById(questionSetId)) {
+            throw new RuntimeException("Question set not found with ID: " + questionSetId);
+        }
+        Path file = Files.createTempFile("question-import-", "." + format.name().toLowerCase(Locale.ROOT));
+        try {
+            long size = Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+            QuestionImport questionImport = new QuestionImport();
+            questionImport.setFormat(format);
+            questionImport.setQuestionSetId(questionSetId);
+            questionImport.setSizeBytes(size);
+            questionImport = questionImportRepository.save(questionImport);
+
+            Long importId = questionImport.getId();
+            workers.execute(() -> run(importId, format, questionSetId, file));
+            log.info("Queued question import {}: {} bytes of {}", importId, size, format);
+            return questionImport;
+        } catch (IOException | RuntimeException e) {
+            delete(file);
+            throw e;
+        }
+    }
+
+    private void run(Long importId, QuestionImport.Format format, Long questionSetId, Path file) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> questionImportRepository.findById(importId)
+            .ifPresent(questionImport -> questionImport.setStatus(QuestionImport.ImportStatus.RUNNING)));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             QuestionRowReader reader = open(format, Channels.newInputStream(channel))) {
+            List<Question> batch = new ArrayList<>(batchSize);
+            List<Long> batchRows = new ArrayList<>(batchSize);
+            List<ImportError> errors = new ArrayList<>();
+            int rowsRead = 0;
+            while (true) {
+                try {
+                    Question question = reader.next();
+                    if (question == null) {
+                        break;
+                    }
+                    String error = validate(question);
+                    if (error == null) {
+                        batch.add(question);
+                        batchRows.add(reader.row());
+                    } else {
+                        errors.add(new ImportError(reader.row(), error));
+                    }
+                } catch (IllegalArgumentException e) {
+                    errors.add(new ImportError(reader.row(), e.getMessage()));
+                }
+                if (++rowsRead == batchSize) {
+                    flush(importId, questionSetId, batch, batchRows, errors, rowsRead, channel.position());
+                    rowsRead = 0;
+                }
+            }
+            QuestionImport finished = flush(importId, questionSetId, batch, batchRows, errors, rowsRead,
+                channel.position());
+            finish(importId, QuestionImport.ImportStatus.COMPLETED, null);
+            log.info("Question import {} completed in {} ms: {} rows, {} imported, {} rejected, {} near-duplicates",
+                importId, (System.nanoTime() - start) / 1_000_000, finished.getRowsRead(),
+                finished.getRowsImported(), finished.getRowsFailed(), finished.getRowsNearDuplicate());
+        } catch (IOException | RuntimeException e) {
+            log.error("Question import {} failed: {}", importId, e.getMessage());
+            finish(importId, QuestionImport.ImportStatus.FAILED, e.getMessage());
+        } finally {
+            delete(file);
+        }
+    }
+
+    private QuestionRowReader open(QuestionImport.Format format, InputStream input) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvQuestionReader(input);
+            case JSON -> new JsonQuestionReader(input, objectMapper);
+        };
+    }
+
+    /**
+     * Normalize a row in place and return why it is invalid, or null if it can be inserted
+     */
+    private String validate(Question question) {
+        question.setQuestionText(trim(question.getQuestionText()));
+        question.setOptionA(trim(question.getOptionA()));
+        question.setOptionB(trim(question.getOptionB()));
+        question.setOptionC(trim(question.getOptionC()));
+        question.setOptionD(trim(question.getOptionD()));
+        question.setCorrectOption(upperCase(question.getCorrectOption()));
+        question.setDepartment(upperCase(question.getDepartment()));
+
+        Set<ConstraintViolation<Question>> violations = validator.validate(question);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+        }
+        if (!OPTIONS.contains(question.getCorrectOption())) {
+            return "Correct option must be A, B, C or D";
+        }
+        if (question.getSemester() < 1 || question.getSemester() > 8) {
+            return "Semester must be between 1 and 8";
+        }
+        if (question.getQuestionText().length() > MAX_TEXT_LENGTH) {
+            return "Question text is longer than " + MAX_TEXT_LENGTH + " characters";
+        }
+        for (String option : new String[] {
+                question.getOptionA(), question.getOptionB(), question.getOptionC(), question.getOptionD()}) {
+            if (option.length() > MAX_OPTION_LENGTH) {
+                return "Options must be at most " + MAX_OPTION_LENGTH + " characters";
+            }
+        }
+        if (question.getDepartment().length() > MAX_DEPARTMENT_LENGTH) {
+            return "Department is longer than " + MAX_DEPARTMENT_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    /**
+     * Insert a batch, link it to the question set, sign it and record the progress, in one transaction
+     */
+    private QuestionImport flush(Long importId, Long questionSetId, List<Question> batch, List<Long> batchRows,
+                                 List<ImportError> errors, int rowsRead, long processedBytes) {
+        QuestionImport questionImport = transactionTemplate.execute(status -> {
+            List<ImportError> flagged = new ArrayList<>();
+            if (!batch.isEmpty()) {
+                long[] ids = insertQuestions(batch);
+                for (int i = 0; i < ids.length; i++) {
+                    batch.get(i).setId(ids[i]);
+                    batch.get(i).setVersion(0L);
+                }
+                if (questionSetId != null) {
+                    questionSetMembershipRepository.lockVersion(questionSetId)
+                        .orElseThrow(() -> new IllegalStateException("Question set " + questionSetId + " was deleted"));
+                    questionSetMembershipRepository.insert(questionSetId, Arrays.stream(ids).boxed().toList());
+                    // Let snapshots and caches of the set see the new questions
+                    questionSetRepository.incrementVersion(questionSetId);
+                }
+                Map<Long, List<NearDuplicate>> nearDuplicates = nearDuplicateDetector.index(batch);
+                for (int i = 0; i < ids.length; i++) {
+                    List<NearDuplicate> matches = nearDuplicates.get(ids[i]);
+                    if (matches != null) {
+                        flagged.add(new ImportError(batchRows.get(i), nearDuplicateMessage(ids[i], matches)));
+                    }
+                }
+            }
+            QuestionImport current = questionImportRepository.findWithErrorsById(importId)
+                .orElseThrow(() -> new IllegalStateException("Question import " + importId + " was deleted"));
+            current.setRowsRead(current.getRowsRead() + rowsRead);
+            current.setRowsImported(current.getRowsImported() + batch.size());
+            current.setRowsFailed(current.getRowsFailed() + errors.size());
+            current.setRowsNearDuplicate(current.getRowsNearDuplicate() + flagged.size());
+            current.setProcessedBytes(processedBytes);
+            int room = Math.max(0, maxErrors - current.getErrors().size());
+            current.getErrors().addAll(errors.subList(0, Math.min(room, errors.size())));
+            int flagRoom = Math.max(0, maxErrors - current.getNearDuplicates().size());
+            current.getNearDuplicates().addAll(flagged.subList(0, Math.min(flagRoom, flagged.size())));
+            return current;
+        });
+        questionSearchIndex.index(batch);
+        batch.clear();
+        batchRows.clear();
+        errors.clear();
+        return questionImport;
+    }
+
+    /**
+     * Insert questions with one batched statement, returning their generated IDs in order
+     */
+    private long[] insertQuestions(List<Question> batch) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.execute((ConnectionCallback<long[]>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_QUESTION, Statement.RETURN_GENERATED_KEYS)) {
+                for (Question question : batch) {
+                    ps.setString(1, question.getQuestionText());
+                    ps.setString(2, question.getOptionA());
+                    ps.setString(3, question.getOptionB());
+                    ps.setString(4, question.getOptionC());
+                    ps.setString(5, question.getOptionD());
+                    ps.setString(6, question.getCorrectOption());
+                    ps.setInt(7, question.getSemester());
+                    ps.setString(8, question.getDepartment());
+                    ps.setTimestamp(9, now);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                long[] ids = new long[batch.size()];
+                int count = 0;
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (count < ids.length && keys.next()) {
+                        ids[count++] = keys.getLong(1);
+                    }
+                }
+                if (count != ids.length) {
+                    throw new IllegalStateException("Expected " + ids.length + " generated question IDs but got " + count);
+                }
+                return ids;
+            }
+        });
+    }
+
+    /**
+     * e.g. "Imported as question 812, similar to 17 (0.93), 240 (0.71)"
+     */
+    private static String nearDuplicateMessage(long questionId, List<NearDuplicate> matches) {
+        String message = "Imported as question " + questionId + ", similar to " + matches.stream()
+            .map(match -> match.getQuestionId() + " (" + match.getSimilarity() + ")")
+            .collect(Collectors.joining(", "));
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+    private void finish(Long importId, QuestionImport.ImportStatus status, String failureMessage) {
+        transactionTemplate.executeWithoutResult(tx -> questionImportRepository.findById(importId)
+            .ifPresent(questionImport -> {
+                questionImport.setStatus(status);
+                questionImport.setFailureMessage(failureMessage == null || failureMessage.length() <= 500
+                    ? failureMessage : failureMessage.substring(0, 500));
+                questionImport.setFinishedAt(LocalDateTime.now());
+            }));
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    private static String upperCase(String value) {
+        return value == null ? null : value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete question import file {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.examportal.question.importer;
+
+import com.examportal.question.entity.Question;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Question Row Reader
+ * Streams the questions of an uploaded question bank one row at a time
+ * - A malformed row throws IllegalArgumentException; the reader is then positioned
+ *   at the next row and reading can go on
+ * - Anything else (IOException, IllegalStateException) means the input cannot be read further
+ */
+interface QuestionRowReader extends Closeable {
+
+    /**
+     * Field names of a question row, as in the Question entity
+     */
+    String[] FIELDS = {
+        "questionText", "optionA", "optionB", "optionC", "optionD", "correctOption", "semester", "department"
+    };
+
+    /**
+     * Read the next row, or return null at the end of the input
+     */
+    Question next() throws IOException;
+
+    /**
+     * Row number of the row last read, for error reports
+     */
+    long row();
+
+    /**
+     * Build an unvalidated question from its field values, in FIELDS order
+     */
+    static Question question(String[] values) {
+        Question question = new Question();
+        question.setQuestionText(values[0]);
+        question.setOptionA(values[1]);
+        question.setOptionB(values[2]);
+        question.setOptionC(values[3]);
+        question.setOptionD(values[4]);
+        question.setCorrectOption(values[5]);
+        question.setSemester(semester(values[6]));
+        question.setDepartment(values[7]);
+        return question;
+    }
+
+    private static Integer semester(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Semester must be a whole number: '" + value + "'");
+        }
+    }
+}
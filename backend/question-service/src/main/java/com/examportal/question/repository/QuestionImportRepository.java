@@ -0,0 +1,22 @@
+package com.examportal.question.repository;
+
+import com.examportal.question.entity.QuestionImport;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * QuestionImport Repository
+ * Data access layer for QuestionImport entity
+ */
+@Repository
+public interface QuestionImportRepository extends JpaRepository<QuestionImport, Long> {
+
+    /**
+     * Find an import together with its row errors
+     */
+    @EntityGraph(attributePaths = "errors")
+    Optional<QuestionImport> findWithErrorsById(Long id);
+}
@@ -2,9 +2,13 @@ package com.examportal.question.repository;
 
 import com.examportal.question.entity.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Question Repository
@@ -27,4 +31,16 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
      * Find questions by semester and department
      */
     List<Question> findBySemesterAndDepartment(Integer semester, String department);
+    
+    /**
+     * Get the version of a question without loading it
+     */
+    @Query("SELECT q.version FROM Question q WHERE q.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+    
+    /**
+     * Which of the given question IDs exist
+     */
+    @Query("SELECT q.id FROM Question q WHERE q.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
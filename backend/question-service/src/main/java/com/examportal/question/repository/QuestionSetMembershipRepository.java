@@ -0,0 +1,68 @@
+package com.examportal.question.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * QuestionSet Membership Repository
+ * Reads and writes question_set_questions directly, without loading QuestionSet.questions
+ * - Membership changes should lock the set with {@link #lockVersion} first, so concurrent
+ *   changes to one set are applied one after another
+ * - Callers bump the set's version after changing its membership
+ */
+@Repository
+@RequiredArgsConstructor
+public class QuestionSetMembershipRepository {
+
+    private static final String LOCK_VERSION = "SELECT version FROM question_sets WHERE id = ? FOR UPDATE";
+    private static final String SELECT_QUESTION_IDS =
+        "SELECT question_id FROM question_set_questions WHERE question_set_id = ?";
+    private static final String INSERT_LINK =
+        "INSERT INTO question_set_questions (question_set_id, question_id) VALUES (?, ?)";
+    private static final String DELETE_LINK =
+        "DELETE FROM question_set_questions WHERE question_set_id = ? AND question_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Lock a question set row until the end of the transaction and return its version
+     */
+    public Optional<Long> lockVersion(long questionSetId) {
+        return jdbcTemplate.queryForList(LOCK_VERSION, Long.class, questionSetId).stream().findFirst();
+    }
+
+    /**
+     * IDs of the questions in a set
+     */
+    public List<Long> findQuestionIds(long questionSetId) {
+        return jdbcTemplate.queryForList(SELECT_QUESTION_IDS, Long.class, questionSetId);
+    }
+
+    /**
+     * Add questions that are not in the set yet
+     */
+    public void insert(long questionSetId, Collection<Long> questionIds) {
+        jdbcTemplate.batchUpdate(INSERT_LINK, links(questionSetId, questionIds));
+    }
+
+    /**
+     * Remove questions from the set
+     */
+    public void delete(long questionSetId, Collection<Long> questionIds) {
+        jdbcTemplate.batchUpdate(DELETE_LINK, links(questionSetId, questionIds));
+    }
+
+    private static List<Object[]> links(long questionSetId, Collection<Long> questionIds) {
+        List<Object[]> links = new ArrayList<>(questionIds.size());
+        for (Long questionId : questionIds) {
+            links.add(new Object[] {questionSetId, questionId});
+        }
+        return links;
+    }
+}
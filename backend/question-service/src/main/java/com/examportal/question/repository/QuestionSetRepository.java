@@ -1,10 +1,17 @@
 package com.examportal.question.repository;
 
+import com.examportal.question.dto.QuestionSetSummary;
+import com.examportal.question.dto.StudentQuestion;
 import com.examportal.question.entity.QuestionSet;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * QuestionSet Repository
@@ -14,17 +21,58 @@ import java.util.List;
 public interface QuestionSetRepository extends JpaRepository<QuestionSet, Long> {
     
     /**
-     * Find question sets by semester
+     * Find a question set together with its questions
      */
-    List<QuestionSet> findBySemester(Integer semester);
+    @EntityGraph(attributePaths = "questions")
+    Optional<QuestionSet> findWithQuestionsById(Long id);
     
     /**
-     * Find question sets by department
+     * Summaries of question sets matching the optional filters, without their questions
      */
-    List<QuestionSet> findByDepartment(String department);
+    @Query(SUMMARY_SELECT
+            + "WHERE (:semester IS NULL OR s.semester = :semester) "
+            + "AND (:department IS NULL OR s.department = :department) "
+            + "ORDER BY s.id")
+    List<QuestionSetSummary> findSummaries(@Param("semester") Integer semester,
+                                           @Param("department") String department);
     
     /**
-     * Find question sets by semester and department
+     * Summary of one question set
      */
-    List<QuestionSet> findBySemesterAndDepartment(Integer semester, String department);
+    @Query(SUMMARY_SELECT + "WHERE s.id = :id")
+    Optional<QuestionSetSummary> findSummaryById(@Param("id") Long id);
+    
+    /**
+     * Student view of the questions of a set, ordered by ID, without loading entities
+     */
+    @Query("SELECT new com.examportal.question.dto.StudentQuestion("
+            + "q.id, q.questionText, q.optionA, q.optionB, q.optionC, q.optionD) "
+            + "FROM QuestionSet s JOIN s.questions q WHERE s.id = :id ORDER BY q.id")
+    List<StudentQuestion> findStudentQuestions(@Param("id") Long id);
+    
+    /**
+     * Get the version of a question set without loading it
+     */
+    @Query("SELECT s.version FROM QuestionSet s WHERE s.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+    
+    /**
+     * Bump the version of a question set whose membership changed outside of JPA
+     */
+    @Modifying
+    @Query("UPDATE QuestionSet s SET s.version = s.version + 1 WHERE s.id = :id")
+    int incrementVersion(@Param("id") Long id);
+    
+    /**
+     * Bump the version of every question set containing a question
+     */
+    @Modifying
+    @Query(value = "UPDATE question_sets SET version = version + 1 WHERE id IN "
+            + "(SELECT question_set_id FROM question_set_questions WHERE question_id = :questionId)",
+            nativeQuery = true)
+    int incrementVersionsContaining(@Param("questionId") Long questionId);
+    
+    String SUMMARY_SELECT = "SELECT new com.examportal.question.dto.QuestionSetSummary("
+            + "s.id, s.name, s.description, s.semester, s.department, s.durationMinutes, "
+            + "SIZE(s.questions), s.version) FROM QuestionSet s ";
 }
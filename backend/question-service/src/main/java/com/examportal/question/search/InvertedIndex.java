@@ -0,0 +1,569 @@
+package com.examportal.question.search;
+
+import com.examportal.question.entity.Question;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Inverted Index
+ * Maps the terms of question text and options to the questions containing them, ranked with BM25.
+ * - Every indexed version of a question gets a new slot, and postings list slots in ascending
+ *   order, so indexing a question only appends
+ * - Updating or removing a question marks its old slot dead; queries skip dead slots and
+ *   {@link #compact()} drops them
+ * - Terms are lower-cased runs of letters and digits, without common English stop words;
+ *   a query matches questions containing all of its terms, and a word ending in * matches
+ *   any term starting with it
+ * Question IDs must fit in an int. Not thread-safe; QuestionSearchIndex guards it with a lock.
+ */
+final class InvertedIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_FREQUENCY = 255;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Too common to tell questions apart; their postings would be the longest lists in the index
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "if", "in", "into", "is", "it",
+        "no", "not", "of", "on", "or", "such", "that", "the", "their", "then", "there", "these", "they",
+        "this", "to", "was", "what", "which", "will", "with");
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private int[] slotById = new int[INITIAL_CAPACITY]; // Slot + 1 by question ID, 0 if not indexed
+
+    // Per slot
+    private int[] questionIds = new int[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private byte[] semesters = new byte[INITIAL_CAPACITY];
+    private String[] departments = new String[INITIAL_CAPACITY];
+    private final BitSet live = new BitSet();
+
+    private int slotCount;
+    private int liveCount;
+    private long liveLength;
+
+    /**
+     * Index a question, replacing an older version of it. Returns false if this or a newer
+     * version is already indexed.
+     */
+    boolean upsert(Question question) {
+        int id = Math.toIntExact(question.getId());
+        long version = question.getVersion() == null ? 0 : question.getVersion();
+        int current = slotOf(id);
+        if (current >= 0) {
+            if (versions[current] >= version) {
+                return false;
+            }
+            kill(current);
+        }
+
+        Map<String, int[]> frequencies = new HashMap<>();
+        int[] length = new int[1];
+        Consumer<String> counter = term -> {
+            if (!STOP_WORDS.contains(term)) {
+                frequencies.computeIfAbsent(term, t -> new int[1])[0]++;
+                length[0]++;
+            }
+        };
+        tokenize(question.getQuestionText(), counter);
+        tokenize(question.getOptionA(), counter);
+        tokenize(question.getOptionB(), counter);
+        tokenize(question.getOptionC(), counter);
+        tokenize(question.getOptionD(), counter);
+
+        int slot = slotCount++;
+        ensureSlotCapacity(slotCount);
+        for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+            terms.computeIfAbsent(entry.getKey(), term -> new Postings())
+                .add(slot, Math.min(entry.getValue()[0], MAX_FREQUENCY));
+        }
+        questionIds[slot] = id;
+        versions[slot] = version;
+        lengths[slot] = length[0];
+        semesters[slot] = question.getSemester() == null ? 0 : question.getSemester().byteValue();
+        departments[slot] = question.getDepartment() == null ? null : question.getDepartment().intern();
+        live.set(slot);
+        liveCount++;
+        liveLength += length[0];
+
+        ensureIdCapacity(id);
+        slotById[id] = slot + 1;
+        return true;
+    }
+
+    /**
+     * Remove a question, returning whether it was indexed
+     */
+    boolean remove(long questionId) {
+        int id = Math.toIntExact(questionId);
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return false;
+        }
+        kill(slot);
+        slotById[id] = 0;
+        return true;
+    }
+
+    /**
+     * Remove questions indexed into a slot below the given one whose IDs are not in the set
+     */
+    int removeMissing(BitSet questionIds, int belowSlot) {
+        int removed = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0 && slot < belowSlot; slot = live.nextSetBit(slot + 1)) {
+            int id = this.questionIds[slot];
+            if (!questionIds.get(id)) {
+                kill(slot);
+                slotById[id] = 0;
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Indexed version of a question, or -1 if it is not indexed
+     */
+    long version(long questionId) {
+        int slot = slotOf(Math.toIntExact(questionId));
+        return slot < 0 ? -1 : versions[slot];
+    }
+
+    int documentCount() {
+        return liveCount;
+    }
+
+    int termCount() {
+        return terms.size();
+    }
+
+    int slotCount() {
+        return slotCount;
+    }
+
+    int deadSlotCount() {
+        return slotCount - liveCount;
+    }
+
+    /**
+     * Drop dead slots from the postings and renumber the live ones
+     */
+    void compact() {
+        int[] remap = new int[slotCount];
+        int next = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (live.get(slot)) {
+                int target = next++;
+                remap[slot] = target;
+                questionIds[target] = questionIds[slot];
+                versions[target] = versions[slot];
+                lengths[target] = lengths[slot];
+                semesters[target] = semesters[slot];
+                departments[target] = departments[slot];
+            } else {
+                remap[slot] = -1;
+            }
+        }
+        Arrays.fill(departments, next, slotCount, null);
+
+        Iterator<Postings> postings = terms.values().iterator();
+        while (postings.hasNext()) {
+            Postings list = postings.next();
+            list.retain(remap);
+            if (list.size == 0) {
+                postings.remove();
+            }
+        }
+
+        live.clear();
+        live.set(0, next);
+        slotCount = next;
+        Arrays.fill(slotById, 0);
+        for (int slot = 0; slot < slotCount; slot++) {
+            slotById[questionIds[slot]] = slot + 1;
+        }
+    }
+
+    /**
+     * Rank the questions matching a query and return one page of them, best first
+     * Ties are broken by question ID, so pages are stable while the index does not change.
+     */
+    SearchHits search(String query, Integer semester, String department, int offset, int limit, int maxPrefixTerms) {
+        List<Clause> clauses = new ArrayList<>();
+        for (Term term : parse(query)) {
+            Clause clause = resolve(term, maxPrefixTerms);
+            if (clause == null) {
+                return SearchHits.EMPTY; // Every term has to match
+            }
+            clauses.add(clause);
+        }
+        if (clauses.isEmpty()) {
+            return SearchHits.EMPTY;
+        }
+        // Start from the rarest term so later terms only probe a few candidates
+        clauses.sort(Comparator.comparingLong(Clause::cost));
+
+        double averageLength = liveCount == 0 ? 1 : (double) liveLength / liveCount;
+        Matches matches = first(clauses.get(0), averageLength, semester, department);
+        for (int i = 1; i < clauses.size() && matches.count > 0; i++) {
+            matches = intersect(matches, clauses.get(i), averageLength);
+        }
+        return top(matches, offset, limit);
+    }
+
+    /**
+     * Split text into lower-cased runs of letters and digits
+     */
+    static void tokenize(String text, Consumer<String> consumer) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else if (!term.isEmpty()) {
+                consumer.accept(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (!term.isEmpty()) {
+            consumer.accept(term.toString());
+        }
+    }
+
+    private static Set<Term> parse(String query) {
+        Set<Term> parsed = new LinkedHashSet<>();
+        for (String word : query.trim().split("\\s+")) {
+            boolean prefix = word.endsWith("*");
+            List<String> tokens = new ArrayList<>();
+            tokenize(word, tokens::add);
+            for (int i = 0; i < tokens.size(); i++) {
+                boolean last = prefix && i == tokens.size() - 1;
+                // A prefix may start a longer word, e.g. "the*" for "theorem"
+                if (last || !STOP_WORDS.contains(tokens.get(i))) {
+                    parsed.add(new Term(tokens.get(i), last));
+                }
+            }
+        }
+        return parsed;
+    }
+
+    private Clause resolve(Term term, int maxPrefixTerms) {
+        if (!term.prefix()) {
+            Postings postings = terms.get(term.text());
+            return postings == null ? null : new Clause(new Postings[] {postings}, postings.size);
+        }
+        List<Postings> expansions = new ArrayList<>(
+            terms.subMap(term.text(), true, term.text() + Character.MAX_VALUE, false).values());
+        if (expansions.isEmpty()) {
+            return null;
+        }
+        if (expansions.size() > maxPrefixTerms) {
+            // Keep the most common completions; rare ones add little to the ranking
+            expansions.sort(Comparator.comparingInt((Postings postings) -> postings.size).reversed());
+            expansions = expansions.subList(0, maxPrefixTerms);
+        }
+        long cost = 0;
+        for (Postings postings : expansions) {
+            cost += postings.size;
+        }
+        return new Clause(expansions.toArray(new Postings[0]), cost);
+    }
+
+    private Matches first(Clause clause, double averageLength, Integer semester, String department) {
+        if (clause.postings().length == 1) {
+            Postings postings = clause.postings()[0];
+            double idf = idf(postings);
+            Matches matches = new Matches(postings.size);
+            for (int i = 0; i < postings.size; i++) {
+                int slot = postings.slots[i];
+                if (accepts(slot, semester, department)) {
+                    matches.add(slot, idf * tf(postings.frequency(i), lengths[slot], averageLength));
+                }
+            }
+            return matches;
+        }
+        float[] scores = dense(clause, averageLength);
+        Matches matches = new Matches((int) Math.min(clause.cost(), slotCount));
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (scores[slot] > 0 && accepts(slot, semester, department)) {
+                matches.add(slot, scores[slot]);
+            }
+        }
+        return matches;
+    }
+
+    private Matches intersect(Matches candidates, Clause clause, double averageLength) {
+        Matches matches = new Matches(candidates.count);
+        Postings[] lists = clause.postings();
+        if (lists.length > 1 && (long) candidates.count * lists.length * 16 > clause.cost()) {
+            // Many candidates against a wide prefix: scoring the prefix once is cheaper than probing
+            float[] scores = dense(clause, averageLength);
+            for (int i = 0; i < candidates.count; i++) {
+                int slot = candidates.slots[i];
+                if (scores[slot] > 0) {
+                    matches.add(slot, candidates.scores[i] + scores[slot]);
+                }
+            }
+            return matches;
+        }
+
+        double[] idfs = new double[lists.length];
+        int[] cursors = new int[lists.length];
+        for (int l = 0; l < lists.length; l++) {
+            idfs[l] = idf(lists[l]);
+        }
+        for (int i = 0; i < candidates.count; i++) {
+            int slot = candidates.slots[i];
+            double best = 0;
+            for (int l = 0; l < lists.length; l++) {
+                Postings postings = lists[l];
+                // Candidates ascend, so each list is searched onwards from where the last probe ended
+                int found = gallop(postings.slots, cursors[l], postings.size, slot);
+                cursors[l] = found;
+                if (found < postings.size && postings.slots[found] == slot) {
+                    best = Math.max(best, idfs[l] * tf(postings.frequency(found), lengths[slot], averageLength));
+                }
+            }
+            if (best > 0) {
+                matches.add(slot, candidates.scores[i] + best);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Index of the first element at or after from that is not below key, probing 1, 2, 4... ahead
+     * before a binary search, so a run of probes costs about as much as merging the two lists
+     */
+    private static int gallop(int[] sorted, int from, int to, int key) {
+        if (from >= to || sorted[from] >= key) {
+            return from;
+        }
+        int low = from; // sorted[low] < key
+        int step = 1;
+        while (low + step < to && sorted[low + step] < key) {
+            low += step;
+            step <<= 1;
+        }
+        int found = Arrays.binarySearch(sorted, low + 1, Math.min(low + step, to), key);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    /**
+     * Score of every slot for a prefix clause: the best of its matching completions
+     */
+    private float[] dense(Clause clause, double averageLength) {
+        float[] scores = new float[slotCount];
+        for (Postings postings : clause.postings()) {
+            double idf = idf(postings);
+            for (int i = 0; i < postings.size; i++) {
+                int slot = postings.slots[i];
+                float score = (float) (idf * tf(postings.frequency(i), lengths[slot], averageLength));
+                if (score > scores[slot]) {
+                    scores[slot] = score;
+                }
+            }
+        }
+        return scores;
+    }
+
+    private SearchHits top(Matches matches, int offset, int limit) {
+        int k = Math.min(offset + limit, matches.count);
+        if (k <= offset) {
+            return new SearchHits(matches.count, new long[0], new double[0]);
+        }
+        // Min-heap of the best k matches, with the worst at the root
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < matches.count; i++) {
+            if (size < k) {
+                heap[size] = i;
+                siftUp(heap, size++, matches);
+            } else if (better(i, heap[0], matches)) {
+                heap[0] = i;
+                siftDown(heap, size, matches);
+            }
+        }
+        int[] ranked = new int[k];
+        for (int i = k - 1; i >= 0; i--) {
+            ranked[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size, matches);
+        }
+
+        long[] ids = new long[k - offset];
+        double[] scores = new double[k - offset];
+        for (int i = offset; i < k; i++) {
+            ids[i - offset] = questionIds[matches.slots[ranked[i]]];
+            scores[i - offset] = matches.scores[ranked[i]];
+        }
+        return new SearchHits(matches.count, ids, scores);
+    }
+
+    private boolean better(int a, int b, Matches matches) {
+        double scoreA = matches.scores[a];
+        double scoreB = matches.scores[b];
+        if (scoreA != scoreB) {
+            return scoreA > scoreB;
+        }
+        return questionIds[matches.slots[a]] < questionIds[matches.slots[b]];
+    }
+
+    private void siftUp(int[] heap, int index, Matches matches) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!better(heap[parent], heap[index], matches)) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size, Matches matches) {
+        int index = 0;
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && better(heap[worst], heap[left], matches)) {
+                worst = left;
+            }
+            if (right < size && better(heap[worst], heap[right], matches)) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(heap, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+
+    private boolean accepts(int slot, Integer semester, String department) {
+        return live.get(slot)
+            && (semester == null || semesters[slot] == semester)
+            && (department == null || department.equals(departments[slot]));
+    }
+
+    private double idf(Postings postings) {
+        // Dead slots still count until compaction; cap so the IDF stays positive
+        int documentFrequency = Math.min(postings.size, liveCount);
+        return Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private static double tf(int frequency, int length, double averageLength) {
+        return frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+    }
+
+    private int slotOf(int questionId) {
+        return questionId < slotById.length ? slotById[questionId] - 1 : -1;
+    }
+
+    private void kill(int slot) {
+        live.clear(slot);
+        liveCount--;
+        liveLength -= lengths[slot];
+    }
+
+    private void ensureSlotCapacity(int capacity) {
+        if (capacity > questionIds.length) {
+            int grown = Math.max(capacity, questionIds.length * 2);
+            questionIds = Arrays.copyOf(questionIds, grown);
+            versions = Arrays.copyOf(versions, grown);
+            lengths = Arrays.copyOf(lengths, grown);
+            semesters = Arrays.copyOf(semesters, grown);
+            departments = Arrays.copyOf(departments, grown);
+        }
+    }
+
+    private void ensureIdCapacity(int id) {
+        if (id >= slotById.length) {
+            slotById = Arrays.copyOf(slotById, Math.max(id + 1, slotById.length * 2));
+        }
+    }
+
+    /**
+     * Slots containing a term, ascending, with the term's frequency in each
+     */
+    private static final class Postings {
+        private int[] slots = new int[1];
+        private byte[] frequencies = new byte[1];
+        private int size;
+
+        void add(int slot, int frequency) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size] = (byte) frequency;
+            size++;
+        }
+
+        int frequency(int index) {
+            return frequencies[index] & 0xFF;
+        }
+
+        void retain(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int slot = remap[slots[i]];
+                if (slot >= 0) {
+                    slots[kept] = slot;
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+
+    /**
+     * Matching slots, ascending, with their scores so far
+     */
+    private static final class Matches {
+        private final int[] slots;
+        private final double[] scores;
+        private int count;
+
+        Matches(int capacity) {
+            slots = new int[capacity];
+            scores = new double[capacity];
+        }
+
+        void add(int slot, double score) {
+            slots[count] = slot;
+            scores[count] = score;
+            count++;
+        }
+    }
+
+    private record Term(String text, boolean prefix) {
+    }
+
+    private record Clause(Postings[] postings, long cost) {
+    }
+}
@@ -0,0 +1,198 @@
+package com.examportal.question.search;
+
+import com.examportal.question.entity.Question;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Question Search Index
+ * Full-text search over question text and options, kept in memory by every instance.
+ * - Questions created, updated or deleted through this instance are applied once their
+ *   transaction commits
+ * - A periodic refresh compares every question's version with the indexed one, so the first
+ *   refresh builds the index and later ones pick up changes made through other instances
+ * - Queries run under a read lock and changes under a write lock; dead slots left by updates
+ *   are compacted away during refreshes
+ * Until the first refresh finishes, searches only see questions indexed so far.
+ */
+@Component
+@Slf4j
+public class QuestionSearchIndex {
+
+    private static final String SELECT_VERSIONS = "SELECT id, version FROM questions";
+    private static final String SELECT_QUESTIONS =
+        "SELECT id, version, question_text, optiona, optionb, optionc, optiond, semester, department "
+            + "FROM questions WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final InvertedIndex index = new InvertedIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${question-search.fetch-batch-size:1000}")
+    private int fetchBatchSize;
+
+    @Value("${question-search.max-prefix-terms:64}")
+    private int maxPrefixTerms;
+
+    @Value("${question-search.max-results:1000}")
+    private int maxResults;
+
+    public QuestionSearchIndex(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        Gauge.builder("question_search.documents", this, search -> search.read(search.index::documentCount))
+                .register(meterRegistry);
+        Gauge.builder("question_search.terms", this, search -> search.read(search.index::termCount))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rank the questions containing every term of a query, optionally filtered by semester and department
+     * A word ending in * matches any term starting with it, e.g. "sort*" matches "sorting".
+     */
+    public SearchHits search(String query, Integer semester, String department, int offset, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query is required");
+        }
+        if (offset < 0 || limit < 1 || offset + limit > maxResults) {
+            throw new IllegalArgumentException("Only the first " + maxResults + " results can be paged through");
+        }
+        String normalizedDepartment = department == null ? null : department.trim().toUpperCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            return index.search(query, semester, normalizedDepartment, offset, limit, maxPrefixTerms);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Index a question once the current transaction commits
+     */
+    public void indexAfterCommit(Question question) {
+        afterCommit(() -> index(List.of(question)));
+    }
+
+    /**
+     * Remove a question from the index once the current transaction commits
+     */
+    public void removeAfterCommit(Long questionId) {
+        afterCommit(() -> write(() -> index.remove(questionId)));
+    }
+
+    /**
+     * Index committed questions
+     */
+    public void index(Collection<Question> questions) {
+        write(() -> questions.forEach(index::upsert));
+    }
+
+    /**
+     * Bring the index in line with the questions table
+     */
+    @Scheduled(fixedDelayString = "${question-search.refresh-interval-ms:60000}")
+    public void refresh() {
+        long start = System.nanoTime();
+        int firstNewSlot = read(index::slotCount);
+        BitSet existing = new BitSet();
+        List<Long> stale = new ArrayList<>();
+        jdbcTemplate.query(SELECT_VERSIONS, rs -> {
+            long id = rs.getLong(1);
+            long version = rs.getLong(2);
+            existing.set(Math.toIntExact(id));
+            if (read(() -> index.version(id)) != version) {
+                stale.add(id);
+            }
+        });
+
+        // Questions indexed during the scan may be missing from it, so only older slots are checked
+        int removed = writeAndGet(() -> index.removeMissing(existing, firstNewSlot));
+        for (int from = 0; from < stale.size(); from += fetchBatchSize) {
+            List<Long> ids = stale.subList(from, Math.min(from + fetchBatchSize, stale.size()));
+            index(namedParameterJdbcTemplate.query(SELECT_QUESTIONS, Map.of("ids", ids), (rs, rowNum) -> {
+                Question question = new Question();
+                question.setId(rs.getLong("id"));
+                question.setVersion(rs.getLong("version"));
+                question.setQuestionText(rs.getString("question_text"));
+                question.setOptionA(rs.getString("optiona"));
+                question.setOptionB(rs.getString("optionb"));
+                question.setOptionC(rs.getString("optionc"));
+                question.setOptionD(rs.getString("optiond"));
+                question.setSemester(rs.getInt("semester"));
+                question.setDepartment(rs.getString("department"));
+                return question;
+            }));
+        }
+
+        boolean compacted = writeAndGet(() -> {
+            if (index.deadSlotCount() <= index.documentCount() / 4) {
+                return false;
+            }
+            index.compact();
+            return true;
+        });
+        if (!stale.isEmpty() || removed > 0 || compacted) {
+            log.info("Refreshed question search index in {} ms: {} questions indexed, {} removed{}, {} documents",
+                    (System.nanoTime() - start) / 1_000_000, stale.size(), removed,
+                    compacted ? ", compacted" : "", read(index::documentCount));
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable writer) {
+        writeAndGet(() -> {
+            writer.run();
+            return null;
+        });
+    }
+
+    private <T> T writeAndGet(Supplier<T> writer) {
+        lock.writeLock().lock();
+        try {
+            return writer.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.examportal.question.search;
+
+/**
+ * Search Hits
+ * One page of ranked question IDs with their scores, and how many questions matched in total
+ */
+public record SearchHits(int total, long[] questionIds, double[] scores) {
+
+    static final SearchHits EMPTY = new SearchHits(0, new long[0], new double[0]);
+}
@@ -1,7 +1,13 @@
 package com.examportal.question.service;
 
+import com.examportal.question.dto.DuplicateCluster;
+import com.examportal.question.dto.NearDuplicate;
+import com.examportal.question.dto.QuestionSearchPage;
 import com.examportal.question.entity.Question;
+import com.examportal.question.entity.QuestionImport;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +27,11 @@ public interface QuestionService {
      */
     Optional<Question> getQuestionById(Long id);
     
+    /**
+     * Get the current version of a question
+     */
+    Optional<Long> getQuestionVersion(Long id);
+    
     /**
      * Get all questions
      */
@@ -41,6 +52,26 @@ public interface QuestionService {
      */
     List<Question> getQuestionsBySemesterAndDepartment(Integer semester, String department);
     
+    /**
+     * Search question text and options, optionally filtered by semester and department
+     */
+    QuestionSearchPage searchQuestions(String query, Integer semester, String department, int page, int size);
+    
+    /**
+     * Find near-duplicates of a stored question, optionally with a similarity threshold other than the default
+     */
+    List<NearDuplicate> findNearDuplicates(Long id, Double threshold);
+    
+    /**
+     * Find near-duplicates of a question that may not be stored yet
+     */
+    List<NearDuplicate> findNearDuplicates(Question question, Double threshold);
+    
+    /**
+     * Group the whole question bank into clusters of near-duplicates
+     */
+    List<DuplicateCluster> clusterNearDuplicates(Double threshold);
+    
     /**
      * Update question
      */
@@ -50,4 +81,15 @@ public interface QuestionService {
      * Delete question
      */
     void deleteQuestion(Long id);
+    
+    /**
+     * Start a bulk import of questions, optionally adding them to a question set
+     */
+    QuestionImport importQuestions(QuestionImport.Format format, InputStream input, Long questionSetId)
+            throws IOException;
+    
+    /**
+     * Get a bulk import with its progress and rejected rows
+     */
+    Optional<QuestionImport> getImport(Long id);
 }
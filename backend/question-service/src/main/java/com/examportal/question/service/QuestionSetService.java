@@ -1,5 +1,8 @@
 package com.examportal.question.service;
 
+import com.examportal.question.cache.QuestionSetSnapshot;
+import com.examportal.question.cache.QuestionSetSnapshotStore;
+import com.examportal.question.dto.QuestionSetSummary;
 import com.examportal.question.entity.QuestionSet;
 
 import java.util.List;
@@ -17,29 +20,24 @@ public interface QuestionSetService {
     QuestionSet createQuestionSet(QuestionSet questionSet);
     
     /**
-     * Get question set by ID
+     * Get question set by ID, with its questions
      */
     Optional<QuestionSet> getQuestionSetById(Long id);
     
     /**
-     * Get all question sets
+     * Get the serialized snapshot of a question set at its current version
      */
-    List<QuestionSet> getAllQuestionSets();
+    Optional<QuestionSetSnapshot> getQuestionSetSnapshot(Long id, QuestionSetSnapshotStore.View view);
     
     /**
-     * Get question sets by semester
+     * Get the current version of a question set
      */
-    List<QuestionSet> getQuestionSetsBySemester(Integer semester);
+    Optional<Long> getQuestionSetVersion(Long id);
     
     /**
-     * Get question sets by department
+     * Get summaries of question sets, optionally filtered by semester and department
      */
-    List<QuestionSet> getQuestionSetsByDepartment(String department);
-    
-    /**
-     * Get question sets by semester and department
-     */
-    List<QuestionSet> getQuestionSetsBySemesterAndDepartment(Integer semester, String department);
+    List<QuestionSetSummary> getQuestionSetSummaries(Integer semester, String department);
     
     /**
      * Update question set
@@ -56,6 +54,21 @@ public interface QuestionSetService {
      */
     QuestionSet removeQuestionFromSet(Long setId, Long questionId);
     
+    /**
+     * Add questions to a question set, skipping ones already in it, and return the set's version
+     */
+    long addQuestionsToSet(Long setId, List<Long> questionIds);
+    
+    /**
+     * Remove questions from a question set and return the set's version
+     */
+    long removeQuestionsFromSet(Long setId, List<Long> questionIds);
+    
+    /**
+     * Make a question set contain exactly the given questions and return the set's version
+     */
+    long replaceQuestionsInSet(Long setId, List<Long> questionIds);
+    
     /**
      * Delete question set
      */
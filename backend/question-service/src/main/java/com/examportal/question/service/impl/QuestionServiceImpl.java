@@ -1,15 +1,35 @@
 package com.examportal.question.service.impl;
 
+import com.examportal.question.dto.DuplicateCluster;
+import com.examportal.question.dto.NearDuplicate;
+import com.examportal.question.dto.QuestionSearchHit;
+import com.examportal.question.dto.QuestionSearchPage;
+import com.examportal.question.duplicate.NearDuplicateDetector;
 import com.examportal.question.entity.Question;
+import com.examportal.question.entity.QuestionImport;
+import com.examportal.question.importer.QuestionImporter;
+import com.examportal.question.repository.QuestionImportRepository;
 import com.examportal.question.repository.QuestionRepository;
+import com.examportal.question.repository.QuestionSetRepository;
+import com.examportal.question.search.QuestionSearchIndex;
+import com.examportal.question.search.SearchHits;
 import com.examportal.question.service.QuestionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Question Service Implementation
@@ -22,12 +42,20 @@ import java.util.Optional;
 public class QuestionServiceImpl implements QuestionService {
 
     private final QuestionRepository questionRepository;
+    private final QuestionSetRepository questionSetRepository;
+    private final QuestionImportRepository questionImportRepository;
+    private final QuestionImporter questionImporter;
+    private final QuestionSearchIndex questionSearchIndex;
+    private final NearDuplicateDetector nearDuplicateDetector;
 
     @Override
     public Question createQuestion(Question question) {
         log.info("Creating new question for semester {} and department {}", 
                 question.getSemester(), question.getDepartment());
-        return questionRepository.save(question);
+        Question saved = questionRepository.save(question);
+        nearDuplicateDetector.add(saved);
+        questionSearchIndex.indexAfterCommit(saved);
+        return saved;
     }
 
     @Override
@@ -36,6 +64,11 @@ public class QuestionServiceImpl implements QuestionService {
         return questionRepository.findById(id);
     }
 
+    @Override
+    public Optional<Long> getQuestionVersion(Long id) {
+        return questionRepository.findVersionById(id);
+    }
+
     @Override
     public List<Question> getAllQuestions() {
         log.debug("Fetching all questions");
@@ -60,6 +93,46 @@ public class QuestionServiceImpl implements QuestionService {
         return questionRepository.findBySemesterAndDepartment(semester, department);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public QuestionSearchPage searchQuestions(String query, Integer semester, String department, int page, int size) {
+        log.debug("Searching questions for '{}' with filters: semester={}, department={}", query, semester, department);
+        SearchHits hits = questionSearchIndex.search(query, semester, department, page * size, size);
+        Map<Long, Question> questions = questionRepository.findAllById(
+                        Arrays.stream(hits.questionIds()).boxed().toList()).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+        List<QuestionSearchHit> items = new ArrayList<>(hits.questionIds().length);
+        for (int i = 0; i < hits.questionIds().length; i++) {
+            Question question = questions.get(hits.questionIds()[i]);
+            if (question != null) { // Deleted through another instance since the last refresh
+                items.add(new QuestionSearchHit(question, hits.scores()[i]));
+            }
+        }
+        return new QuestionSearchPage(items, hits.total(), page, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<NearDuplicate> findNearDuplicates(Long id, Double threshold) {
+        log.debug("Finding near-duplicates of question {}", id);
+        Question question = questionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Question not found with ID: " + id));
+        return nearDuplicateDetector.findSimilar(question, threshold);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<NearDuplicate> findNearDuplicates(Question question, Double threshold) {
+        return nearDuplicateDetector.findSimilar(question, threshold);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DuplicateCluster> clusterNearDuplicates(Double threshold) {
+        log.info("Clustering the question bank into near-duplicates");
+        return nearDuplicateDetector.cluster(threshold);
+    }
+
     @Override
     public Question updateQuestion(Long id, Question question) {
         log.info("Updating question with ID: {}", id);
@@ -73,6 +146,10 @@ public class QuestionServiceImpl implements QuestionService {
                     existing.setCorrectOption(question.getCorrectOption());
                     existing.setSemester(question.getSemester());
                     existing.setDepartment(question.getDepartment());
+                    // Let caches of the sets containing this question see the change
+                    questionSetRepository.incrementVersionsContaining(id);
+                    nearDuplicateDetector.update(existing);
+                    questionSearchIndex.indexAfterCommit(existing);
                     return questionRepository.save(existing);
                 })
                 .orElseThrow(() -> new RuntimeException("Question not found with ID: " + id));
@@ -82,5 +159,25 @@ public class QuestionServiceImpl implements QuestionService {
     public void deleteQuestion(Long id) {
         log.info("Deleting question with ID: {}", id);
         questionRepository.deleteById(id);
+        nearDuplicateDetector.remove(id);
+        questionSearchIndex.removeAfterCommit(id);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // No connection held while the upload is spooled
+    public QuestionImport importQuestions(QuestionImport.Format format, InputStream input, Long questionSetId)
+            throws IOException {
+        log.info("Importing {} questions{}", format,
+                questionSetId == null ? "" : " into question set " + questionSetId);
+        return questionImporter.submit(format, input, questionSetId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<QuestionImport> getImport(Long id) {
+        log.debug("Fetching question import with ID: {}", id);
+        Optional<QuestionImport> questionImport = questionImportRepository.findWithErrorsById(id);
+        questionImport.ifPresent(found -> Hibernate.initialize(found.getNearDuplicates()));
+        return questionImport;
     }
 }
@@ -1,8 +1,12 @@
 package com.examportal.question.service.impl;
 
+import com.examportal.question.cache.QuestionSetSnapshot;
+import com.examportal.question.cache.QuestionSetSnapshotStore;
+import com.examportal.question.dto.QuestionSetSummary;
 import com.examportal.question.entity.Question;
 import com.examportal.question.entity.QuestionSet;
 import com.examportal.question.repository.QuestionRepository;
+import com.examportal.question.repository.QuestionSetMembershipRepository;
 import com.examportal.question.repository.QuestionSetRepository;
 import com.examportal.question.service.QuestionSetService;
 import lombok.RequiredArgsConstructor;
@@ -10,8 +14,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 /**
  * QuestionSet Service Implementation
@@ -25,6 +33,8 @@ public class QuestionSetServiceImpl implements QuestionSetService {
 
     private final QuestionSetRepository questionSetRepository;
     private final QuestionRepository questionRepository;
+    private final QuestionSetMembershipRepository questionSetMembershipRepository;
+    private final QuestionSetSnapshotStore questionSetSnapshotStore;
 
     @Override
     public QuestionSet createQuestionSet(QuestionSet questionSet) {
@@ -34,44 +44,42 @@ public class QuestionSetServiceImpl implements QuestionSetService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<QuestionSet> getQuestionSetById(Long id) {
         log.debug("Fetching question set with ID: {}", id);
-        return questionSetRepository.findById(id);
+        return questionSetRepository.findWithQuestionsById(id);
     }
 
     @Override
-    public List<QuestionSet> getAllQuestionSets() {
-        log.debug("Fetching all question sets");
-        return questionSetRepository.findAll();
+    @Transactional(readOnly = true)
+    public Optional<QuestionSetSnapshot> getQuestionSetSnapshot(Long id, QuestionSetSnapshotStore.View view) {
+        log.debug("Fetching {} snapshot of question set with ID: {}", view, id);
+        return questionSetSnapshotStore.get(id, view);
     }
 
     @Override
-    public List<QuestionSet> getQuestionSetsBySemester(Integer semester) {
-        log.debug("Fetching question sets for semester: {}", semester);
-        return questionSetRepository.findBySemester(semester);
+    @Transactional(readOnly = true)
+    public Optional<Long> getQuestionSetVersion(Long id) {
+        return questionSetRepository.findVersionById(id);
     }
 
     @Override
-    public List<QuestionSet> getQuestionSetsByDepartment(String department) {
-        log.debug("Fetching question sets for department: {}", department);
-        return questionSetRepository.findByDepartment(department);
-    }
-
-    @Override
-    public List<QuestionSet> getQuestionSetsBySemesterAndDepartment(Integer semester, String department) {
-        log.debug("Fetching question sets for semester {} and department {}", semester, department);
-        return questionSetRepository.findBySemesterAndDepartment(semester, department);
+    @Transactional(readOnly = true)
+    public List<QuestionSetSummary> getQuestionSetSummaries(Integer semester, String department) {
+        log.debug("Fetching question set summaries for semester {} and department {}", semester, department);
+        return questionSetRepository.findSummaries(semester, department);
     }
 
     @Override
     public QuestionSet updateQuestionSet(Long id, QuestionSet questionSet) {
         log.info("Updating question set with ID: {}", id);
-        return questionSetRepository.findById(id)
+        return questionSetRepository.findWithQuestionsById(id)
                 .map(existing -> {
                     existing.setName(questionSet.getName());
                     existing.setDescription(questionSet.getDescription());
                     existing.setSemester(questionSet.getSemester());
                     existing.setDepartment(questionSet.getDepartment());
+                    existing.setDurationMinutes(questionSet.getDurationMinutes());
                     return questionSetRepository.save(existing);
                 })
                 .orElseThrow(() -> new RuntimeException("Question set not found with ID: " + id));
@@ -80,7 +88,7 @@ public class QuestionSetServiceImpl implements QuestionSetService {
     @Override
     public QuestionSet addQuestionToSet(Long setId, Long questionId) {
         log.info("Adding question {} to question set {}", questionId, setId);
-        QuestionSet questionSet = questionSetRepository.findById(setId)
+        QuestionSet questionSet = questionSetRepository.findWithQuestionsById(setId)
                 .orElseThrow(() -> new RuntimeException("Question set not found with ID: " + setId));
         
         Question question = questionRepository.findById(questionId)
@@ -93,16 +101,82 @@ public class QuestionSetServiceImpl implements QuestionSetService {
     @Override
     public QuestionSet removeQuestionFromSet(Long setId, Long questionId) {
         log.info("Removing question {} from question set {}", questionId, setId);
-        QuestionSet questionSet = questionSetRepository.findById(setId)
+        QuestionSet questionSet = questionSetRepository.findWithQuestionsById(setId)
                 .orElseThrow(() -> new RuntimeException("Question set not found with ID: " + setId));
         
         questionSet.getQuestions().removeIf(q -> q.getId().equals(questionId));
         return questionSetRepository.save(questionSet);
     }
 
+    @Override
+    public long addQuestionsToSet(Long setId, List<Long> questionIds) {
+        log.info("Adding {} questions to question set {}", questionIds.size(), setId);
+        Membership membership = lockMembership(setId);
+        SortedSet<Long> toAdd = new TreeSet<>(questionIds);
+        toAdd.removeAll(membership.questionIds());
+        return applyMembership(setId, membership, toAdd, Set.of());
+    }
+
+    @Override
+    public long removeQuestionsFromSet(Long setId, List<Long> questionIds) {
+        log.info("Removing {} questions from question set {}", questionIds.size(), setId);
+        Membership membership = lockMembership(setId);
+        SortedSet<Long> toRemove = new TreeSet<>(questionIds);
+        toRemove.retainAll(membership.questionIds());
+        return applyMembership(setId, membership, Set.of(), toRemove);
+    }
+
+    @Override
+    public long replaceQuestionsInSet(Long setId, List<Long> questionIds) {
+        log.info("Replacing the questions of question set {} with {} questions", setId, questionIds.size());
+        Membership membership = lockMembership(setId);
+        SortedSet<Long> toAdd = new TreeSet<>(questionIds);
+        toAdd.removeAll(membership.questionIds());
+        SortedSet<Long> toRemove = new TreeSet<>(membership.questionIds());
+        toRemove.removeAll(questionIds);
+        return applyMembership(setId, membership, toAdd, toRemove);
+    }
+
     @Override
     public void deleteQuestionSet(Long id) {
         log.info("Deleting question set with ID: {}", id);
         questionSetRepository.deleteById(id);
+        questionSetSnapshotStore.evict(id);
+    }
+
+    /**
+     * Lock a question set for a membership change and read its current questions
+     */
+    private Membership lockMembership(Long setId) {
+        long version = questionSetMembershipRepository.lockVersion(setId)
+                .orElseThrow(() -> new RuntimeException("Question set not found with ID: " + setId));
+        return new Membership(version, new HashSet<>(questionSetMembershipRepository.findQuestionIds(setId)));
+    }
+
+    /**
+     * Write a membership change with batched statements and bump the set's version if anything changed
+     */
+    private long applyMembership(Long setId, Membership membership, Set<Long> toAdd, Set<Long> toRemove) {
+        if (toAdd.isEmpty() && toRemove.isEmpty()) {
+            return membership.version();
+        }
+        if (!toAdd.isEmpty()) {
+            Set<Long> missing = new TreeSet<>(toAdd);
+            questionRepository.findExistingIds(toAdd).forEach(missing::remove);
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("Questions not found with IDs: " + missing);
+            }
+            questionSetMembershipRepository.insert(setId, toAdd);
+        }
+        if (!toRemove.isEmpty()) {
+            questionSetMembershipRepository.delete(setId, toRemove);
+        }
+        questionSetRepository.incrementVersion(setId);
+        log.debug("Question set {} at version {}: {} questions added, {} removed",
+                setId, membership.version() + 1, toAdd.size(), toRemove.size());
+        return membership.version() + 1;
+    }
+
+    private record Membership(long version, Set<Long> questionIds) {
     }
 }
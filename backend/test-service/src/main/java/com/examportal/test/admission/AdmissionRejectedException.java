@@ -0,0 +1,18 @@
+package com.examportal.test.admission;
+
+import lombok.Getter;
+
+/**
+ * Admission Rejected Exception
+ * Thrown when a test start cannot be admitted now; the client should retry after the given delay
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final long retryAfterMillis;
+
+    public AdmissionRejectedException(long retryAfterMillis) {
+        super("Too many students are starting a test, retry in " + retryAfterMillis + " ms");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+}
@@ -0,0 +1,154 @@
+package com.examportal.test.admission;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Start Test Admission
+ * Admission control in front of starting a test, so that an exam-start storm reaches
+ * Question Service and MySQL at a bounded rate.
+ * - At most max-concurrent-starts starts run at once
+ * - Up to max-queued further callers wait in FIFO order for at most queue-timeout-ms
+ * - Everyone else is rejected with a retry delay: the estimated time to drain the queue
+ *   plus random jitter, so rejected clients come back spread out instead of together
+ * Waiting callers park a request thread. On platform threads, running and queued starts
+ * together are capped at a quarter of the Tomcat worker pool so a storm of starts can never
+ * starve the other endpoints; with virtual threads parking is cheap and max-queued applies as is.
+ * Admissions are counted as test_start.admissions{outcome, exam_window}, where exam_window is the
+ * server-resolved window of the student, or "none" for a start outside any window.
+ */
+@Component
+@Slf4j
+public class StartTestAdmission {
+
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private final int maxConcurrentStarts;
+    private final int maxQueued;
+    private final long queueTimeoutMillis;
+    private final long minRetryAfterMillis;
+    private final long retryJitterMillis;
+
+    private volatile double averageStartMillis = 100; // Moving average of admitted start durations
+
+    public StartTestAdmission(MeterRegistry meterRegistry,
+                              @Value("${test-session.admission.max-concurrent-starts:20}") int maxConcurrentStarts,
+                              @Value("${test-session.admission.max-queued:30}") int maxQueued,
+                              @Value("${test-session.admission.queue-timeout-ms:2000}") long queueTimeoutMillis,
+                              @Value("${test-session.admission.min-retry-after-ms:500}") long minRetryAfterMillis,
+                              @Value("${test-session.admission.retry-jitter-ms:2000}") long retryJitterMillis,
+                              @Value("${server.tomcat.threads.max:200}") int workerThreads,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.meterRegistry = meterRegistry;
+        this.permits = new Semaphore(maxConcurrentStarts, true);
+        this.maxConcurrentStarts = maxConcurrentStarts;
+        int queueLimit = Math.max(0, workerThreads / 4 - maxConcurrentStarts);
+        if (!virtualThreads && maxQueued > queueLimit) {
+            log.warn("Capping test start queue at {} instead of {} to keep {} of {} worker threads for other requests",
+                queueLimit, maxQueued, workerThreads - workerThreads / 4, workerThreads);
+            maxQueued = queueLimit;
+        }
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.minRetryAfterMillis = minRetryAfterMillis;
+        this.retryJitterMillis = retryJitterMillis;
+        Gauge.builder("test_start.admission.waiting", waiting, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("test_start.admission.in_flight", permits, p -> maxConcurrentStarts - p.availablePermits())
+            .register(meterRegistry);
+    }
+
+    /**
+     * Admit a test start, waiting in the queue if all slots are busy
+     * The returned ticket must be closed when the start is done
+     *
+     * @param examWindowId exam window the start belongs to, or null if none
+     * @throws AdmissionRejectedException if the queue is full or the wait timed out
+     */
+    public Ticket admit(Long questionSetId, Long examWindowId) {
+        String window = examWindowId == null ? "none" : examWindowId.toString();
+        long start = System.nanoTime();
+        // Timed tryAcquire honours fairness, so callers never overtake the queue
+        if (acquire(0)) {
+            return admitted("immediate", window, start);
+        }
+
+        if (waiting.incrementAndGet() > maxQueued) {
+            waiting.decrementAndGet();
+            throw rejected(questionSetId, window, start);
+        }
+        boolean acquired;
+        try {
+            acquired = acquire(queueTimeoutMillis);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            throw rejected(questionSetId, window, start);
+        }
+        return admitted("queued", window, start);
+    }
+
+    private boolean acquire(long timeoutMillis) {
+        try {
+            return permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Ticket admitted(String outcome, String window, long start) {
+        count(outcome, window, start);
+        return new Ticket();
+    }
+
+    private AdmissionRejectedException rejected(Long questionSetId, String window, long start) {
+        count("rejected", window, start);
+        // Time for the slots to work through everyone now waiting, then spread the retries out
+        long drainMillis = (long) ((waiting.get() / (double) maxConcurrentStarts + 1) * averageStartMillis);
+        long retryAfter = Math.max(minRetryAfterMillis, drainMillis)
+            + ThreadLocalRandom.current().nextLong(retryJitterMillis + 1);
+        log.debug("Rejected test start for question set {}, retry after {} ms", questionSetId, retryAfter);
+        return new AdmissionRejectedException(retryAfter);
+    }
+
+    private void count(String outcome, String window, long start) {
+        // Not tagged by question set: the ID comes from the client and would make the series unbounded.
+        // The window ID is looked up by the server, so only windows that exist get a series.
+        meterRegistry.counter("test_start.admissions", "outcome", outcome, "exam_window", window).increment();
+        Timer.builder("test_start.admission.wait")
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Slot held by an admitted start; closing it lets the next caller in
+     */
+    public final class Ticket implements AutoCloseable {
+
+        private final long admittedAt = System.nanoTime();
+        private boolean closed;
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            double elapsedMillis = (System.nanoTime() - admittedAt) / 1_000_000.0;
+            averageStartMillis = 0.9 * averageStartMillis + 0.1 * elapsedMillis;
+            permits.release();
+        }
+    }
+}
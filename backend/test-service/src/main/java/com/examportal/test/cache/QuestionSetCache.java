@@ -0,0 +1,177 @@
+package com.examportal.test.cache;
+
+import com.examportal.test.client.FetchedQuestionSet;
+import com.examportal.test.client.QuestionServiceClient;
+import com.examportal.test.dto.QuestionSetDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Question Set Cache
+ * Bounded cache of question sets fetched from Question Service (student view, no answer keys).
+ * - Concurrent misses for the same set share a single fetch
+ * - Entries older than the TTL are revalidated with a conditional GET on their ETag;
+ *   a changed set comes back in the same call, an unchanged one is a 304 without its questions
+ * - While one caller revalidates, others keep reading the cached copy
+ * - Beyond max-entries the least recently used sets are evicted
+ * Cached sets are shared between callers and must not be modified.
+ */
+@Component
+@Slf4j
+public class QuestionSetCache {
+
+    private final QuestionServiceClient questionServiceClient;
+    private final Map<Long, CompletableFuture<Entry>> entries = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter revalidations;
+    private final Counter reloads;
+    private final Counter evictions;
+
+    @Value("${test-session.question-set-cache.max-entries:256}")
+    private int maxEntries;
+
+    @Value("${test-session.question-set-cache.ttl-ms:30000}")
+    private long ttlMillis;
+
+    public QuestionSetCache(QuestionServiceClient questionServiceClient, MeterRegistry meterRegistry) {
+        this.questionServiceClient = questionServiceClient;
+        this.hits = meterRegistry.counter("question_set_cache.gets", "result", "hit");
+        this.misses = meterRegistry.counter("question_set_cache.gets", "result", "miss");
+        this.revalidations = meterRegistry.counter("question_set_cache.revalidations", "result", "unchanged");
+        this.reloads = meterRegistry.counter("question_set_cache.revalidations", "result", "changed");
+        this.evictions = meterRegistry.counter("question_set_cache.evictions");
+        Gauge.builder("question_set_cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Get a question set, fetching it from Question Service if it is not cached
+     */
+    public QuestionSetDTO get(Long questionSetId) {
+        return entry(questionSetId).questionSet;
+    }
+
+    /**
+     * Get the JSON of a question set as served by Question Service, to pass on to browsers
+     */
+    public String getJson(Long questionSetId) {
+        return entry(questionSetId).json;
+    }
+
+    private Entry entry(Long questionSetId) {
+        CompletableFuture<Entry> future = entries.get(questionSetId);
+        if (future == null) {
+            CompletableFuture<Entry> loading = new CompletableFuture<>();
+            future = entries.putIfAbsent(questionSetId, loading);
+            if (future == null) {
+                misses.increment();
+                return load(questionSetId, loading);
+            }
+        }
+
+        Entry entry;
+        try {
+            // Waits for the fetch started by another caller, if any
+            entry = future.join();
+        } catch (CompletionException e) {
+            // The loading caller already removed the failed entry
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+
+        hits.increment();
+        entry.lastAccessMillis = System.currentTimeMillis();
+        if (entry.isStale(ttlMillis) && entry.refreshing.compareAndSet(false, true)) {
+            return revalidate(questionSetId, future, entry);
+        }
+        return entry;
+    }
+
+    private Entry load(Long questionSetId, CompletableFuture<Entry> loading) {
+        try {
+            Entry entry = new Entry(questionServiceClient.fetchQuestionSet(questionSetId));
+            loading.complete(entry);
+            evictIfFull();
+            return entry;
+        } catch (RuntimeException e) {
+            entries.remove(questionSetId, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Entry revalidate(Long questionSetId, CompletableFuture<Entry> current, Entry entry) {
+        try {
+            Optional<FetchedQuestionSet> changed =
+                questionServiceClient.fetchQuestionSetIfModified(questionSetId, entry.eTag);
+            if (changed.isEmpty()) {
+                revalidations.increment();
+                entry.loadedAtMillis = System.currentTimeMillis();
+                return entry;
+            }
+
+            Entry reloaded = new Entry(changed.get());
+            log.info("Question set {} changed (version {} -> {})",
+                questionSetId, entry.questionSet.getVersion(), reloaded.questionSet.getVersion());
+            reloads.increment();
+            entries.replace(questionSetId, current, CompletableFuture.completedFuture(reloaded));
+            return reloaded;
+        } catch (RuntimeException e) {
+            // Keep serving the cached copy; the next caller past the TTL retries
+            log.warn("Failed to revalidate question set {}, serving cached copy: {}", questionSetId, e.getMessage());
+            return entry;
+        } finally {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private void evictIfFull() {
+        int excess = entries.size() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        entries.entrySet().stream()
+            .filter(e -> e.getValue().isDone() && !e.getValue().isCompletedExceptionally())
+            .sorted(Comparator.comparingLong(e -> e.getValue().join().lastAccessMillis))
+            .limit(excess)
+            .toList()
+            .forEach(e -> {
+                if (entries.remove(e.getKey(), e.getValue())) {
+                    evictions.increment();
+                }
+            });
+    }
+
+    private static final class Entry {
+        final QuestionSetDTO questionSet;
+        final String json;
+        final String eTag;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        volatile long loadedAtMillis;
+        volatile long lastAccessMillis;
+
+        Entry(FetchedQuestionSet fetched) {
+            this.questionSet = fetched.questionSet();
+            this.json = fetched.json();
+            this.eTag = fetched.eTag();
+            this.loadedAtMillis = System.currentTimeMillis();
+            this.lastAccessMillis = loadedAtMillis;
+        }
+
+        boolean isStale(long ttlMillis) {
+            return System.currentTimeMillis() - loadedAtMillis >= ttlMillis;
+        }
+    }
+}
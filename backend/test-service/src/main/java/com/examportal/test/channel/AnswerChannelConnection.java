@@ -0,0 +1,148 @@
+package com.examportal.test.channel;
+
+import com.examportal.test.dto.AnswerChannelEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Answer Channel Connection
+ * One open WebSocket of the live answer channel and its outgoing events.
+ * At most one send is in flight per connection. Events waiting behind it are kept in
+ * one slot per kind (reply, tick, completion) and a newer event replaces the waiting
+ * one of its kind; acks are cumulative and ticks absolute, so a slow client only misses
+ * intermediate states and a connection never buffers more than three events.
+ */
+@Slf4j
+class AnswerChannelConnection {
+
+    private final Session socket;
+    private final Long testSessionId;
+    private final Long deadlineMillis; // Null for untimed sessions
+    private final ObjectMapper objectMapper;
+    private final Runnable onReplaced;
+
+    private AnswerChannelEvent pendingReply;
+    private AnswerChannelEvent pendingTick;
+    private AnswerChannelEvent pendingCompletion;
+    private boolean sending;
+    private boolean completed;
+
+    AnswerChannelConnection(Session socket, Long testSessionId, LocalDateTime deadline,
+                            ObjectMapper objectMapper, Runnable onReplaced) {
+        this.socket = socket;
+        this.testSessionId = testSessionId;
+        this.deadlineMillis = deadline != null
+            ? deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+            : null;
+        this.objectMapper = objectMapper;
+        this.onReplaced = onReplaced;
+    }
+
+    Long getTestSessionId() {
+        return testSessionId;
+    }
+
+    Long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    /**
+     * Queue an event for sending, replacing a waiting event of the same kind
+     */
+    void push(AnswerChannelEvent event) {
+        boolean replaced;
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            switch (event.getType()) {
+                case TICK -> {
+                    replaced = pendingTick != null;
+                    pendingTick = event;
+                }
+                case COMPLETED -> {
+                    replaced = false;
+                    pendingCompletion = event;
+                    completed = true;
+                }
+                default -> {
+                    replaced = pendingReply != null;
+                    pendingReply = event;
+                }
+            }
+            if (sending) {
+                event = null;
+            } else {
+                sending = true;
+            }
+        }
+        if (replaced) {
+            onReplaced.run();
+        }
+        if (event != null) {
+            sendNext();
+        }
+    }
+
+    void close(CloseReason.CloseCode code, String reason) {
+        try {
+            if (socket.isOpen()) {
+                socket.close(new CloseReason(code, reason));
+            }
+        } catch (IOException e) {
+            log.debug("Failed to close answer channel of session {}: {}", testSessionId, e.getMessage());
+        }
+    }
+
+    private void sendNext() {
+        AnswerChannelEvent event;
+        synchronized (this) {
+            // Replies first, the completion notice last so it follows the final ack
+            if (pendingReply != null) {
+                event = pendingReply;
+                pendingReply = null;
+            } else if (pendingTick != null) {
+                event = pendingTick;
+                pendingTick = null;
+            } else if (pendingCompletion != null) {
+                event = pendingCompletion;
+                pendingCompletion = null;
+            } else {
+                sending = false;
+                return;
+            }
+        }
+
+        String text;
+        try {
+            text = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize answer channel event", e);
+        }
+        AnswerChannelEvent sent = event;
+        try {
+            socket.getAsyncRemote().sendText(text, result -> {
+                if (!result.isOK()) {
+                    // Send timeout or broken connection; the client falls back to the REST endpoints
+                    log.debug("Answer channel send failed for session {}: {}",
+                        testSessionId, result.getException().getMessage());
+                    close(CloseReason.CloseCodes.GOING_AWAY, "Send failed");
+                } else if (sent.getType() == AnswerChannelEvent.Type.COMPLETED) {
+                    close(CloseReason.CloseCodes.NORMAL_CLOSURE, "Test session completed");
+                } else {
+                    sendNext();
+                }
+            });
+        } catch (IllegalStateException e) {
+            // Closed while this send was being prepared
+            log.debug("Answer channel of session {} closed: {}", testSessionId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.examportal.test.channel;
+
+import com.examportal.test.dto.AnswerBatchAck;
+import com.examportal.test.dto.AnswerChannelEvent;
+import com.examportal.test.dto.SubmitAnswersRequest;
+import com.examportal.test.entity.TestSession;
+import com.examportal.test.live.WriteUnavailableException;
+import com.examportal.test.service.TestSessionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.Session;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Answer Channel Endpoint
+ * WebSocket at /ws/test-sessions/{sessionId} for a test session in progress.
+ * Each text message is a batch of answers in the body format of PUT /{id}/answers and
+ * is answered with an ACK (or ERROR) event; the server also pushes TICK and COMPLETED
+ * events. Messages of a channel are handled one at a time, so a client sending faster
+ * than its answers are applied is slowed down by TCP flow control.
+ * A channel that is refused or closed leaves the client on the REST endpoints.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AnswerChannelEndpoint extends Endpoint {
+
+    public static final String PATH = "/ws/test-sessions/{sessionId}";
+    private static final String CONNECTION = AnswerChannelConnection.class.getName();
+
+    private final TestSessionService testSessionService;
+    private final AnswerChannelRegistry answerChannelRegistry;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Override
+    public void onOpen(Session socket, EndpointConfig config) {
+        Optional<TestSession> session = parseSessionId(socket.getPathParameters().get("sessionId"))
+            .flatMap(testSessionService::getTestSessionById);
+        if (session.isEmpty() || session.get().getStatus() != TestSession.TestStatus.IN_PROGRESS) {
+            close(socket, CloseReason.CloseCodes.CANNOT_ACCEPT, "Test session is not in progress");
+            return;
+        }
+
+        AnswerChannelConnection connection = answerChannelRegistry.register(socket, session.get());
+        if (connection == null) {
+            close(socket, CloseReason.CloseCodes.TRY_AGAIN_LATER, "Too many open channels");
+            return;
+        }
+        socket.getUserProperties().put(CONNECTION, connection);
+        socket.addMessageHandler(String.class, text -> onAnswers(connection, text));
+        log.debug("Answer channel opened for session {}", connection.getTestSessionId());
+    }
+
+    @Override
+    public void onClose(Session socket, CloseReason closeReason) {
+        AnswerChannelConnection connection = (AnswerChannelConnection) socket.getUserProperties().get(CONNECTION);
+        if (connection != null) {
+            answerChannelRegistry.unregister(connection);
+            log.debug("Answer channel closed for session {}: {}", connection.getTestSessionId(), closeReason);
+        }
+    }
+
+    @Override
+    public void onError(Session socket, Throwable error) {
+        log.debug("Answer channel error: {}", error.getMessage());
+    }
+
+    private void onAnswers(AnswerChannelConnection connection, String text) {
+        Long sessionId = connection.getTestSessionId();
+        SubmitAnswersRequest request;
+        try {
+            request = objectMapper.readValue(text, SubmitAnswersRequest.class);
+        } catch (JsonProcessingException e) {
+            connection.push(AnswerChannelEvent.error(sessionId, "Malformed answers message"));
+            return;
+        }
+        Set<ConstraintViolation<SubmitAnswersRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            connection.push(AnswerChannelEvent.error(sessionId, violations.iterator().next().getMessage()));
+            return;
+        }
+
+        try {
+            AnswerBatchAck ack = testSessionService.submitAnswers(sessionId, request);
+            connection.push(AnswerChannelEvent.ack(ack));
+        } catch (IllegalArgumentException | IllegalStateException | WriteUnavailableException e) {
+            connection.push(AnswerChannelEvent.error(sessionId, e.getMessage()));
+        } catch (RuntimeException e) {
+            log.error("Failed to apply answers for session {} from channel: {}", sessionId, e.getMessage());
+            connection.push(AnswerChannelEvent.error(sessionId, "Failed to save answers"));
+        }
+    }
+
+    private static Optional<Long> parseSessionId(String value) {
+        try {
+            return Optional.of(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static void close(Session socket, CloseReason.CloseCode code, String reason) {
+        try {
+            socket.close(new CloseReason(code, reason));
+        } catch (IOException e) {
+            log.debug("Failed to close answer channel: {}", e.getMessage());
+        }
+    }
+}
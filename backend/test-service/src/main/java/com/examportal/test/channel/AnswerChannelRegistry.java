@@ -0,0 +1,112 @@
+package com.examportal.test.channel;
+
+import com.examportal.test.dto.AnswerChannelEvent;
+import com.examportal.test.entity.TestSession;
+import com.examportal.test.repository.TestSessionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answer Channel Registry
+ * Open live answer channels of this instance, by test session
+ * - Admits at most max-connections channels; clients beyond that use the REST endpoints
+ * - Pushes the seconds left to every channel each tick, which also keeps idle channels open
+ * - Tells channels when their session is completed: immediately for submits on this
+ *   instance, and at the next tick after the deadline for sessions submitted elsewhere
+ */
+@Component
+@Slf4j
+public class AnswerChannelRegistry {
+
+    private final TestSessionRepository testSessionRepository;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, Set<AnswerChannelConnection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final Counter replacedEvents;
+
+    @Value("${test-session.channel.max-connections:5000}")
+    private int maxConnections;
+
+    @Value("${test-session.timer.answer-grace-ms:5000}")
+    private long answerGraceMillis;
+
+    public AnswerChannelRegistry(TestSessionRepository testSessionRepository,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry) {
+        this.testSessionRepository = testSessionRepository;
+        this.objectMapper = objectMapper;
+        this.replacedEvents = meterRegistry.counter("answer_channel.events.replaced");
+        Gauge.builder("answer_channel.connections", connectionCount, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Register an opened channel, or return null if this instance is at its limit
+     */
+    AnswerChannelConnection register(Session socket, TestSession session) {
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            return null;
+        }
+        AnswerChannelConnection connection = new AnswerChannelConnection(
+            socket, session.getId(), session.getDeadline(), objectMapper, replacedEvents::increment);
+        connections.computeIfAbsent(session.getId(), id -> ConcurrentHashMap.newKeySet()).add(connection);
+        return connection;
+    }
+
+    void unregister(AnswerChannelConnection connection) {
+        Set<AnswerChannelConnection> channels = connections.get(connection.getTestSessionId());
+        if (channels != null && channels.remove(connection)) {
+            connectionCount.decrementAndGet();
+            connections.computeIfPresent(connection.getTestSessionId(), (id, set) -> set.isEmpty() ? null : set);
+        }
+    }
+
+    /**
+     * Notify the channels of a session that it was submitted
+     */
+    public void sessionCompleted(Long testSessionId) {
+        Set<AnswerChannelConnection> channels = connections.get(testSessionId);
+        if (channels != null) {
+            channels.forEach(connection -> connection.push(AnswerChannelEvent.completed(testSessionId)));
+        }
+    }
+
+    /**
+     * Push the seconds left to every channel and close channels of sessions submitted elsewhere
+     */
+    @Scheduled(fixedDelayString = "${test-session.channel.tick-interval-ms:5000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        List<Long> overdue = new ArrayList<>();
+        connections.forEach((testSessionId, channels) -> {
+            for (AnswerChannelConnection connection : channels) {
+                Long deadlineMillis = connection.getDeadlineMillis();
+                Long secondsLeft = deadlineMillis != null ? Math.max(0, (deadlineMillis - now + 999) / 1000) : null;
+                connection.push(AnswerChannelEvent.tick(testSessionId, secondsLeft));
+                if (deadlineMillis != null && now > deadlineMillis + answerGraceMillis) {
+                    overdue.add(testSessionId);
+                }
+            }
+        });
+        if (!overdue.isEmpty()) {
+            // Auto-submitted by the instance owning the session's timer partition
+            testSessionRepository.findIdsByStatus(overdue, TestSession.TestStatus.COMPLETED)
+                .forEach(this::sessionCompleted);
+        }
+    }
+}
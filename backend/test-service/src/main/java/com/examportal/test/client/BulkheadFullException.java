@@ -0,0 +1,12 @@
+package com.examportal.test.client;
+
+/**
+ * Bulkhead Full Exception
+ * Thrown when all concurrent calls allowed to a downstream service are in use
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String service) {
+        super("Too many concurrent calls to " + service);
+    }
+}
@@ -0,0 +1,10 @@
+package com.examportal.test.client;
+
+import com.examportal.test.dto.QuestionSetDTO;
+
+/**
+ * Student view of a question set as fetched from Question Service: decoded, as the original JSON
+ * to pass on to browsers, and with the ETag to revalidate it
+ */
+public record FetchedQuestionSet(QuestionSetDTO questionSet, String json, String eTag) {
+}
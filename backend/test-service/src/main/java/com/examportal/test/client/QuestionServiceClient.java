@@ -0,0 +1,82 @@
+package com.examportal.test.client;
+
+import com.examportal.test.dto.QuestionDTO;
+import com.examportal.test.dto.QuestionSetDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Question Service Client
+ * Fetches the student view of question sets from Question Service and revalidates cached copies by ETag
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QuestionServiceClient {
+
+    private static final String SERVICE = "question-service";
+
+    private final InterServiceClient interServiceClient;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Fetch question set from Question Service
+     */
+    public FetchedQuestionSet fetchQuestionSet(Long questionSetId) {
+        return fetchQuestionSetIfModified(questionSetId, null)
+            .orElseThrow(() -> new RuntimeException("Question set not found with ID: " + questionSetId));
+    }
+
+    /**
+     * Revalidate a cached question set with a conditional GET
+     * Returns empty when the set still matches the ETag (304 Not Modified)
+     */
+    public Optional<FetchedQuestionSet> fetchQuestionSetIfModified(Long questionSetId, String eTag) {
+        log.debug("Fetching question set {} from Question Service (If-None-Match: {})", questionSetId, eTag);
+
+        try {
+            ResponseEntity<String> response = interServiceClient.getIfNoneMatch(
+                SERVICE, "/api/question-sets/{id}/student", eTag, String.class, questionSetId);
+            if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                return Optional.empty();
+            }
+            String json = response.getBody();
+            if (json == null) {
+                throw new RuntimeException("Question set not found with ID: " + questionSetId);
+            }
+            QuestionSetDTO questionSet = decodeStudentView(json);
+            log.info("Fetched question set: {} with {} questions",
+                questionSet.getName(), questionSet.getQuestions().size());
+            return Optional.of(new FetchedQuestionSet(questionSet, json, response.getHeaders().getETag()));
+        } catch (Exception e) {
+            log.error("Failed to fetch question set: {}", e.getMessage());
+            throw new RuntimeException("Failed to fetch question set from Question Service", e);
+        }
+    }
+
+    /**
+     * Decode the student view, whose questions are [id, questionText, optionA, optionB, optionC, optionD]
+     */
+    private QuestionSetDTO decodeStudentView(String json) throws JsonProcessingException {
+        JsonNode root = objectMapper.readTree(json);
+        Set<QuestionDTO> questions = new LinkedHashSet<>();
+        for (JsonNode row : root.path("questions")) {
+            questions.add(new QuestionDTO(row.get(0).asLong(), row.get(1).asText(), row.get(2).asText(),
+                row.get(3).asText(), row.get(4).asText(), row.get(5).asText()));
+        }
+        JsonNode duration = root.get("durationMinutes");
+        return new QuestionSetDTO(root.get("id").asLong(), root.path("name").asText(null),
+            root.path("description").asText(null), root.get("semester").asInt(), root.path("department").asText(null),
+            duration != null && !duration.isNull() ? duration.asInt() : null, questions, root.get("version").asLong());
+    }
+}
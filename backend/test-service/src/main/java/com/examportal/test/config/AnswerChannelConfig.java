@@ -0,0 +1,75 @@
+package com.examportal.test.config;
+
+import com.examportal.test.channel.AnswerChannelEndpoint;
+import jakarta.servlet.ServletContext;
+import jakarta.websocket.DeploymentException;
+import jakarta.websocket.server.ServerContainer;
+import jakarta.websocket.server.ServerEndpointConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.ServletContextAware;
+
+/**
+ * Answer Channel Configuration
+ * Registers the live answer channel with the embedded Tomcat's WebSocket container.
+ * The container is created when the web server starts, before singletons are initialized;
+ * every connection is served by the shared AnswerChannelEndpoint bean.
+ * Message buffers are allocated per connection from the container defaults when it opens,
+ * so they are sized here: text for the largest answers message, binary minimal as the
+ * channel has no binary messages.
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class AnswerChannelConfig implements ServletContextAware, SmartInitializingSingleton {
+
+    private static final int BINARY_MESSAGE_BUFFER_SIZE = 128;
+
+    private final AnswerChannelEndpoint answerChannelEndpoint;
+    private ServletContext servletContext;
+
+    @Value("${test-session.channel.idle-timeout-ms:60000}")
+    private long idleTimeoutMillis;
+
+    @Value("${test-session.channel.send-timeout-ms:10000}")
+    private long sendTimeoutMillis;
+
+    @Value("${test-session.channel.max-message-size:2048}")
+    private int maxMessageSize;
+
+    @Override
+    public void setServletContext(ServletContext servletContext) {
+        this.servletContext = servletContext;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        ServerContainer container = (ServerContainer) servletContext.getAttribute(ServerContainer.class.getName());
+        if (container == null) {
+            throw new IllegalStateException("No WebSocket container; the answer channel needs Tomcat WebSocket support");
+        }
+        container.setDefaultMaxSessionIdleTimeout(idleTimeoutMillis);
+        container.setAsyncSendTimeout(sendTimeoutMillis);
+        container.setDefaultMaxTextMessageBufferSize(maxMessageSize);
+        container.setDefaultMaxBinaryMessageBufferSize(BINARY_MESSAGE_BUFFER_SIZE);
+
+        ServerEndpointConfig config = ServerEndpointConfig.Builder
+            .create(AnswerChannelEndpoint.class, AnswerChannelEndpoint.PATH)
+            .configurator(new ServerEndpointConfig.Configurator() {
+                @Override
+                public <T> T getEndpointInstance(Class<T> endpointClass) {
+                    return endpointClass.cast(answerChannelEndpoint);
+                }
+            })
+            .build();
+        try {
+            container.addEndpoint(config);
+        } catch (DeploymentException e) {
+            throw new IllegalStateException("Failed to register the answer channel", e);
+        }
+        log.info("Answer channel registered at {}", AnswerChannelEndpoint.PATH);
+    }
+}
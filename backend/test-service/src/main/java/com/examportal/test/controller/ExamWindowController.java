@@ -0,0 +1,62 @@
+package com.examportal.test.controller;
+
+import com.examportal.test.dto.CreateExamWindowRequest;
+import com.examportal.test.dto.ExamWindowSummary;
+import com.examportal.test.service.ExamWindowService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ExamWindow Controller
+ * REST API endpoints for scheduling exam windows
+ */
+@RestController
+@RequestMapping("/api/exam-windows")
+@RequiredArgsConstructor
+@Slf4j
+public class ExamWindowController {
+
+    private final ExamWindowService examWindowService;
+
+    /**
+     * Schedule an exam window
+     */
+    @PostMapping
+    public ResponseEntity<?> createExamWindow(@Valid @RequestBody CreateExamWindowRequest request) {
+        log.info("POST /api/exam-windows - Scheduling exam window for question set {}", request.getQuestionSetId());
+        try {
+            ExamWindowSummary created = examWindowService.createExamWindow(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        } catch (IllegalArgumentException e) {
+            log.error("Validation error: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Get exam window by ID
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ExamWindowSummary> getExamWindowById(@PathVariable Long id) {
+        log.info("GET /api/exam-windows/{} - Fetching exam window", id);
+        return examWindowService.getExamWindowById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Get all exam windows
+     */
+    @GetMapping
+    public ResponseEntity<List<ExamWindowSummary>> getAllExamWindows() {
+        log.info("GET /api/exam-windows - Fetching all exam windows");
+        return ResponseEntity.ok(examWindowService.getAllExamWindows());
+    }
+}
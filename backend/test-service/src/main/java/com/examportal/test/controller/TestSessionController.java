@@ -1,22 +1,41 @@
 package com.examportal.test.controller;
 
-import com.examportal.test.dto.QuestionSetDTO;
+import com.examportal.test.admission.AdmissionRejectedException;
+import com.examportal.test.admission.StartTestAdmission;
+import com.examportal.test.dto.AnswerBatchAck;
+import com.examportal.test.dto.OutboxStats;
+import com.examportal.test.dto.SessionWriteAck;
 import com.examportal.test.dto.StartTestRequest;
 import com.examportal.test.dto.SubmitAnswerRequest;
+import com.examportal.test.dto.SubmitAnswersRequest;
+import com.examportal.test.dto.TestSessionFilter;
+import com.examportal.test.dto.TestSessionPage;
 import com.examportal.test.entity.TestSession;
+import com.examportal.test.idempotency.IdempotencyStore;
+import com.examportal.test.live.WriteUnavailableException;
 import com.examportal.test.service.TestSessionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
  * TestSession Controller
  * REST API endpoints for test session management
+ * Mutating endpoints accept an Idempotency-Key header; retries with the same key get the original response
+ * Answer and submit writes return a compact acknowledgement unless view=full is requested;
+ * a retry may ask for either view, whichever the original asked for
  */
 @RestController
 @RequestMapping("/api/test-sessions")
@@ -24,26 +43,49 @@ import java.util.List;
 @Slf4j
 public class TestSessionController {
 
+    private static final String VIEW_ACK = "ack";
+    private static final String VIEW_FULL = "full";
+
     private final TestSessionService testSessionService;
+    private final StartTestAdmission startTestAdmission;
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
 
     /**
      * Start a new test session
      */
     @PostMapping("/start")
-    public ResponseEntity<?> startTest(@Valid @RequestBody StartTestRequest request) {
+    public ResponseEntity<?> startTest(
+            @Valid @RequestBody StartTestRequest request,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
         log.info("POST /api/test-sessions/start - Starting test for USN: {}", request.getUsn());
+        Long examWindowId = testSessionService.findExamWindowId(request.getUsn(), request.getQuestionSetId())
+            .orElse(null);
+        // Admitted before the key is claimed, so a rejected start costs no idempotency row write
+        try (StartTestAdmission.Ticket ticket = startTestAdmission.admit(request.getQuestionSetId(), examWindowId)) {
+            return idempotencyStore.execute(idempotencyKey, "start:" + request.getUsn(), request,
+                    () -> doStartTest(request));
+        } catch (AdmissionRejectedException e) {
+            long retryAfterMs = e.getRetryAfterMillis();
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMs + 999) / 1000))
+                .body(Map.of("error", e.getMessage(), "retryAfterMs", retryAfterMs));
+        }
+    }
+
+    private ResponseEntity<?> doStartTest(StartTestRequest request) {
         try {
             TestSession session = testSessionService.startTest(request);
             
-            // Also fetch the question set to return to the client
-            QuestionSetDTO questionSet = testSessionService.fetchQuestionSet(request.getQuestionSetId());
+            // Also return the student view of the question set, already serialized by Question Service
+            String questionSet = testSessionService.fetchQuestionSetJson(request.getQuestionSetId());
             
             // Return both session and questions
             return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
                 "session", session,
-                "questionSet", questionSet
+                "questionSet", new RawValue(questionSet)
             ));
-        } catch (IllegalArgumentException e) {
+        } catch (IllegalArgumentException | IllegalStateException e) {
             log.error("Validation error: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
@@ -75,13 +117,49 @@ public class TestSessionController {
     }
 
     /**
-     * Get all test sessions (for admin)
+     * Get a page of test sessions (for admin), newest first
+     * Answers are not included; pass nextCursor as cursor to get the next page
      */
     @GetMapping
-    public ResponseEntity<List<TestSession>> getAllTestSessions() {
-        log.info("GET /api/test-sessions - Fetching all test sessions");
-        List<TestSession> sessions = testSessionService.getAllTestSessions();
-        return ResponseEntity.ok(sessions);
+    public ResponseEntity<TestSessionPage> getTestSessions(
+            @RequestParam(required = false) TestSession.TestStatus status,
+            @RequestParam(required = false) Integer semester,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) Long questionSetId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("GET /api/test-sessions - Fetching test sessions after cursor {}", cursor);
+        TestSessionFilter filter = new TestSessionFilter(status, semester, department, questionSetId);
+        return ResponseEntity.ok(testSessionService.getTestSessions(filter, cursor, limit));
+    }
+
+    /**
+     * Export test sessions (for admin) as NDJSON or CSV
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportTestSessions(
+            @RequestParam(required = false) TestSession.TestStatus status,
+            @RequestParam(required = false) Integer semester,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) Long questionSetId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        log.info("GET /api/test-sessions/export - Exporting test sessions as {}", format);
+        MediaType mediaType;
+        if ("ndjson".equalsIgnoreCase(format)) {
+            mediaType = MediaType.APPLICATION_NDJSON;
+        } else if ("csv".equalsIgnoreCase(format)) {
+            mediaType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unsupported export format: " + format));
+        }
+
+        TestSessionFilter filter = new TestSessionFilter(status, semester, department, questionSetId);
+        StreamingResponseBody body = out -> testSessionService.exportTestSessions(filter, format, out);
+        return ResponseEntity.ok()
+            .contentType(mediaType)
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"test-sessions." + format.toLowerCase() + "\"")
+            .body(body);
     }
 
     /**
@@ -90,13 +168,52 @@ public class TestSessionController {
     @PutMapping("/{id}/answer")
     public ResponseEntity<?> submitAnswer(
             @PathVariable Long id,
-            @Valid @RequestBody SubmitAnswerRequest request) {
+            @Valid @RequestBody SubmitAnswerRequest request,
+            @RequestParam(defaultValue = VIEW_ACK) String view,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
         log.info("PUT /api/test-sessions/{}/answer - Submitting answer for question {}", 
                 id, request.getQuestionId());
+        if (!isSupportedView(view)) {
+            return unsupportedView(view);
+        }
+        // The full session is remembered, so a replay can be rendered in either view
+        return inView(idempotencyStore.executeWriteBehind(idempotencyKey, "answer:" + id, request,
+                () -> doSubmitAnswer(id, request)), view);
+    }
+
+    private ResponseEntity<?> doSubmitAnswer(Long id, SubmitAnswerRequest request) {
         try {
             TestSession updated = testSessionService.submitAnswer(id, request);
             return ResponseEntity.ok(updated);
-        } catch (IllegalStateException e) {
+        } catch (WriteUnavailableException e) {
+            return retryLater(e);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Submit a batch of buffered answers
+     */
+    @PutMapping("/{id}/answers")
+    public ResponseEntity<?> submitAnswers(
+            @PathVariable Long id,
+            @Valid @RequestBody SubmitAnswersRequest request,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        log.info("PUT /api/test-sessions/{}/answers - Submitting {} answers", id, request.getAnswers().size());
+        return idempotencyStore.executeWriteBehind(idempotencyKey, "answers:" + id, request,
+                () -> doSubmitAnswers(id, request));
+    }
+
+    private ResponseEntity<?> doSubmitAnswers(Long id, SubmitAnswersRequest request) {
+        try {
+            AnswerBatchAck ack = testSessionService.submitAnswers(id, request);
+            return ResponseEntity.ok(ack);
+        } catch (WriteUnavailableException e) {
+            return retryLater(e);
+        } catch (IllegalArgumentException | IllegalStateException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -107,11 +224,24 @@ public class TestSessionController {
      * Submit the entire test
      */
     @PostMapping("/{id}/submit")
-    public ResponseEntity<?> submitTest(@PathVariable Long id) {
+    public ResponseEntity<?> submitTest(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = VIEW_ACK) String view,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
         log.info("POST /api/test-sessions/{}/submit - Submitting test", id);
+        if (!isSupportedView(view)) {
+            return unsupportedView(view);
+        }
+        return inView(idempotencyStore.execute(idempotencyKey, "submit:" + id, null,
+                () -> doSubmitTest(id)), view);
+    }
+
+    private ResponseEntity<?> doSubmitTest(Long id) {
         try {
             TestSession completed = testSessionService.submitTest(id);
             return ResponseEntity.ok(completed);
+        } catch (WriteUnavailableException e) {
+            return retryLater(e);
         } catch (IllegalStateException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
@@ -119,6 +249,55 @@ public class TestSessionController {
         }
     }
 
+    /**
+     * Get the backlog of undelivered outbox events
+     */
+    @GetMapping("/outbox/stats")
+    public ResponseEntity<OutboxStats> getOutboxStats() {
+        log.info("GET /api/test-sessions/outbox/stats - Fetching outbox stats");
+        return ResponseEntity.ok(testSessionService.getOutboxStats());
+    }
+
+    /**
+     * The write was accepted but not persisted; 503 so clients retry it with the same key
+     */
+    private static ResponseEntity<?> retryLater(WriteUnavailableException e) {
+        long retryAfterMs = e.getRetryAfterMillis();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMs + 999) / 1000))
+            .body(Map.of("error", e.getMessage(), "retryAfterMs", retryAfterMs));
+    }
+
+    private static boolean isSupportedView(String view) {
+        return VIEW_ACK.equals(view) || VIEW_FULL.equals(view);
+    }
+
+    private static ResponseEntity<?> unsupportedView(String view) {
+        return ResponseEntity.badRequest().body(Map.of("error", "Unsupported view: " + view));
+    }
+
+    /**
+     * Render the full session of a write response, fresh or replayed as stored JSON, in the requested view
+     */
+    private ResponseEntity<?> inView(ResponseEntity<?> response, String view) {
+        if (VIEW_FULL.equals(view) || !response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        TestSession session;
+        if (response.getBody() instanceof String stored) {
+            try {
+                session = objectMapper.readValue(stored, TestSession.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to read stored response", e);
+            }
+        } else {
+            session = (TestSession) response.getBody();
+        }
+        return ResponseEntity.status(response.getStatusCode())
+            .headers(response.getHeaders())
+            .body(SessionWriteAck.of(session));
+    }
+
     // Helper class for Map.of() - Java 9+
     private static class Map {
         public static <K, V> java.util.Map<K, V> of(K k1, V v1) {
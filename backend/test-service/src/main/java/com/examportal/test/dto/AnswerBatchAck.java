@@ -0,0 +1,20 @@
+package com.examportal.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Answer Batch Acknowledgement DTO
+ * Response for a batch submission. Clients may drop every buffered
+ * answer with a sequence number up to appliedSeq.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnswerBatchAck {
+    private Long sessionId;
+    private Long appliedSeq;   // Highest client sequence number accepted for the session
+    private Integer applied;   // Entries that changed an answer
+    private Integer superseded; // Entries older than the answer already stored for their question
+}
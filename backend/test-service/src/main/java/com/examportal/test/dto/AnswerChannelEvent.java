@@ -0,0 +1,56 @@
+package com.examportal.test.dto;
+
+import com.examportal.test.entity.TestSession;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Answer Channel Event DTO
+ * Message pushed to clients on the live answer channel
+ * - ACK: answers applied up to appliedSeq, as for a batch submission
+ * - TICK: seconds left until the deadline, null for untimed sessions
+ * - COMPLETED: the session was submitted (by the student or at the deadline); the channel closes
+ * - ERROR: a message was rejected; earlier acks still hold
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AnswerChannelEvent {
+
+    private Type type;
+    private Long sessionId;
+    private Long appliedSeq;
+    private Integer applied;
+    private Integer superseded;
+    private Long secondsLeft;
+    private TestSession.TestStatus status;
+    private String error;
+
+    public enum Type {
+        ACK,
+        TICK,
+        COMPLETED,
+        ERROR
+    }
+
+    public static AnswerChannelEvent ack(AnswerBatchAck ack) {
+        return new AnswerChannelEvent(Type.ACK, ack.getSessionId(), ack.getAppliedSeq(), ack.getApplied(),
+            ack.getSuperseded(), null, null, null);
+    }
+
+    public static AnswerChannelEvent tick(Long sessionId, Long secondsLeft) {
+        return new AnswerChannelEvent(Type.TICK, sessionId, null, null, null, secondsLeft, null, null);
+    }
+
+    public static AnswerChannelEvent completed(Long sessionId) {
+        return new AnswerChannelEvent(Type.COMPLETED, sessionId, null, null, null, null,
+            TestSession.TestStatus.COMPLETED, null);
+    }
+
+    public static AnswerChannelEvent error(Long sessionId, String error) {
+        return new AnswerChannelEvent(Type.ERROR, sessionId, null, null, null, null, null, error);
+    }
+}
@@ -0,0 +1,28 @@
+package com.examportal.test.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Answer Entry DTO
+ * A single buffered answer inside a batch submission
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnswerEntry {
+
+    @NotNull(message = "Question ID is required")
+    private Long questionId;
+
+    @NotBlank(message = "Selected option is required")
+    private String selectedOption; // A, B, C, or D
+
+    @NotNull(message = "Client sequence number is required")
+    @Positive(message = "Client sequence number must be positive")
+    private Long clientSeq; // Increasing per session on the client
+}
@@ -0,0 +1,37 @@
+package com.examportal.test.dto;
+
+import com.examportal.test.entity.RosterEntry;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Create Exam Window Request DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateExamWindowRequest {
+
+    @NotNull(message = "Question set ID is required")
+    private Long questionSetId;
+
+    @NotNull(message = "Start time is required")
+    @Future(message = "Start time must be in the future")
+    private LocalDateTime startTime;
+
+    @NotNull(message = "Duration is required")
+    @Positive(message = "Duration must be positive")
+    private Integer durationMinutes;
+
+    @NotEmpty(message = "Roster must not be empty")
+    private List<@Valid RosterEntry> roster;
+}
@@ -0,0 +1,31 @@
+package com.examportal.test.dto;
+
+import com.examportal.test.entity.ExamWindow;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Exam Window Summary DTO
+ * Exam window without its roster
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamWindowSummary {
+    private Long id;
+    private Long questionSetId;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Integer durationMinutes;
+    private ExamWindow.WindowStatus status;
+    private int rosterSize;
+    private LocalDateTime preparedAt;
+
+    public static ExamWindowSummary of(ExamWindow window, int rosterSize) {
+        return new ExamWindowSummary(window.getId(), window.getQuestionSetId(), window.getStartTime(),
+            window.getEndTime(), window.getDurationMinutes(), window.getStatus(), rosterSize, window.getPreparedAt());
+    }
+}
@@ -0,0 +1,21 @@
+package com.examportal.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox Stats DTO
+ * Backlog of undelivered outbox events
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxStats {
+    private long pending;
+    private long dead;
+    private LocalDateTime oldestPendingCreatedAt;
+    private long lagSeconds; // Age of the oldest pending event, 0 when drained
+}
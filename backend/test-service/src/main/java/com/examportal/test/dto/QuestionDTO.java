@@ -6,7 +6,7 @@ import lombok.NoArgsConstructor;
 
 /**
  * Question DTO
- * Mirrors the Question entity from Question Service
+ * Question from the student view of Question Service, without the answer key
  */
 @Data
 @NoArgsConstructor
@@ -18,7 +18,4 @@ public class QuestionDTO {
     private String optionB;
     private String optionC;
     private String optionD;
-    private String correctOption;
-    private Integer semester;
-    private String department;
 }
@@ -8,7 +8,7 @@ import java.util.Set;
 
 /**
  * QuestionSet DTO
- * Mirrors the QuestionSet entity from Question Service
+ * Student view of a question set from Question Service
  */
 @Data
 @NoArgsConstructor
@@ -19,5 +19,7 @@ public class QuestionSetDTO {
     private String description;
     private Integer semester;
     private String department;
+    private Integer durationMinutes;
     private Set<QuestionDTO> questions;
+    private Long version;
 }
@@ -0,0 +1,19 @@
+package com.examportal.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Session Deadline DTO
+ * ID and deadline of a timed IN_PROGRESS session, used to rebuild expiry timers
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionDeadline {
+    private Long id;
+    private LocalDateTime deadline;
+}
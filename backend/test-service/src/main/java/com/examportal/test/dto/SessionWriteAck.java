@@ -0,0 +1,31 @@
+package com.examportal.test.dto;
+
+import com.examportal.test.entity.TestSession;
+import com.examportal.test.util.AnswerCodec;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Session Write Acknowledgement DTO
+ * Default response for answer and submit writes, without the session's answers.
+ * Clients that need the whole session ask for view=full.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionWriteAck {
+    private Long sessionId;
+    private Long version;        // Last persisted version; answers may still be buffered in memory
+    private Integer answeredCount;
+    private TestSession.TestStatus status;
+
+    public static SessionWriteAck of(TestSession session) {
+        byte[] bits = session.getAnswerBits();
+        // Positions past the last question are never set, so counting over the whole array is exact
+        int answered = bits != null
+            ? AnswerCodec.countAnswered(bits, bits.length * 8 / AnswerCodec.BITS_PER_ANSWER)
+            : 0;
+        return new SessionWriteAck(session.getId(), session.getVersion(), answered, session.getStatus());
+    }
+}
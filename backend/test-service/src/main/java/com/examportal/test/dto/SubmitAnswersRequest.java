@@ -0,0 +1,22 @@
+package com.examportal.test.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Submit Answers Request DTO
+ * Request body for submitting a batch of buffered answers
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmitAnswersRequest {
+
+    @NotEmpty(message = "At least one answer is required")
+    private List<@Valid AnswerEntry> answers;
+}
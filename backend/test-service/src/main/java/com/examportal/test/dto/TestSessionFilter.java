@@ -0,0 +1,20 @@
+package com.examportal.test.dto;
+
+import com.examportal.test.entity.TestSession;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Test Session Filter DTO
+ * Optional filters for listing and exporting test sessions; null fields match everything
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestSessionFilter {
+    private TestSession.TestStatus status;
+    private Integer semester;
+    private String department;
+    private Long questionSetId;
+}
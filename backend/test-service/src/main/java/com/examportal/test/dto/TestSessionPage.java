@@ -0,0 +1,19 @@
+package com.examportal.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Test Session Page DTO
+ * One page of test sessions, newest first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestSessionPage {
+    private List<TestSessionSummary> items;
+    private Long nextCursor; // Pass as cursor to fetch the next page; null on the last page
+}
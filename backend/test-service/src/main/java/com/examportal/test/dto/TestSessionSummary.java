@@ -0,0 +1,27 @@
+package com.examportal.test.dto;
+
+import com.examportal.test.entity.TestSession;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Test Session Summary DTO
+ * Test session without its answers, used for listings and exports
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestSessionSummary {
+    private Long id;
+    private String usn;
+    private String studentName;
+    private Integer semester;
+    private String department;
+    private Long questionSetId;
+    private TestSession.TestStatus status;
+    private LocalDateTime startTime;
+    private LocalDateTime submittedAt;
+}
@@ -0,0 +1,71 @@
+package com.examportal.test.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ExamWindow Entity
+ * A scheduled sitting of a question set by a roster of students.
+ * Shortly before it opens its question set is cached and a PENDING session is created per student.
+ */
+@Entity
+@Table(name = "exam_windows", indexes = {
+    @Index(name = "idx_exam_windows_status_start", columnList = "status, startTime")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamWindow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull(message = "Question set ID is required")
+    @Column(nullable = false)
+    private Long questionSetId;
+
+    @NotNull(message = "Start time is required")
+    @Column(nullable = false)
+    private LocalDateTime startTime;
+
+    @NotNull(message = "Duration is required")
+    @Positive(message = "Duration must be positive")
+    @Column(nullable = false)
+    private Integer durationMinutes;
+
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "exam_window_roster", joinColumns = @JoinColumn(name = "exam_window_id"))
+    private List<RosterEntry> roster = new ArrayList<>();
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private WindowStatus status = WindowStatus.SCHEDULED;
+
+    private LocalDateTime claimedAt; // When an instance started preparing; a stale claim is taken over
+
+    private LocalDateTime preparedAt;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    public LocalDateTime getEndTime() {
+        return startTime.plusMinutes(durationMinutes);
+    }
+
+    public enum WindowStatus {
+        SCHEDULED,
+        PREPARING,
+        PREPARED
+    }
+}
@@ -0,0 +1,39 @@
+package com.examportal.test.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * IdempotencyRecord Entity
+ * Successful response to a request sent with an Idempotency-Key,
+ * replayed when the client retries the same request
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+    @Index(name = "idx_idempotency_expires_at", columnList = "expiresAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 255)
+    private String scopedKey; // Operation scope and client key
+
+    @Column(nullable = false, length = 64)
+    private String requestHash; // SHA-256 of the request body
+
+    @Column(nullable = false)
+    private Integer statusCode;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody; // JSON
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,32 @@
+package com.examportal.test.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * RosterEntry Embeddable
+ * A student expected to sit an exam window
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RosterEntry {
+
+    @NotBlank(message = "USN is required")
+    @Column(nullable = false)
+    private String usn;
+
+    @NotBlank(message = "Student name is required")
+    @Column(nullable = false)
+    private String studentName;
+
+    @NotNull(message = "Semester is required")
+    @Column(nullable = false)
+    private Integer semester;
+}
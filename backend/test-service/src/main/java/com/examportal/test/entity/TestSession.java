@@ -15,7 +15,18 @@ import java.time.LocalDateTime;
  * Represents a test session with student information embedded
  */
 @Entity
-@Table(name = "test_sessions")
+@Table(name = "test_sessions", indexes = {
+    // Keyset pagination walks id downwards after the equality filters
+    @Index(name = "idx_sessions_status_id", columnList = "status, id"),
+    @Index(name = "idx_sessions_semester_department_id", columnList = "semester, department, id"),
+    @Index(name = "idx_sessions_question_set_status_id", columnList = "questionSetId, status, id"),
+    @Index(name = "idx_sessions_usn", columnList = "usn"),
+    @Index(name = "idx_sessions_usn_key", columnList = "usnKey, questionSetId"),
+    // Picks up recently started sessions for the expiry timers
+    @Index(name = "idx_sessions_status_start_time", columnList = "status, startTime")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_sessions_exam_window_usn", columnNames = {"examWindowId", "usn"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,6 +40,8 @@ public class TestSession {
     @Column(nullable = false)
     private String usn;
 
+    private Long usnKey; // Packed USN, see UsnCodec; null only for rows not yet backfilled
+
     @NotBlank(message = "Student name is required")
     @Column(nullable = false)
     private String studentName;
@@ -47,14 +60,24 @@ public class TestSession {
     @Column(nullable = false)
     private Long questionSetId;
 
+    private Long examWindowId; // Set for sessions pre-created for a scheduled exam window
+
     @CreationTimestamp
-    @Column(nullable = false, updatable = false)
-    private LocalDateTime startTime;
+    @Column(nullable = false)
+    private LocalDateTime startTime; // Scheduled window start while PENDING, actual start afterwards
 
     private LocalDateTime endTime;
 
+    private LocalDateTime deadline; // Auto-submitted at this time, null for untimed sessions
+
     @Column(columnDefinition = "TEXT")
-    private String answers; // JSON string: {"1": "A", "2": "B", ...}
+    private String answers; // Legacy JSON string: {"1": "A", "2": "B", ...}, migrated to answerBits on first write
+
+    @Column(length = 1024)
+    private byte[] answerBits; // 3 bits per question, see AnswerCodec
+
+    @Column(length = 8192)
+    private byte[] answerLayout; // Question IDs in answer position order when the session started, see AnswerCodec.encodeLayout
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -62,7 +85,12 @@ public class TestSession {
 
     private LocalDateTime submittedAt;
 
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version; // Guards concurrent answer writes from several instances
+
     public enum TestStatus {
+        PENDING,
         IN_PROGRESS,
         COMPLETED
     }
@@ -0,0 +1,27 @@
+package com.examportal.test.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * TimerInstance Entity
+ * Heartbeat of an instance running expiry timers, used to share timer partitions evenly
+ */
+@Entity
+@Table(name = "timer_instances")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimerInstance {
+
+    @Id
+    @Column(length = 128)
+    private String instanceId;
+
+    @Column(nullable = false)
+    private LocalDateTime heartbeatAt;
+}
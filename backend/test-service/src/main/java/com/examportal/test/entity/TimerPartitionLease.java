@@ -0,0 +1,33 @@
+package com.examportal.test.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * TimerPartitionLease Entity
+ * Lease on one partition of test sessions (session ID modulo the partition count).
+ * The instance holding the lease runs the expiry timers of the partition's sessions.
+ */
+@Entity
+@Table(name = "timer_partition_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimerPartitionLease {
+
+    @Id
+    private Integer partitionId;
+
+    @Column(length = 128)
+    private String owner; // Null while unowned
+
+    private LocalDateTime leaseUntil;
+
+    public static TimerPartitionLease unowned(int partitionId) {
+        return new TimerPartitionLease(partitionId, null, null);
+    }
+}
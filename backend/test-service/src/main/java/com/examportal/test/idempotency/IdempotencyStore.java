@@ -0,0 +1,498 @@
+package com.examportal.test.idempotency;
+
+import com.examportal.test.entity.IdempotencyRecord;
+import com.examportal.test.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency Store
+ * Remembers successful responses to requests sent with an Idempotency-Key, so that
+ * a client retrying after a lost response gets the original response back instead
+ * of the request being applied again.
+ * - Keys are scoped to the operation and test session they were sent for
+ * - Responses live in a bounded in-memory store, evicted after memory-ttl-ms, and in the
+ *   idempotency_keys table, kept for ttl-ms, so retries landing on another instance
+ *   or after a restart are still recognized
+ * - {@link #execute} claims the key in the table before running the request and stores the
+ *   response there before returning it, so a retry on any instance never runs it twice
+ * - {@link #executeWriteBehind} is for answer writes: responses are written behind in batches,
+ *   and a key is only looked up in the table if the recent key filter has seen it recorded
+ *   by any instance. A retry reaching another instance before the write and the next poll
+ *   of the filter runs again, which answer writes tolerate.
+ * - A retry arriving while the original request is still running waits for its response,
+ *   or gets 409 if the original runs on another instance
+ * - Reusing a key with a different request body is rejected with 422
+ * Failed requests are not remembered, so they can be retried with the same key.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private static final String INSERT_RECORD =
+        "INSERT INTO idempotency_keys (scoped_key, request_hash, status_code, response_body, expires_at) "
+            + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE scoped_key = scoped_key";
+    private static final String INSERT_CLAIM =
+        "INSERT INTO idempotency_keys (scoped_key, request_hash, status_code, expires_at) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_RECORD =
+        "SELECT scoped_key, request_hash, status_code, response_body, expires_at FROM idempotency_keys WHERE scoped_key = ?";
+    private static final String COMPLETE_CLAIM =
+        "UPDATE idempotency_keys SET status_code = ?, response_body = ?, expires_at = ? WHERE scoped_key = ?";
+    private static final String RELEASE_CLAIM = "DELETE FROM idempotency_keys WHERE scoped_key = ? AND status_code = ?";
+    private static final String DELETE_EXPIRED_KEY = "DELETE FROM idempotency_keys WHERE scoped_key = ? AND expires_at <= ?";
+    private static final String SELECT_RECENT_KEYS =
+        "SELECT scoped_key, expires_at FROM idempotency_keys WHERE expires_at > ? ORDER BY expires_at LIMIT ?";
+    private static final int CLAIMED = 0; // Status code of a key whose request is still running
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(5);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, StoredResponse> responses = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Queue<IdempotencyRecord> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+    private final Counter mismatches;
+    private final Counter skippedLookups;
+
+    private RecentKeyFilter recentKeys;
+    private LocalDateTime polledUpTo;
+
+    @Value("${test-session.idempotency.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${test-session.idempotency.memory-ttl-ms:600000}")
+    private long memoryTtlMillis;
+
+    @Value("${test-session.idempotency.ttl-ms:86400000}")
+    private long ttlMillis;
+
+    @Value("${test-session.idempotency.in-flight-wait-ms:10000}")
+    private long inFlightWaitMillis;
+
+    @Value("${test-session.idempotency.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    @Value("${test-session.idempotency.claim-ttl-ms:60000}")
+    private long claimTtlMillis;
+
+    @Value("${test-session.idempotency.recent-keys.expected-keys:1000000}")
+    private int recentKeysExpected;
+
+    @Value("${test-session.idempotency.recent-keys.false-positive-rate:0.01}")
+    private double recentKeysFalsePositiveRate;
+
+    @Value("${test-session.idempotency.recent-keys.rotate-ms:300000}")
+    private long recentKeysRotateMillis;
+
+    public IdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository,
+                            JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.memoryHits = meterRegistry.counter("idempotency.requests", "result", "hit", "source", "memory");
+        this.databaseHits = meterRegistry.counter("idempotency.requests", "result", "hit", "source", "database");
+        this.misses = meterRegistry.counter("idempotency.requests", "result", "miss", "source", "none");
+        this.mismatches = meterRegistry.counter("idempotency.requests", "result", "mismatch", "source", "none");
+        this.skippedLookups = meterRegistry.counter("idempotency.lookups.skipped");
+        Gauge.builder("idempotency.cache.size", responses, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        recentKeys = new RecentKeyFilter(recentKeysExpected, recentKeysFalsePositiveRate);
+    }
+
+    /**
+     * Run the action once per key: the first request runs it, retries get its response back.
+     * The key is claimed and the response stored in the database synchronously.
+     * Without a key the action simply runs.
+     */
+    public ResponseEntity<?> execute(String key, String scope, Object request, Supplier<ResponseEntity<?>> action) {
+        return run(key, scope, request, action, true);
+    }
+
+    /**
+     * Like {@link #execute}, but the response is written to the database behind the request,
+     * for frequent writes that may safely run twice in the rare cross-instance retry
+     */
+    public ResponseEntity<?> executeWriteBehind(String key, String scope, Object request,
+                                                Supplier<ResponseEntity<?>> action) {
+        return run(key, scope, request, action, false);
+    }
+
+    private ResponseEntity<?> run(String key, String scope, Object request, Supplier<ResponseEntity<?>> action,
+                                  boolean durable) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", HEADER + " must be at most " + MAX_KEY_LENGTH + " characters"));
+        }
+
+        String scopedKey = scope + ":" + key;
+        String requestHash = hash(request);
+
+        // Durable keys are claimed in the database instead of looked up there
+        StoredResponse stored = durable ? cached(scopedKey) : lookup(scopedKey);
+        if (stored != null) {
+            return replay(stored, requestHash);
+        }
+
+        CompletableFuture<StoredResponse> claim = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(scopedKey, claim);
+        if (running != null) {
+            return awaitRunning(running, requestHash, action);
+        }
+
+        boolean claimedInDatabase = false;
+        try {
+            // The original may have completed between the lookup and the claim
+            stored = responses.get(scopedKey);
+            if (stored != null) {
+                claim.complete(stored);
+                return replay(stored, requestHash);
+            }
+
+            if (durable) {
+                IdempotencyRecord first = claimInDatabase(scopedKey, requestHash);
+                if (first != null && first.getStatusCode() == CLAIMED) {
+                    claim.complete(null);
+                    return stillRunning();
+                }
+                if (first != null) {
+                    databaseHits.increment();
+                    stored = toStored(first);
+                    cache(scopedKey, stored);
+                    claim.complete(stored);
+                    return replay(stored, requestHash);
+                }
+                claimedInDatabase = true;
+            }
+
+            misses.increment();
+            ResponseEntity<?> response = action.get();
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                if (claimedInDatabase) {
+                    releaseClaim(scopedKey);
+                }
+                claim.complete(null);
+                return response;
+            }
+
+            stored = new StoredResponse(requestHash, response.getStatusCode().value(),
+                objectMapper.writeValueAsString(response.getBody()), System.currentTimeMillis());
+            remember(scopedKey, stored, durable);
+            claim.complete(stored);
+            return response;
+        } catch (JsonProcessingException e) {
+            if (claimedInDatabase) {
+                releaseClaim(scopedKey);
+            }
+            claim.complete(null);
+            throw new IllegalStateException("Failed to serialize response", e);
+        } catch (RuntimeException e) {
+            if (claimedInDatabase) {
+                releaseClaim(scopedKey);
+            }
+            claim.complete(null);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, claim);
+        }
+    }
+
+    /**
+     * Write remembered responses to the database
+     */
+    @Scheduled(fixedDelayString = "${test-session.idempotency.flush-interval-ms:1000}")
+    public void flush() {
+        List<IdempotencyRecord> batch = new ArrayList<>(flushBatchSize);
+        IdempotencyRecord record;
+        do {
+            batch.clear();
+            while (batch.size() < flushBatchSize && (record = pendingWrites.poll()) != null) {
+                batch.add(record);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_RECORD, batch,
+                    batch.size(), (ps, r) -> {
+                        ps.setString(1, r.getScopedKey());
+                        ps.setString(2, r.getRequestHash());
+                        ps.setInt(3, r.getStatusCode());
+                        ps.setString(4, r.getResponseBody());
+                        ps.setTimestamp(5, Timestamp.valueOf(r.getExpiresAt()));
+                    }));
+            } catch (RuntimeException e) {
+                // Still answered from memory on this instance until evicted
+                log.warn("Failed to persist {} idempotency keys: {}", batch.size(), e.getMessage());
+            }
+        } while (batch.size() == flushBatchSize);
+    }
+
+    /**
+     * Remove expired keys from the database
+     */
+    @Scheduled(fixedDelayString = "${test-session.idempotency.cleanup-interval-ms:600000}")
+    public void removeExpired() {
+        Integer removed = transactionTemplate.execute(status ->
+            idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        log.debug("Removed {} expired idempotency keys", removed);
+    }
+
+    /**
+     * Add the keys recorded by every instance since the last poll to the recent key filter
+     */
+    @Scheduled(fixedDelayString = "${test-session.idempotency.recent-keys.poll-interval-ms:1000}")
+    public void pollRecentKeys() {
+        // Expiry is recording time plus ttl-ms, so it orders keys by when they were recorded;
+        // the first poll goes back as far as the filter remembers
+        LocalDateTime from = polledUpTo != null
+            ? polledUpTo.minus(CLOCK_SKEW)
+            : LocalDateTime.now().plus(Duration.ofMillis(ttlMillis - 2 * recentKeysRotateMillis));
+        LocalDateTime newest = from;
+        try {
+            int read;
+            do {
+                List<LocalDateTime> page = jdbcTemplate.query(SELECT_RECENT_KEYS, (rs, row) -> {
+                    recentKeys.add(rs.getString(1));
+                    return rs.getTimestamp(2).toLocalDateTime();
+                }, Timestamp.valueOf(newest), flushBatchSize);
+                read = page.size();
+                if (read > 0) {
+                    newest = page.get(read - 1);
+                }
+            } while (read == flushBatchSize);
+            polledUpTo = polledUpTo == null || newest.isAfter(polledUpTo) ? newest : polledUpTo;
+        } catch (DataAccessException e) {
+            log.warn("Failed to poll recent idempotency keys: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Forget the keys recorded more than two rotations ago
+     */
+    @Scheduled(fixedDelayString = "${test-session.idempotency.recent-keys.rotate-ms:300000}",
+        initialDelayString = "${test-session.idempotency.recent-keys.rotate-ms:300000}")
+    public void rotateRecentKeys() {
+        recentKeys.rotate();
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+
+    private StoredResponse cached(String scopedKey) {
+        StoredResponse stored = responses.get(scopedKey);
+        if (stored != null && !stored.isExpired(memoryTtlMillis)) {
+            memoryHits.increment();
+            return stored;
+        }
+        return null;
+    }
+
+    private StoredResponse lookup(String scopedKey) {
+        StoredResponse stored = cached(scopedKey);
+        if (stored != null) {
+            return stored;
+        }
+        if (!recentKeys.mightContain(scopedKey)) {
+            // Not recorded by any instance as of the last poll, typically a fresh key
+            skippedLookups.increment();
+            return null;
+        }
+
+        IdempotencyRecord record = idempotencyRecordRepository
+            .findByScopedKeyAndExpiresAtAfter(scopedKey, LocalDateTime.now())
+            .orElse(null);
+        if (record == null || record.getStatusCode() == CLAIMED) {
+            return null;
+        }
+        databaseHits.increment();
+        stored = toStored(record);
+        cache(scopedKey, stored);
+        return stored;
+    }
+
+    /**
+     * Claim a key in the database. Returns null if this request now owns the key,
+     * otherwise the row of the request that used the key first, which may still be running.
+     */
+    private IdempotencyRecord claimInDatabase(String scopedKey, String requestHash) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                jdbcTemplate.update(INSERT_CLAIM, scopedKey, requestHash, CLAIMED,
+                    Timestamp.valueOf(now.plus(Duration.ofMillis(claimTtlMillis))));
+                return null;
+            } catch (DuplicateKeyException e) {
+                // Read with JDBC, an open session may hold a stale copy of the row
+                IdempotencyRecord first = jdbcTemplate.query(SELECT_RECORD, (rs, row) -> new IdempotencyRecord(
+                    rs.getString(1), rs.getString(2), rs.getInt(3), rs.getString(4),
+                    rs.getTimestamp(5).toLocalDateTime()), scopedKey).stream().findFirst().orElse(null);
+                if (first != null && first.getExpiresAt().isAfter(now)) {
+                    return first;
+                }
+                // Released meanwhile, or left behind expired, e.g. by an instance that crashed mid-request
+                jdbcTemplate.update(DELETE_EXPIRED_KEY, scopedKey, Timestamp.valueOf(now));
+            }
+        }
+        // Lost the key to another request twice in a row
+        return new IdempotencyRecord(scopedKey, requestHash, CLAIMED, null, LocalDateTime.now());
+    }
+
+    private void releaseClaim(String scopedKey) {
+        try {
+            jdbcTemplate.update(RELEASE_CLAIM, scopedKey, CLAIMED);
+        } catch (DataAccessException e) {
+            // The claim expires after claim-ttl-ms, retries get 409 until then
+            log.warn("Failed to release idempotency key claim: {}", e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> awaitRunning(CompletableFuture<StoredResponse> running, String requestHash,
+                                           Supplier<ResponseEntity<?>> action) {
+        StoredResponse stored;
+        try {
+            stored = running.get(inFlightWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return stillRunning();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request", e);
+        } catch (ExecutionException e) {
+            stored = null;
+        }
+        if (stored == null) {
+            // The original failed and was not remembered; this retry gets its own outcome
+            return action.get();
+        }
+        memoryHits.increment();
+        return replay(stored, requestHash);
+    }
+
+    private static ResponseEntity<?> stillRunning() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .body(Map.of("error", "A request with this " + HEADER + " is still being processed"));
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            mismatches.increment();
+            return ResponseEntity.unprocessableEntity()
+                .body(Map.of("error", HEADER + " was already used for a different request"));
+        }
+        return ResponseEntity.status(stored.statusCode())
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(REPLAYED_HEADER, "true")
+            .body(stored.body());
+    }
+
+    private void remember(String scopedKey, StoredResponse stored, boolean durable) {
+        cache(scopedKey, stored);
+        recentKeys.add(scopedKey);
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+        if (!durable) {
+            pendingWrites.add(new IdempotencyRecord(scopedKey, stored.requestHash(), stored.statusCode(), stored.body(),
+                expiresAt));
+            return;
+        }
+        try {
+            jdbcTemplate.update(COMPLETE_CLAIM, stored.statusCode(), stored.body(), Timestamp.valueOf(expiresAt), scopedKey);
+        } catch (DataAccessException e) {
+            // The request did run; only this instance can replay it until the claim expires
+            log.warn("Failed to store idempotent response: {}", e.getMessage());
+        }
+    }
+
+    private static StoredResponse toStored(IdempotencyRecord record) {
+        return new StoredResponse(record.getRequestHash(), record.getStatusCode(), record.getResponseBody(),
+            System.currentTimeMillis());
+    }
+
+    private void cache(String scopedKey, StoredResponse stored) {
+        if (responses.put(scopedKey, stored) == null) {
+            insertionOrder.add(scopedKey);
+        }
+        // Entries share one TTL, so insertion order is also expiry order
+        String oldest;
+        while ((oldest = insertionOrder.peek()) != null) {
+            StoredResponse candidate = responses.get(oldest);
+            boolean evict = candidate == null || candidate.isExpired(memoryTtlMillis) || responses.size() > maxEntries;
+            if (!evict || !insertionOrder.remove(oldest)) {
+                break;
+            }
+            if (candidate != null) {
+                responses.remove(oldest, candidate);
+            }
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] body = request != null ? objectMapper.writeValueAsBytes(request) : new byte[0];
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to hash request", e);
+        }
+    }
+
+    private record StoredResponse(String requestHash, int statusCode, String body, long cachedAtMillis) {
+        boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - cachedAtMillis >= ttlMillis;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.examportal.test.idempotency;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Recent Key Filter
+ * Bloom filter of recently recorded idempotency keys. A key it has never seen cannot have
+ * a stored response, so its database lookup is skipped; a false positive only costs that lookup.
+ * Two generations are kept and rotated, so a key is remembered for one to two rotation intervals.
+ */
+final class RecentKeyFilter {
+
+    private final int words;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile AtomicLongArray current;
+    private volatile AtomicLongArray previous;
+
+    RecentKeyFilter(int expectedKeys, double falsePositiveRate) {
+        if (expectedKeys <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Recent key filter needs expected keys > 0 and a rate in (0, 1)");
+        }
+        double optimalBits = -expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.words = (int) Math.max(1, Math.ceil(optimalBits / Long.SIZE));
+        this.bitCount = (long) words * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round(bitCount / (double) expectedKeys * Math.log(2)));
+        this.current = new AtomicLongArray(words);
+        this.previous = new AtomicLongArray(words);
+    }
+
+    void add(String key) {
+        AtomicLongArray bits = current;
+        long hash = hash(key);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = bitIndex(hash, i);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((bits.get(word) & mask) == 0) {
+                bits.getAndAccumulate(word, mask, (value, set) -> value | set);
+            }
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        return contains(current, hash) || contains(previous, hash);
+    }
+
+    /**
+     * Forget the keys added before the previous rotation
+     */
+    void rotate() {
+        previous = current;
+        current = new AtomicLongArray(words);
+    }
+
+    private boolean contains(AtomicLongArray bits, long hash) {
+        for (int i = 0; i < hashCount; i++) {
+            long bit = bitIndex(hash, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Double hashing: the i-th probe is h1 + i * h2 over the two halves of one 64-bit hash
+    private long bitIndex(long hash, int i) {
+        long h1 = (int) hash;
+        long h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + i * h2, bitCount);
+    }
+
+    private static long hash(String key) {
+        long hash = 0xCBF29CE484222325L; // FNV-1a
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        // MurmurHash3 finalizer, so both halves are well mixed
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,339 @@
+package com.examportal.test.journal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Answer Journal
+ * Local append-only journal of answers written through memory-mapped segment files,
+ * so answers buffered by the LiveSessionStore survive a restart of the pod.
+ * Record layout (32 bytes): sessionId, questionId, seq, position, answer code, layout tag, CRC32C.
+ * The layout tag identifies the session layout the position refers to, see {@link #layoutTag(long[])}.
+ * A torn or zeroed record fails its checksum and marks the end of a segment.
+ * Segments are unmapped when they are sealed and deleted once every answer they hold
+ * has been flushed to the database.
+ */
+@Component
+@Slf4j
+public class AnswerJournal {
+
+    static final int RECORD_SIZE = 32;
+    private static final int CHECKED_SIZE = 28;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAGIC = 0x414A4E4C; // "AJNL"
+    private static final int FORMAT_VERSION = 2; // 1 had no layout tag
+    private static final String SEGMENT_PREFIX = "answers-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final MethodHandle UNMAP = findUnmap();
+
+    @Value("${test-session.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${test-session.journal.directory:journal}")
+    private Path directory;
+
+    @Value("${test-session.journal.segment-size-bytes:8388608}")
+    private int segmentSizeBytes;
+
+    @Value("${test-session.journal.force-on-append:false}")
+    private boolean forceOnAppend;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final CRC32C checksum = new CRC32C();
+    private final Deque<Segment> sealed = new ArrayDeque<>();
+    private List<Path> recoveredSegments = Collections.emptyList();
+    private List<JournalRecord> recoveredRecords = Collections.emptyList();
+    private Segment active;
+    private long nextSeq = 1;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            log.info("Answer journal disabled");
+            return;
+        }
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            recoveredSegments = files
+                .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .toList();
+        }
+
+        recoveredRecords = new ArrayList<>();
+        for (Path path : recoveredSegments) {
+            readSegment(path, recoveredRecords);
+        }
+        recoveredRecords.forEach(record -> nextSeq = Math.max(nextSeq, record.seq() + 1));
+
+        long lastNumber = recoveredSegments.isEmpty() ? 0 : segmentNumber(recoveredSegments.get(recoveredSegments.size() - 1));
+        active = createSegment(lastNumber + 1);
+        log.info("Answer journal opened in {} with {} records to recover from {} segments",
+            directory.toAbsolutePath(), recoveredRecords.size(), recoveredSegments.size());
+    }
+
+    /**
+     * Append an answer. Returns false if the journal could not take it,
+     * in which case the caller must persist the answer another way.
+     */
+    public boolean append(long sessionId, long questionId, int position, int answerCode, int layoutTag) {
+        if (!enabled) {
+            return true;
+        }
+        appendLock.lock();
+        try {
+            if (active.writePosition + RECORD_SIZE > segmentSizeBytes) {
+                rotate();
+            }
+            MappedByteBuffer buffer = active.buffer;
+            int at = active.writePosition;
+            buffer.putLong(at, sessionId);
+            buffer.putLong(at + 8, questionId);
+            buffer.putLong(at + 16, nextSeq++);
+            buffer.putShort(at + 24, (short) position);
+            buffer.put(at + 26, (byte) answerCode);
+            buffer.put(at + 27, (byte) layoutTag);
+            buffer.putInt(at + CHECKED_SIZE, checksum(active.checksumView, at));
+            if (forceOnAppend) {
+                buffer.force(at, RECORD_SIZE);
+            }
+            active.writePosition += RECORD_SIZE;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to append to answer journal: {}", e.getMessage());
+            return false;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Start a new segment and return its number. Every record appended before
+     * this call lives in an older segment.
+     */
+    public long mark() {
+        if (!enabled) {
+            return 0;
+        }
+        appendLock.lock();
+        try {
+            if (active.writePosition > HEADER_SIZE) {
+                rotate();
+            }
+            return active.number;
+        } catch (IOException e) {
+            log.error("Failed to rotate answer journal: {}", e.getMessage());
+            return active.number;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Delete the segments older than a mark once their answers are in the database
+     */
+    public void release(long mark) {
+        if (!enabled) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            while (!sealed.isEmpty() && sealed.peekFirst().number < mark) {
+                Segment segment = sealed.pollFirst();
+                Files.deleteIfExists(segment.path);
+                log.debug("Released answer journal segment {}", segment.number);
+            }
+        } catch (IOException e) {
+            log.error("Failed to delete answer journal segment: {}", e.getMessage());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Answers found in the journal at startup, in sequence order
+     */
+    public List<JournalRecord> recoveredRecords() {
+        return recoveredRecords;
+    }
+
+    /**
+     * Delete the segments found at startup once they have been replayed
+     */
+    public void discardRecovered() throws IOException {
+        for (Path path : recoveredSegments) {
+            Files.deleteIfExists(path);
+        }
+        recoveredSegments = Collections.emptyList();
+        recoveredRecords = Collections.emptyList();
+    }
+
+    @PreDestroy
+    void close() {
+        if (!enabled) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            active.buffer.force();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Short tag of a session layout stored with each record; a record whose tag differs
+     * from the session's layout at replay was written against another layout
+     */
+    public static int layoutTag(long[] layout) {
+        ByteBuffer bytes = ByteBuffer.allocate(layout.length * Long.BYTES);
+        bytes.asLongBuffer().put(layout);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return (int) (crc.getValue() & 0xFF);
+    }
+
+    private void rotate() throws IOException {
+        Segment next = createSegment(active.number + 1);
+        // Sealed segments are only ever deleted, so their mapping is released right away
+        // instead of holding segment-size bytes of address space each until a GC runs
+        active.seal();
+        sealed.addLast(active);
+        active = next;
+    }
+
+    private Segment createSegment(long number) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSizeBytes);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putLong(8, number);
+        return new Segment(number, path, buffer);
+    }
+
+    private void readSegment(Path path, List<JournalRecord> records) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                log.warn("Skipping answer journal segment {} with unknown format", path);
+                return;
+            }
+
+            boolean tagged = buffer.getInt(4) >= 2;
+            ByteBuffer checksumView = buffer.duplicate();
+            for (int at = HEADER_SIZE; at + RECORD_SIZE <= buffer.limit(); at += RECORD_SIZE) {
+                long sessionId = buffer.getLong(at);
+                if (sessionId == 0 || buffer.getInt(at + CHECKED_SIZE) != checksum(checksumView, at)) {
+                    break;
+                }
+                records.add(new JournalRecord(
+                    sessionId,
+                    buffer.getLong(at + 8),
+                    Short.toUnsignedInt(buffer.getShort(at + 24)),
+                    buffer.get(at + 26),
+                    tagged ? Byte.toUnsignedInt(buffer.get(at + 27)) : JournalRecord.UNKNOWN_LAYOUT,
+                    buffer.getLong(at + 16)));
+            }
+        } finally {
+            unmap(buffer);
+        }
+    }
+
+    private int checksum(ByteBuffer view, int at) {
+        checksum.reset();
+        view.limit(at + CHECKED_SIZE).position(at);
+        checksum.update(view);
+        view.limit(view.capacity());
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Release a mapping without waiting for the buffer to be garbage collected.
+     * The buffer must not be touched afterwards.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (UNMAP == null) {
+            return;
+        }
+        try {
+            UNMAP.invoke(buffer);
+        } catch (Throwable e) {
+            log.debug("Failed to unmap answer journal segment: {}", e.getMessage());
+        }
+    }
+
+    private static MethodHandle findUnmap() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Answer journal segments will be unmapped by the garbage collector: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * A mapped segment file and its write position
+     */
+    private static final class Segment {
+        private final long number;
+        private final Path path;
+        private MappedByteBuffer buffer;
+        private ByteBuffer checksumView;
+        private int writePosition = HEADER_SIZE;
+
+        private Segment(long number, Path path, MappedByteBuffer buffer) {
+            this.number = number;
+            this.path = path;
+            this.buffer = buffer;
+            this.checksumView = buffer.duplicate();
+        }
+
+        private void seal() {
+            MappedByteBuffer mapped = buffer;
+            buffer = null;
+            checksumView = null;
+            unmap(mapped);
+        }
+    }
+}
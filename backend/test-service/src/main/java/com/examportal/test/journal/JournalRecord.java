@@ -0,0 +1,13 @@
+package com.examportal.test.journal;
+
+/**
+ * Journal Record
+ * One answer recovered from the answer journal
+ */
+public record JournalRecord(long sessionId, long questionId, int position, int answerCode, int layoutTag, long seq) {
+
+    /**
+     * Layout tag of records written before tags were journaled
+     */
+    public static final int UNKNOWN_LAYOUT = -1;
+}
@@ -0,0 +1,27 @@
+package com.examportal.test.live;
+
+import com.examportal.test.util.AnswerCodec;
+
+/**
+ * Flush Snapshot
+ * Answers of a live session captured for one database write, with the positions
+ * changed since the previous successful write. Only those positions are merged
+ * over the stored row, so answers written concurrently by another instance survive.
+ */
+record FlushSnapshot(byte[] answerBits, int[] dirtyPositions, int revision, int pendingAnswers) {
+
+    /**
+     * Overlay the changed positions on the answers currently stored in the database
+     */
+    byte[] mergeInto(byte[] stored) {
+        if (stored == null) {
+            return answerBits.clone();
+        }
+        byte[] merged = new byte[answerBits.length];
+        System.arraycopy(stored, 0, merged, 0, Math.min(stored.length, merged.length));
+        for (int position : dirtyPositions) {
+            AnswerCodec.set(merged, position, AnswerCodec.get(answerBits, position));
+        }
+        return merged;
+    }
+}
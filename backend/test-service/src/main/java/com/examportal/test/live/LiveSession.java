@@ -0,0 +1,194 @@
+package com.examportal.test.live;
+
+import com.examportal.test.entity.TestSession;
+import com.examportal.test.journal.AnswerJournal;
+import com.examportal.test.util.AnswerCodec;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live Session
+ * In-memory state of an IN_PROGRESS test session held by the LiveSessionStore.
+ * All fields are guarded by {@link #lock}; {@link #flushLock} serializes writes of
+ * this session to the database so that an older snapshot never overwrites a newer one.
+ * Every answer bumps a revision so a write only merges the positions changed since the last one.
+ */
+public class LiveSession {
+
+    final ReentrantLock lock = new ReentrantLock();
+    final ReentrantLock flushLock = new ReentrantLock();
+
+    private final TestSession header;
+    private final long[] layout;
+    private final int layoutTag;
+    private final byte[] answerBits;
+    private final long[] answerSeqs;
+    private final int[] positionRevisions;
+    private int revision;
+    private int flushedRevision;
+    private long appliedSeq;
+    private Long version;
+    private TestSession.TestStatus status;
+    private int pendingAnswers;
+    private long lastAccessMillis;
+    private boolean evicted;
+
+    LiveSession(TestSession entity, long[] layout, byte[] answerBits) {
+        this.header = entity;
+        this.layout = layout;
+        this.layoutTag = AnswerJournal.layoutTag(layout);
+        this.answerBits = answerBits;
+        this.answerSeqs = new long[layout.length];
+        this.positionRevisions = new int[layout.length];
+        this.status = entity.getStatus();
+        this.version = entity.getVersion();
+        this.lastAccessMillis = System.currentTimeMillis();
+    }
+
+    public Long getSessionId() {
+        return header.getId();
+    }
+
+    TestSession.TestStatus getStatus() {
+        return status;
+    }
+
+    void setStatus(TestSession.TestStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Whether the session's deadline passed more than the grace period ago
+     */
+    boolean isPastDeadline(long graceMillis) {
+        return header.getDeadline() != null
+            && LocalDateTime.now().isAfter(header.getDeadline().plusNanos(graceMillis * 1_000_000));
+    }
+
+    Long getQuestionSetId() {
+        return header.getQuestionSetId();
+    }
+
+    /**
+     * Tag of this session's layout, journaled with every answer
+     */
+    int getLayoutTag() {
+        return layoutTag;
+    }
+
+    /**
+     * Position of a question of this session's question set, or -1 if it is not part of it
+     */
+    int positionOf(long questionId) {
+        return AnswerCodec.positionOf(layout, questionId);
+    }
+
+    /**
+     * Copy of the packed answers for persisting or returning to callers
+     */
+    byte[] snapshotAnswers() {
+        return answerBits.clone();
+    }
+
+    /**
+     * Record an answer in memory and mark it as not yet persisted
+     */
+    void putAnswer(int position, int answerCode) {
+        AnswerCodec.set(answerBits, position, answerCode);
+        positionRevisions[position] = ++revision;
+        pendingAnswers++;
+        lastAccessMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Record a sequenced answer unless a newer one is already stored for the question
+     */
+    boolean putAnswer(int position, int answerCode, long clientSeq) {
+        appliedSeq = Math.max(appliedSeq, clientSeq);
+        if (clientSeq <= answerSeqs[position]) {
+            return false;
+        }
+        answerSeqs[position] = clientSeq;
+        putAnswer(position, answerCode);
+        return true;
+    }
+
+    long getAppliedSeq() {
+        return appliedSeq;
+    }
+
+    int getPendingAnswers() {
+        return pendingAnswers;
+    }
+
+    /**
+     * Capture the answers and the positions changed since the last successful write
+     */
+    FlushSnapshot snapshotForFlush() {
+        int dirtyCount = 0;
+        for (int position = 0; position < layout.length; position++) {
+            if (positionRevisions[position] > flushedRevision) {
+                dirtyCount++;
+            }
+        }
+        int[] dirtyPositions = new int[dirtyCount];
+        for (int position = 0, i = 0; position < layout.length; position++) {
+            if (positionRevisions[position] > flushedRevision) {
+                dirtyPositions[i++] = position;
+            }
+        }
+        return new FlushSnapshot(answerBits.clone(), dirtyPositions, revision, pendingAnswers);
+    }
+
+    /**
+     * Acknowledge a successful write and adopt the merged row, keeping positions
+     * that were changed again after the snapshot was taken
+     */
+    void markFlushed(FlushSnapshot snapshot, byte[] merged, Long version) {
+        for (int position = 0; position < layout.length; position++) {
+            if (positionRevisions[position] <= snapshot.revision()) {
+                AnswerCodec.set(answerBits, position, AnswerCodec.get(merged, position));
+            }
+        }
+        flushedRevision = Math.max(flushedRevision, snapshot.revision());
+        this.version = version;
+        pendingAnswers = Math.max(0, pendingAnswers - snapshot.pendingAnswers());
+    }
+
+    long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    void markEvicted() {
+        this.evicted = true;
+    }
+
+    /**
+     * Build a detached TestSession view of this live session
+     */
+    TestSession toTestSession() {
+        TestSession view = new TestSession();
+        view.setId(header.getId());
+        view.setUsn(header.getUsn());
+        view.setStudentName(header.getStudentName());
+        view.setSemester(header.getSemester());
+        view.setDepartment(header.getDepartment());
+        view.setYearOfAdmission(header.getYearOfAdmission());
+        view.setQuestionSetId(header.getQuestionSetId());
+        view.setExamWindowId(header.getExamWindowId());
+        view.setStartTime(header.getStartTime());
+        view.setEndTime(header.getEndTime());
+        view.setDeadline(header.getDeadline());
+        view.setAnswerBits(snapshotAnswers());
+        view.setAnswerLayout(header.getAnswerLayout());
+        view.setStatus(status);
+        view.setSubmittedAt(header.getSubmittedAt());
+        view.setVersion(version);
+        return view;
+    }
+}
@@ -0,0 +1,619 @@
+package com.examportal.test.live;
+
+import com.examportal.test.cache.QuestionSetCache;
+import com.examportal.test.dto.AnswerBatchAck;
+import com.examportal.test.dto.AnswerEntry;
+import com.examportal.test.dto.QuestionDTO;
+import com.examportal.test.dto.QuestionSetDTO;
+import com.examportal.test.entity.OutboxEvent;
+import com.examportal.test.entity.TestSession;
+import com.examportal.test.journal.AnswerJournal;
+import com.examportal.test.journal.JournalRecord;
+import com.examportal.test.repository.OutboxEventRepository;
+import com.examportal.test.repository.TestSessionRepository;
+import com.examportal.test.util.AnswerCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Live Session Store
+ * Write-behind buffer for the answers of IN_PROGRESS test sessions, packed with AnswerCodec.
+ * Answers are accepted in memory without database I/O and flushed to the
+ * test_sessions table in batches every flush interval, whenever a session holds
+ * more than max-unflushed-answers unpersisted answers, and always on submit.
+ * Every answer is also appended to the AnswerJournal and replayed from it on startup;
+ * with the journal disabled a crash of the pod loses at most max-unflushed-answers
+ * answers per session.
+ * Writes carry the TestSession version and only merge the positions changed locally,
+ * so concurrent writers on other instances never drop each other's answers.
+ * A session auto-submitted at its deadline by another instance still takes the answers
+ * this instance accepted up to deadline plus grace, on flush or on the student's own submit,
+ * and is queued for marks again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LiveSessionStore {
+
+    private final TestSessionRepository testSessionRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final QuestionSetCache questionSetCache;
+    private final AnswerJournal answerJournal;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Long, LiveSession> sessions = new ConcurrentHashMap<>();
+
+    @Value("${test-session.answer-buffer.max-unflushed-answers:10}")
+    private int maxUnflushedAnswers;
+
+    @Value("${test-session.answer-buffer.flush-batch-size:200}")
+    private int flushBatchSize;
+
+    @Value("${test-session.answer-buffer.idle-eviction-ms:1800000}")
+    private long idleEvictionMs;
+
+    @Value("${test-session.answer-buffer.max-merge-retries:5}")
+    private int maxMergeRetries;
+
+    @Value("${test-session.timer.answer-grace-ms:5000}")
+    private long answerGraceMillis;
+
+    @Value("${test-session.answer-buffer.retry-after-ms:1000}")
+    private long retryAfterMillis;
+
+    /**
+     * Record an answer for a session, flushing inline when the durability bound is reached
+     */
+    public TestSession recordAnswer(Long sessionId, Long questionId, String selectedOption) {
+        int answerCode = AnswerCodec.encodeOption(selectedOption);
+        while (true) {
+            LiveSession live = acquire(sessionId);
+            TestSession view;
+            boolean flushNow;
+
+            live.lock.lock();
+            try {
+                if (live.isEvicted()) {
+                    continue;
+                }
+                if (live.getStatus() == TestSession.TestStatus.COMPLETED) {
+                    throw new IllegalStateException("Test session is already completed");
+                }
+                if (live.isPastDeadline(answerGraceMillis)) {
+                    throw new IllegalStateException("Time is up for this test session");
+                }
+                int position = live.positionOf(questionId);
+                if (position < 0) {
+                    throw new IllegalArgumentException(String.format(
+                        "Question %d is not part of question set %d", questionId, live.getQuestionSetId()));
+                }
+                live.putAnswer(position, answerCode);
+                boolean journaled = answerJournal.append(sessionId, questionId, position, answerCode, live.getLayoutTag());
+                flushNow = !journaled || live.getPendingAnswers() > maxUnflushedAnswers;
+                view = live.toTestSession();
+            } finally {
+                live.lock.unlock();
+            }
+
+            if (flushNow && !flush(List.of(live), true)) {
+                throw new WriteUnavailableException("Answer could not be persisted, please retry", retryAfterMillis);
+            }
+            return view;
+        }
+    }
+
+    /**
+     * Record a batch of sequenced answers atomically, last write per question wins by client sequence
+     */
+    public AnswerBatchAck recordAnswers(Long sessionId, List<AnswerEntry> entries) {
+        int[] answerCodes = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            answerCodes[i] = AnswerCodec.encodeOption(entries.get(i).getSelectedOption());
+        }
+
+        while (true) {
+            LiveSession live = acquire(sessionId);
+            AnswerBatchAck ack;
+            boolean flushNow;
+
+            live.lock.lock();
+            try {
+                if (live.isEvicted()) {
+                    continue;
+                }
+                if (live.getStatus() == TestSession.TestStatus.COMPLETED) {
+                    throw new IllegalStateException("Test session is already completed");
+                }
+                if (live.isPastDeadline(answerGraceMillis)) {
+                    throw new IllegalStateException("Time is up for this test session");
+                }
+
+                // Validate the whole batch before applying any of it
+                int[] positions = new int[entries.size()];
+                for (int i = 0; i < entries.size(); i++) {
+                    positions[i] = live.positionOf(entries.get(i).getQuestionId());
+                    if (positions[i] < 0) {
+                        throw new IllegalArgumentException(String.format(
+                            "Question %d is not part of question set %d",
+                            entries.get(i).getQuestionId(), live.getQuestionSetId()));
+                    }
+                }
+
+                int applied = 0;
+                boolean journaled = true;
+                for (int i = 0; i < entries.size(); i++) {
+                    if (live.putAnswer(positions[i], answerCodes[i], entries.get(i).getClientSeq())) {
+                        applied++;
+                        journaled &= answerJournal.append(sessionId, entries.get(i).getQuestionId(),
+                            positions[i], answerCodes[i], live.getLayoutTag());
+                    }
+                }
+                flushNow = !journaled || live.getPendingAnswers() > maxUnflushedAnswers;
+                ack = new AnswerBatchAck(sessionId, live.getAppliedSeq(), applied, entries.size() - applied);
+            } finally {
+                live.lock.unlock();
+            }
+
+            if (flushNow && !flush(List.of(live), true)) {
+                throw new WriteUnavailableException("Answers could not be persisted, please retry", retryAfterMillis);
+            }
+            return ack;
+        }
+    }
+
+    /**
+     * Flush the buffered answers of a session and mark it completed in one transaction.
+     * The completion callback runs against the managed entity inside that transaction.
+     */
+    public TestSession complete(Long sessionId, Consumer<TestSession> completion) {
+        while (true) {
+            LiveSession live = acquire(sessionId);
+            live.flushLock.lock();
+            try {
+                FlushSnapshot snapshot;
+                boolean buffered;
+                live.lock.lock();
+                try {
+                    if (live.isEvicted()) {
+                        continue;
+                    }
+                    if (live.getStatus() == TestSession.TestStatus.COMPLETED) {
+                        throw new IllegalStateException("Test session is already completed");
+                    }
+                    // Reject further answers while the final write is in flight
+                    live.setStatus(TestSession.TestStatus.COMPLETED);
+                    buffered = live.getPendingAnswers() > 0;
+                    snapshot = live.snapshotForFlush();
+                } finally {
+                    live.lock.unlock();
+                }
+
+                try {
+                    TestSession saved = withMergeRetries(() -> transactionTemplate.execute(status -> {
+                        TestSession entity = testSessionRepository.findById(sessionId)
+                            .orElseThrow(() -> new RuntimeException("Test session not found with ID: " + sessionId));
+                        if (entity.getStatus() == TestSession.TestStatus.COMPLETED) {
+                            if (!isAutoSubmitted(entity)) {
+                                throw new IllegalStateException("Test session is already completed");
+                            }
+                            // Auto-submitted by the timer partition owner during the grace period; the
+                            // submit keeps the timer's completion and, as flush() does, adds and regrades
+                            // the answers buffered here
+                            if (!buffered) {
+                                return entity;
+                            }
+                            entity.setAnswerBits(snapshot.mergeInto(entity.getAnswerBits()));
+                            entity.setAnswers(null);
+                            outboxEventRepository.save(OutboxEvent.of(OutboxEvent.EventType.TEST_SUBMITTED, sessionId));
+                            log.info("Merged answers buffered after the auto-submit of session {} on submit, "
+                                + "marks recalculation queued", sessionId);
+                            return testSessionRepository.saveAndFlush(entity);
+                        }
+                        entity.setAnswerBits(snapshot.mergeInto(entity.getAnswerBits()));
+                        entity.setAnswers(null);
+                        completion.accept(entity);
+                        return testSessionRepository.saveAndFlush(entity);
+                    }));
+                    evict(live);
+                    return saved;
+                } catch (IllegalStateException e) {
+                    evict(live);
+                    throw e;
+                } catch (RuntimeException e) {
+                    live.lock.lock();
+                    try {
+                        live.setStatus(TestSession.TestStatus.IN_PROGRESS);
+                    } finally {
+                        live.lock.unlock();
+                    }
+                    if (e instanceof OptimisticLockingFailureException) {
+                        throw new WriteUnavailableException("Test could not be submitted, please retry", retryAfterMillis);
+                    }
+                    throw e;
+                }
+            } finally {
+                live.flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Get the buffered view of a session if it is currently live on this instance
+     */
+    public Optional<TestSession> find(Long sessionId) {
+        LiveSession live = sessions.get(sessionId);
+        if (live == null) {
+            return Optional.empty();
+        }
+        live.lock.lock();
+        try {
+            if (live.isEvicted()) {
+                return Optional.empty();
+            }
+            return Optional.of(live.toTestSession());
+        } finally {
+            live.lock.unlock();
+        }
+    }
+
+    /**
+     * Periodically flush dirty sessions in batches and evict idle ones
+     */
+    @Scheduled(fixedDelayString = "${test-session.answer-buffer.flush-interval-ms:2000}")
+    public void flushDirtySessions() {
+        // Answers journaled before the mark are applied in memory by now,
+        // so their sessions show up as dirty below
+        long journalMark = answerJournal.mark();
+        List<LiveSession> dirty = new ArrayList<>();
+        for (LiveSession live : sessions.values()) {
+            if (isDirty(live)) {
+                dirty.add(live);
+            }
+        }
+        boolean allFlushed = true;
+        for (int from = 0; from < dirty.size(); from += flushBatchSize) {
+            allFlushed &= flush(dirty.subList(from, Math.min(from + flushBatchSize, dirty.size())), false);
+        }
+        if (allFlushed) {
+            answerJournal.release(journalMark);
+        }
+        evictIdleSessions();
+    }
+
+    /**
+     * Persist everything that is still buffered before the instance shuts down
+     */
+    @PreDestroy
+    public void flushAll() {
+        long journalMark = answerJournal.mark();
+        List<LiveSession> dirty = sessions.values().stream().filter(this::isDirty).toList();
+        if (!dirty.isEmpty()) {
+            log.info("Flushing {} live sessions before shutdown", dirty.size());
+        }
+        if (dirty.isEmpty() || flush(dirty, true)) {
+            answerJournal.release(journalMark);
+        }
+    }
+
+    /**
+     * Replay answers journaled before the last shutdown or crash into their sessions.
+     * Runs before the web server accepts requests; a failure keeps the journal and aborts startup.
+     */
+    @PostConstruct
+    public void recoverJournal() throws IOException {
+        List<JournalRecord> records = answerJournal.recoveredRecords();
+        if (records.isEmpty()) {
+            return;
+        }
+
+        // Journal order is sequence order, so the last record per question wins
+        Map<Long, Map<Long, JournalRecord>> latest = new HashMap<>();
+        for (JournalRecord record : records) {
+            latest.computeIfAbsent(record.sessionId(), id -> new HashMap<>()).put(record.questionId(), record);
+        }
+
+        int[] retagged = new int[1];
+        int recovered = transactionTemplate.execute(status -> {
+            int sessionsUpdated = 0;
+            for (TestSession entity : testSessionRepository.findAllById(latest.keySet())) {
+                if (entity.getStatus() == TestSession.TestStatus.COMPLETED) {
+                    if (!isAutoSubmitted(entity)) {
+                        continue;
+                    }
+                    // Auto-submitted elsewhere while these answers were only journaled here
+                    outboxEventRepository.save(OutboxEvent.of(OutboxEvent.EventType.TEST_SUBMITTED, entity.getId()));
+                }
+                // Positions are resolved against the session's own layout; only rows started
+                // before layouts were stored fall back to the position journaled with the answer
+                long[] layout = entity.getAnswerLayout() != null ? AnswerCodec.decodeLayout(entity.getAnswerLayout()) : null;
+                int layoutTag = layout != null ? AnswerJournal.layoutTag(layout) : JournalRecord.UNKNOWN_LAYOUT;
+                Map<Integer, Integer> answers = new HashMap<>();
+                for (JournalRecord record : latest.get(entity.getId()).values()) {
+                    if (layout != null && record.layoutTag() != layoutTag) {
+                        retagged[0]++;
+                    }
+                    int position = layout != null ? AnswerCodec.positionOf(layout, record.questionId()) : record.position();
+                    if (position >= 0) {
+                        answers.put(position, record.answerCode());
+                    } else {
+                        log.warn("Dropping journaled answer for question {} not in layout of session {}",
+                            record.questionId(), entity.getId());
+                    }
+                }
+                int questionCount = layout != null ? layout.length
+                    : answers.keySet().stream().mapToInt(position -> position + 1).max().orElse(0);
+                byte[] bits = AnswerCodec.allocate(questionCount);
+                byte[] stored = entity.getAnswerBits();
+                if (stored != null) {
+                    bits = stored.length >= bits.length ? stored.clone() : copyInto(stored, bits);
+                }
+                for (Map.Entry<Integer, Integer> answer : answers.entrySet()) {
+                    AnswerCodec.set(bits, answer.getKey(), answer.getValue());
+                }
+                entity.setAnswerBits(bits);
+                sessionsUpdated++;
+            }
+            return sessionsUpdated;
+        });
+
+        answerJournal.discardRecovered();
+        if (retagged[0] > 0) {
+            log.warn("Remapped {} journaled answers written against another layout by question ID", retagged[0]);
+        }
+        log.info("Recovered {} journaled answers into {} test sessions", records.size(), recovered);
+    }
+
+    private LiveSession acquire(Long sessionId) {
+        LiveSession live = sessions.get(sessionId);
+        if (live != null) {
+            return live;
+        }
+
+        TestSession entity = testSessionRepository.findById(sessionId)
+            .orElseThrow(() -> new RuntimeException("Test session not found with ID: " + sessionId));
+        if (entity.getStatus() == TestSession.TestStatus.COMPLETED) {
+            // Completed sessions are never buffered
+            return new LiveSession(entity, new long[0], new byte[0]);
+        }
+        if (entity.getStatus() == TestSession.TestStatus.PENDING) {
+            throw new IllegalStateException("Test session has not been started");
+        }
+
+        if (entity.getAnswerLayout() == null) {
+            // Started before layouts were stored: fix the set's current layout for the rest of the session
+            QuestionSetDTO questionSet = questionSetCache.get(entity.getQuestionSetId());
+            long[] current = AnswerCodec.layout(questionSet.getQuestions().stream().map(QuestionDTO::getId).toList());
+            transactionTemplate.executeWithoutResult(status ->
+                testSessionRepository.adoptLayout(sessionId, AnswerCodec.encodeLayout(current)));
+            entity = testSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Test session not found with ID: " + sessionId));
+        }
+        long[] layout = AnswerCodec.decodeLayout(entity.getAnswerLayout());
+        LiveSession loaded = new LiveSession(entity, layout, loadAnswers(entity, layout));
+
+        LiveSession raced = sessions.putIfAbsent(sessionId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    /**
+     * Write the current answers of the given sessions in one transaction.
+     * When wait is false, sessions already being flushed by another thread are skipped.
+     * Returns true only if every session of the batch is now persisted.
+     */
+    private boolean flush(List<LiveSession> batch, boolean wait) {
+        boolean skipped = false;
+        List<LiveSession> claimed = new ArrayList<>(batch.size());
+        for (LiveSession live : batch) {
+            if (wait) {
+                live.flushLock.lock();
+                claimed.add(live);
+            } else if (live.flushLock.tryLock()) {
+                claimed.add(live);
+            } else {
+                skipped = true;
+            }
+        }
+
+        try {
+            Map<Long, FlushSnapshot> snapshots = new HashMap<>();
+            Map<Long, LiveSession> flushed = new HashMap<>();
+            for (LiveSession live : claimed) {
+                live.lock.lock();
+                try {
+                    if (live.isEvicted() || live.getPendingAnswers() == 0) {
+                        continue;
+                    }
+                    snapshots.put(live.getSessionId(), live.snapshotForFlush());
+                    flushed.put(live.getSessionId(), live);
+                } finally {
+                    live.lock.unlock();
+                }
+            }
+            if (snapshots.isEmpty()) {
+                return !skipped;
+            }
+
+            Set<Long> regraded = new HashSet<>();
+            Map<Long, TestSession> written = withMergeRetries(() -> transactionTemplate.execute(status -> {
+                regraded.clear();
+                Map<Long, TestSession> entities = new HashMap<>();
+                for (TestSession entity : testSessionRepository.findAllById(snapshots.keySet())) {
+                    if (entity.getStatus() == TestSession.TestStatus.COMPLETED) {
+                        if (!isAutoSubmitted(entity)) {
+                            // Submitted by the student on another instance; later answers are rejected there too
+                            continue;
+                        }
+                        // Auto-submitted by the timer partition owner, which never saw the answers
+                        // buffered here; all of them were accepted before deadline plus grace
+                        outboxEventRepository.save(OutboxEvent.of(OutboxEvent.EventType.TEST_SUBMITTED, entity.getId()));
+                        regraded.add(entity.getId());
+                    }
+                    entity.setAnswerBits(snapshots.get(entity.getId()).mergeInto(entity.getAnswerBits()));
+                    entity.setAnswers(null);
+                    entities.put(entity.getId(), entity);
+                }
+                testSessionRepository.flush();
+                return entities;
+            }));
+
+            flushed.forEach((sessionId, live) -> {
+                TestSession entity = written.get(sessionId);
+                if (entity == null) {
+                    evict(live);
+                    return;
+                }
+                boolean done;
+                live.lock.lock();
+                try {
+                    live.markFlushed(snapshots.get(sessionId), entity.getAnswerBits(), entity.getVersion());
+                    // Keep taking answers until the grace period ends, they are written the same way
+                    done = live.getPendingAnswers() == 0 && live.isPastDeadline(answerGraceMillis);
+                } finally {
+                    live.lock.unlock();
+                }
+                if (regraded.contains(sessionId)) {
+                    log.info("Merged answers buffered after the auto-submit of session {}, marks recalculation queued",
+                        sessionId);
+                    if (done) {
+                        evict(live);
+                    }
+                }
+            });
+            log.debug("Flushed answers of {} live sessions", snapshots.size());
+            return !skipped;
+        } catch (Exception e) {
+            log.error("Failed to flush live sessions: {}", e.getMessage());
+            return false;
+        } finally {
+            claimed.forEach(live -> live.flushLock.unlock());
+        }
+    }
+
+    /**
+     * Run a merging write again when another instance updated the same rows concurrently.
+     * Each attempt re-reads the rows, so the answers written by the other instance are kept.
+     */
+    private <T> T withMergeRetries(Supplier<T> write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return write.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxMergeRetries) {
+                    throw e;
+                }
+                log.debug("Concurrent answer write detected, merging and retrying (attempt {})", attempt);
+            }
+        }
+    }
+
+    private void evictIdleSessions() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMs;
+        for (LiveSession live : sessions.values()) {
+            if (!live.flushLock.tryLock()) {
+                continue;
+            }
+            try {
+                live.lock.lock();
+                try {
+                    if (live.getPendingAnswers() == 0 && live.getLastAccessMillis() < cutoff) {
+                        live.markEvicted();
+                        sessions.remove(live.getSessionId(), live);
+                    }
+                } finally {
+                    live.lock.unlock();
+                }
+            } finally {
+                live.flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Completed by the deadline timer rather than by the student
+     */
+    private static boolean isAutoSubmitted(TestSession entity) {
+        return entity.getDeadline() != null && entity.getSubmittedAt() != null
+            && !entity.getSubmittedAt().isBefore(entity.getDeadline());
+    }
+
+    private void evict(LiveSession live) {
+        live.lock.lock();
+        try {
+            live.markEvicted();
+            sessions.remove(live.getSessionId(), live);
+        } finally {
+            live.lock.unlock();
+        }
+    }
+
+    private boolean isDirty(LiveSession live) {
+        live.lock.lock();
+        try {
+            return !live.isEvicted() && live.getPendingAnswers() > 0;
+        } finally {
+            live.lock.unlock();
+        }
+    }
+
+    /**
+     * Load the packed answers of a session, migrating legacy JSON answers if needed
+     */
+    private byte[] loadAnswers(TestSession entity, long[] layout) {
+        byte[] bits = AnswerCodec.allocate(layout.length);
+        if (entity.getAnswers() != null && !entity.getAnswers().isBlank()) {
+            try {
+                Map<String, String> legacy = objectMapper.readValue(entity.getAnswers(), HashMap.class);
+                legacy.forEach((questionId, option) -> {
+                    int position = AnswerCodec.positionOf(layout, Long.parseLong(questionId));
+                    if (position >= 0) {
+                        AnswerCodec.set(bits, position, AnswerCodec.encodeOption(option));
+                    } else {
+                        log.warn("Dropping answer for question {} not in question set of session {}",
+                            questionId, entity.getId());
+                    }
+                });
+            } catch (Exception e) {
+                log.error("Failed to migrate answers JSON of session {}: {}", entity.getId(), e.getMessage());
+            }
+        }
+
+        // Packed answers win; both exist only when journal recovery touched a legacy row.
+        // Stored bits follow the session's layout, so positions line up with it.
+        byte[] stored = entity.getAnswerBits();
+        if (stored != null) {
+            for (int position = 0; position < layout.length; position++) {
+                int answerCode = AnswerCodec.get(stored, position);
+                if (answerCode != AnswerCodec.UNANSWERED) {
+                    AnswerCodec.set(bits, position, answerCode);
+                }
+            }
+        }
+        return bits;
+    }
+
+    private static byte[] copyInto(byte[] source, byte[] target) {
+        System.arraycopy(source, 0, target, 0, source.length);
+        return target;
+    }
+}
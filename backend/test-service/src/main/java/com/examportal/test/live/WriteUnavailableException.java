@@ -0,0 +1,19 @@
+package com.examportal.test.live;
+
+import lombok.Getter;
+
+/**
+ * Write Unavailable Exception
+ * Thrown when an accepted write could not be persisted right now, e.g. the database or the journal
+ * is unavailable or concurrent writers used up the merge retries; the client should retry after the given delay
+ */
+@Getter
+public class WriteUnavailableException extends RuntimeException {
+
+    private final long retryAfterMillis;
+
+    public WriteUnavailableException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+}
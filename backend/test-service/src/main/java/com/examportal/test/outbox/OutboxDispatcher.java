@@ -0,0 +1,161 @@
+package com.examportal.test.outbox;
+
+import com.examportal.test.client.InterServiceClient;
+import com.examportal.test.entity.OutboxEvent;
+import com.examportal.test.repository.OutboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbox Dispatcher
+ * Drains the outbox table and delivers events to other services.
+ * - Due events are claimed in batches with SELECT ... FOR UPDATE SKIP LOCKED and leased
+ *   by pushing their next attempt out, so several instances can dispatch side by side
+ *   and events of a crashed dispatcher are picked up again once the lease expires
+ * - Each batch is delivered by a bounded pool of workers
+ * - Failed events are retried with exponential backoff and marked DEAD after max-attempts
+ * Delivery is at-least-once; the receiving endpoints must be idempotent.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxDispatcher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final InterServiceClient interServiceClient;
+
+    @Value("${test-session.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${test-session.outbox.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${test-session.outbox.lease-ms:60000}")
+    private long leaseMillis;
+
+    @Value("${test-session.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${test-session.outbox.base-backoff-ms:1000}")
+    private long baseBackoffMillis;
+
+    @Value("${test-session.outbox.max-backoff-ms:300000}")
+    private long maxBackoffMillis;
+
+    private ExecutorService workers;
+
+    @PostConstruct
+    public void start() {
+        workers = Executors.newFixedThreadPool(maxConcurrency);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Deliver due events until the outbox is drained
+     */
+    @Scheduled(fixedDelayString = "${test-session.outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        List<OutboxEvent> batch;
+        do {
+            batch = claim();
+            if (!batch.isEmpty()) {
+                deliver(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private List<OutboxEvent> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> due = outboxEventRepository.lockDueEvents(now, batchSize);
+            LocalDateTime leasedUntil = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+            due.forEach(event -> event.setNextAttemptAt(leasedUntil));
+            return due;
+        });
+    }
+
+    private void deliver(List<OutboxEvent> batch) {
+        List<CompletableFuture<String>> outcomes = batch.stream()
+            .map(event -> CompletableFuture.supplyAsync(() -> send(event), workers))
+            .toList();
+
+        List<Long> delivered = new ArrayList<>();
+        List<OutboxEvent> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            String error = outcomes.get(i).join();
+            if (error == null) {
+                delivered.add(event.getId());
+            } else {
+                reschedule(event, error);
+                failed.add(event);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxEventRepository.deleteAllByIdInBatch(delivered);
+            outboxEventRepository.saveAll(failed);
+        });
+        log.debug("Outbox batch: {} delivered, {} failed", delivered.size(), failed.size());
+    }
+
+    /**
+     * Deliver one event, returning the error or null on success
+     */
+    private String send(OutboxEvent event) {
+        try {
+            switch (event.getEventType()) {
+                case TEST_SUBMITTED -> {
+                    interServiceClient.post("marks-service", "/api/marks/calculate",
+                        Map.of("testSessionId", event.getAggregateId()), Object.class);
+                    log.info("Marks calculation initiated for session: {}", event.getAggregateId());
+                }
+            }
+            return null;
+        } catch (Exception e) {
+            return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+    }
+
+    private void reschedule(OutboxEvent event, String error) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxEvent.OutboxStatus.DEAD);
+            log.error("Outbox event {} ({} for {}) is dead after {} attempts: {}",
+                event.getId(), event.getEventType(), event.getAggregateId(), attempts, error);
+            return;
+        }
+
+        // Exponential backoff with jitter so retries of a failed batch spread out
+        long backoff = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempts - 1, 20));
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        event.setNextAttemptAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(delay)));
+        log.warn("Outbox event {} ({} for {}) failed, attempt {} of {}, retrying in {} ms: {}",
+            event.getId(), event.getEventType(), event.getAggregateId(), attempts, maxAttempts, delay, error);
+    }
+}
@@ -0,0 +1,68 @@
+package com.examportal.test.repository;
+
+import com.examportal.test.entity.ExamWindow;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * ExamWindow Repository
+ * Data access layer for ExamWindow entity
+ */
+@Repository
+public interface ExamWindowRepository extends JpaRepository<ExamWindow, Long> {
+    
+    /**
+     * Find windows in one of the statuses starting at or before a time
+     */
+    List<ExamWindow> findByStatusInAndStartTimeLessThanEqual(Collection<ExamWindow.WindowStatus> statuses,
+                                                             LocalDateTime time);
+    
+    /**
+     * Find windows starting within a time range
+     */
+    List<ExamWindow> findByStartTimeBetween(LocalDateTime from, LocalDateTime to);
+    
+    /**
+     * Find a window together with its roster
+     */
+    @EntityGraph(attributePaths = "roster")
+    Optional<ExamWindow> findWithRosterById(Long id);
+    
+    /**
+     * Count the students on a window's roster
+     */
+    @Query("SELECT COUNT(r) FROM ExamWindow w JOIN w.roster r WHERE w.id = :id")
+    int countRoster(@Param("id") Long id);
+    
+    /**
+     * Move a window from one status to another, returning 0 if it was not in the expected status
+     */
+    @Modifying
+    @Query("UPDATE ExamWindow w SET w.status = :to WHERE w.id = :id AND w.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") ExamWindow.WindowStatus from,
+                   @Param("to") ExamWindow.WindowStatus to);
+    
+    /**
+     * Claim a window for preparing: a SCHEDULED one, or a PREPARING one whose claim was made
+     * before staleBefore (or before claims were timed). Returns 0 if another instance holds it.
+     */
+    @Modifying
+    @Query("UPDATE ExamWindow w SET w.status = :preparing, w.claimedAt = :now WHERE w.id = :id "
+            + "AND (w.status = :scheduled OR (w.status = :preparing "
+            + "AND (w.claimedAt IS NULL OR w.claimedAt < :staleBefore)))")
+    int claim(@Param("id") Long id,
+              @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore,
+              @Param("scheduled") ExamWindow.WindowStatus scheduled,
+              @Param("preparing") ExamWindow.WindowStatus preparing);
+}
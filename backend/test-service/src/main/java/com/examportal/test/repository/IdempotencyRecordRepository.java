@@ -0,0 +1,31 @@
+package com.examportal.test.repository;
+
+import com.examportal.test.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * IdempotencyRecord Repository
+ * Data access layer for IdempotencyRecord entity
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    /**
+     * Find a record that has not expired yet
+     */
+    Optional<IdempotencyRecord> findByScopedKeyAndExpiresAtAfter(String scopedKey, LocalDateTime now);
+    
+    /**
+     * Remove expired records
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
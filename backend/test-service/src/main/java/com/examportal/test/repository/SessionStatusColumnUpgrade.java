@@ -0,0 +1,49 @@
+package com.examportal.test.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Session Status Column Upgrade
+ * Hibernate creates test_sessions.status as a MySQL enum of the statuses known at the time,
+ * and ddl-auto=update never widens it. On tables created before PENDING existed, pre-created
+ * exam window sessions could not be stored, so such a column is turned into a varchar.
+ * A no-op on fresh tables and once done; several instances may run it at once.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SessionStatusColumnUpgrade {
+
+    private static final String SELECT_COLUMN_TYPE =
+        "SELECT COLUMN_TYPE FROM information_schema.COLUMNS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'test_sessions' AND COLUMN_NAME = 'status'";
+    private static final String WIDEN_STATUS = "ALTER TABLE test_sessions MODIFY status varchar(16) NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void upgrade() {
+        try {
+            List<String> columnTypes = jdbcTemplate.queryForList(SELECT_COLUMN_TYPE, String.class);
+            if (columnTypes.isEmpty()) {
+                return;
+            }
+            String columnType = columnTypes.get(0).toLowerCase();
+            if (!columnType.startsWith("enum") || columnType.contains("'pending'")) {
+                return;
+            }
+            jdbcTemplate.execute(WIDEN_STATUS);
+            log.info("Widened test_sessions.status from {} to varchar(16)", columnTypes.get(0));
+        } catch (DataAccessException e) {
+            log.warn("Failed to check test_sessions.status column type: {}", e.getMessage());
+        }
+    }
+}
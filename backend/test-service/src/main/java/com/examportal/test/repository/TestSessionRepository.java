@@ -1,10 +1,24 @@
 package com.examportal.test.repository;
 
+import com.examportal.test.dto.SessionDeadline;
+import com.examportal.test.dto.TestSessionSummary;
 import com.examportal.test.entity.TestSession;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 /**
  * TestSession Repository
@@ -18,6 +32,16 @@ public interface TestSessionRepository extends JpaRepository<TestSession, Long>
      */
     List<TestSession> findByUsn(String usn);
     
+    /**
+     * Find test sessions by packed USN, see UsnCodec
+     */
+    List<TestSession> findByUsnKey(long usnKey);
+    
+    /**
+     * Find test sessions by USN whose packed USN is not filled in yet
+     */
+    List<TestSession> findByUsnAndUsnKeyIsNull(String usn);
+    
     /**
      * Find test sessions by semester
      */
@@ -32,4 +56,110 @@ public interface TestSessionRepository extends JpaRepository<TestSession, Long>
      * Find test sessions by status
      */
     List<TestSession> findByStatus(TestSession.TestStatus status);
+    
+    /**
+     * Find a student's latest exam window session for a question set
+     */
+    Optional<TestSession> findFirstByUsnKeyAndQuestionSetIdAndExamWindowIdNotNullOrderByIdDesc(long usnKey,
+                                                                                             Long questionSetId);
+    
+    /**
+     * Exam window of a student's latest exam window session for a question set
+     */
+    @Query("SELECT s.examWindowId FROM TestSession s WHERE s.usnKey = :usnKey AND s.questionSetId = :questionSetId "
+            + "AND s.examWindowId IS NOT NULL ORDER BY s.id DESC")
+    List<Long> findExamWindowIds(@Param("usnKey") long usnKey,
+                                 @Param("questionSetId") Long questionSetId,
+                                 Limit limit);
+    
+    /**
+     * Start a pre-created PENDING session with the layout of its question set at start,
+     * returning 0 if it was already started
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE TestSession s SET s.status = :started, s.startTime = :now, s.deadline = :deadline, "
+            + "s.answerBits = :answerBits, s.answerLayout = :answerLayout, "
+            + "s.version = s.version + 1 WHERE s.id = :id AND s.status = :pending")
+    int startPending(@Param("id") Long id,
+                     @Param("now") LocalDateTime now,
+                     @Param("deadline") LocalDateTime deadline,
+                     @Param("answerBits") byte[] answerBits,
+                     @Param("answerLayout") byte[] answerLayout,
+                     @Param("pending") TestSession.TestStatus pending,
+                     @Param("started") TestSession.TestStatus started);
+
+    /**
+     * Store the answer layout of a session started before layouts were stored,
+     * returning 0 if another instance stored one first
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE TestSession s SET s.answerLayout = :answerLayout, s.version = s.version + 1 "
+            + "WHERE s.id = :id AND s.answerLayout IS NULL")
+    int adoptLayout(@Param("id") Long id, @Param("answerLayout") byte[] answerLayout);
+    
+    /**
+     * Deadlines of timed sessions in a status within the given partitions (ID modulo partition count),
+     * with ids above the cursor
+     */
+    @Query(DEADLINE_SELECT + "AND s.id > :cursor ORDER BY s.id")
+    List<SessionDeadline> findDeadlines(@Param("status") TestSession.TestStatus status,
+                                        @Param("partitionCount") int partitionCount,
+                                        @Param("partitions") Collection<Integer> partitions,
+                                        @Param("cursor") Long cursor,
+                                        Limit limit);
+    
+    /**
+     * Deadlines of timed sessions in a status within the given partitions started since a time,
+     * with ids above the cursor
+     */
+    @Query(DEADLINE_SELECT + "AND s.startTime >= :startedSince AND s.id > :cursor ORDER BY s.id")
+    List<SessionDeadline> findDeadlinesStartedSince(@Param("status") TestSession.TestStatus status,
+                                                    @Param("partitionCount") int partitionCount,
+                                                    @Param("partitions") Collection<Integer> partitions,
+                                                    @Param("startedSince") LocalDateTime startedSince,
+                                                    @Param("cursor") Long cursor,
+                                                    Limit limit);
+    
+    /**
+     * Page of session summaries with ids below the cursor, newest first
+     * Null filters are folded away by MySQL, leaving an index range scan on the given filters
+     */
+    @Query(SUMMARY_SELECT + "WHERE (:cursor IS NULL OR s.id < :cursor) AND " + SUMMARY_FILTERS + "ORDER BY s.id DESC")
+    List<TestSessionSummary> findSummaries(@Param("cursor") Long cursor,
+                                           @Param("status") TestSession.TestStatus status,
+                                           @Param("semester") Integer semester,
+                                           @Param("department") String department,
+                                           @Param("questionSetId") Long questionSetId,
+                                           Limit limit);
+    
+    /**
+     * Stream session summaries row by row, newest first
+     * Must be consumed and closed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE)) // MySQL row streaming
+    @Query(SUMMARY_SELECT + "WHERE " + SUMMARY_FILTERS + "ORDER BY s.id DESC")
+    Stream<TestSessionSummary> streamSummaries(@Param("status") TestSession.TestStatus status,
+                                               @Param("semester") Integer semester,
+                                               @Param("department") String department,
+                                               @Param("questionSetId") Long questionSetId);
+    
+    /**
+     * IDs of the given sessions that have the given status
+     */
+    @Query("SELECT s.id FROM TestSession s WHERE s.id IN :ids AND s.status = :status")
+    List<Long> findIdsByStatus(@Param("ids") Collection<Long> ids,
+                               @Param("status") TestSession.TestStatus status);
+    
+    String SUMMARY_SELECT = "SELECT new com.examportal.test.dto.TestSessionSummary("
+            + "s.id, s.usn, s.studentName, s.semester, s.department, s.questionSetId, s.status, "
+            + "s.startTime, s.submittedAt) FROM TestSession s ";
+    
+    String DEADLINE_SELECT = "SELECT new com.examportal.test.dto.SessionDeadline(s.id, s.deadline) "
+            + "FROM TestSession s WHERE s.status = :status AND s.deadline IS NOT NULL "
+            + "AND MOD(s.id, :partitionCount) IN :partitions ";
+    
+    String SUMMARY_FILTERS = "(:status IS NULL OR s.status = :status) "
+            + "AND (:semester IS NULL OR s.semester = :semester) "
+            + "AND (:department IS NULL OR s.department = :department) "
+            + "AND (:questionSetId IS NULL OR s.questionSetId = :questionSetId) ";
 }
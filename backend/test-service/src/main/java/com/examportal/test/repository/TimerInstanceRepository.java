@@ -0,0 +1,30 @@
+package com.examportal.test.repository;
+
+import com.examportal.test.entity.TimerInstance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * TimerInstance Repository
+ * Data access layer for TimerInstance entity
+ */
+@Repository
+public interface TimerInstanceRepository extends JpaRepository<TimerInstance, String> {
+    
+    /**
+     * Count instances with a heartbeat after a time
+     */
+    long countByHeartbeatAtAfter(LocalDateTime time);
+    
+    /**
+     * Remove instances without a heartbeat since a time
+     */
+    @Modifying
+    @Query("DELETE FROM TimerInstance i WHERE i.heartbeatAt < :time")
+    int deleteExpired(@Param("time") LocalDateTime time);
+}
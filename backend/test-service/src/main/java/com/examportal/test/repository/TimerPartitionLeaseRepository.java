@@ -0,0 +1,53 @@
+package com.examportal.test.repository;
+
+import com.examportal.test.entity.TimerPartitionLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * TimerPartitionLease Repository
+ * Data access layer for TimerPartitionLease entity
+ */
+@Repository
+public interface TimerPartitionLeaseRepository extends JpaRepository<TimerPartitionLease, Integer> {
+    
+    /**
+     * Take or extend the lease on a partition if it is unowned, expired or already held by the owner,
+     * returning 0 if another instance holds it
+     */
+    @Modifying
+    @Query("UPDATE TimerPartitionLease l SET l.owner = :owner, l.leaseUntil = :leaseUntil "
+            + "WHERE l.partitionId = :partitionId "
+            + "AND (l.owner = :owner OR l.owner IS NULL OR l.leaseUntil < :now)")
+    int acquire(@Param("partitionId") Integer partitionId,
+                @Param("owner") String owner,
+                @Param("now") LocalDateTime now,
+                @Param("leaseUntil") LocalDateTime leaseUntil);
+    
+    /**
+     * Give up the lease on a partition held by the owner
+     */
+    @Modifying
+    @Query("UPDATE TimerPartitionLease l SET l.owner = NULL, l.leaseUntil = NULL "
+            + "WHERE l.partitionId = :partitionId AND l.owner = :owner")
+    int release(@Param("partitionId") Integer partitionId, @Param("owner") String owner);
+    
+    /**
+     * Instances currently holding a lease
+     */
+    @Query("SELECT DISTINCT l.owner FROM TimerPartitionLease l WHERE l.leaseUntil >= :now")
+    List<String> findLiveOwners(@Param("now") LocalDateTime now);
+    
+    /**
+     * Partitions that are unowned or whose lease has expired
+     */
+    @Query("SELECT l.partitionId FROM TimerPartitionLease l "
+            + "WHERE l.owner IS NULL OR l.leaseUntil < :now ORDER BY l.partitionId")
+    List<Integer> findClaimable(@Param("now") LocalDateTime now);
+}
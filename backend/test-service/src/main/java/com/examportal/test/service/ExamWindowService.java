@@ -0,0 +1,30 @@
+package com.examportal.test.service;
+
+import com.examportal.test.dto.CreateExamWindowRequest;
+import com.examportal.test.dto.ExamWindowSummary;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * ExamWindow Service Interface
+ * Defines business operations for scheduled exam windows
+ */
+public interface ExamWindowService {
+    
+    /**
+     * Schedule an exam window for a roster of students
+     * Every student must be eligible for the question set
+     */
+    ExamWindowSummary createExamWindow(CreateExamWindowRequest request);
+    
+    /**
+     * Get exam window by ID
+     */
+    Optional<ExamWindowSummary> getExamWindowById(Long id);
+    
+    /**
+     * Get all exam windows
+     */
+    List<ExamWindowSummary> getAllExamWindows();
+}
@@ -1,10 +1,17 @@
 package com.examportal.test.service;
 
+import com.examportal.test.dto.AnswerBatchAck;
+import com.examportal.test.dto.OutboxStats;
 import com.examportal.test.dto.QuestionSetDTO;
 import com.examportal.test.dto.StartTestRequest;
 import com.examportal.test.dto.SubmitAnswerRequest;
+import com.examportal.test.dto.SubmitAnswersRequest;
+import com.examportal.test.dto.TestSessionFilter;
+import com.examportal.test.dto.TestSessionPage;
 import com.examportal.test.entity.TestSession;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +27,12 @@ public interface TestSessionService {
      */
     TestSession startTest(StartTestRequest request);
     
+    /**
+     * Find the exam window a student is on the roster of for a question set
+     * Empty if the student takes the set outside a window or the USN is malformed
+     */
+    Optional<Long> findExamWindowId(String usn, Long questionSetId);
+    
     /**
      * Get test session by ID
      */
@@ -31,23 +44,52 @@ public interface TestSessionService {
     List<TestSession> getTestSessionsByUsn(String usn);
     
     /**
-     * Get all test sessions (for admin)
+     * Get a page of test session summaries, newest first
+     * Pass the nextCursor of a page to get the following one
      */
-    List<TestSession> getAllTestSessions();
+    TestSessionPage getTestSessions(TestSessionFilter filter, Long cursor, int limit);
+    
+    /**
+     * Write all matching test session summaries as NDJSON or CSV
+     * Rows are streamed from the database, so memory use does not grow with the result
+     */
+    void exportTestSessions(TestSessionFilter filter, String format, OutputStream out) throws IOException;
     
     /**
      * Submit an answer for a question
      */
     TestSession submitAnswer(Long sessionId, SubmitAnswerRequest request);
     
+    /**
+     * Submit a batch of buffered answers
+     * Last write per question wins by client sequence number
+     */
+    AnswerBatchAck submitAnswers(Long sessionId, SubmitAnswersRequest request);
+    
     /**
      * Submit the entire test
-     * Calls Marks Service to calculate results
+     * Queues marks calculation in the outbox, delivered to Marks Service after commit
      */
     TestSession submitTest(Long sessionId);
     
+    /**
+     * Submit a timed test whose deadline has passed, with the answers given so far
+     * Throws IllegalStateException if the session is already completed
+     */
+    TestSession expireTestSession(Long sessionId);
+    
+    /**
+     * Get the backlog of undelivered outbox events
+     */
+    OutboxStats getOutboxStats();
+    
     /**
      * Fetch question set from Question Service
      */
     QuestionSetDTO fetchQuestionSet(Long questionSetId);
+    
+    /**
+     * Fetch the student view of a question set as JSON, to pass on to the browser unchanged
+     */
+    String fetchQuestionSetJson(Long questionSetId);
 }
@@ -0,0 +1,93 @@
+package com.examportal.test.service.impl;
+
+import com.examportal.test.cache.QuestionSetCache;
+import com.examportal.test.dto.CreateExamWindowRequest;
+import com.examportal.test.dto.ExamWindowSummary;
+import com.examportal.test.dto.QuestionSetDTO;
+import com.examportal.test.entity.ExamWindow;
+import com.examportal.test.entity.RosterEntry;
+import com.examportal.test.repository.ExamWindowRepository;
+import com.examportal.test.service.ExamWindowService;
+import com.examportal.test.util.UsnCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * ExamWindow Service Implementation
+ * Implements business logic for scheduled exam windows
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ExamWindowServiceImpl implements ExamWindowService {
+
+    private final ExamWindowRepository examWindowRepository;
+    private final QuestionSetCache questionSetCache;
+
+    @Override
+    public ExamWindowSummary createExamWindow(CreateExamWindowRequest request) {
+        log.info("Scheduling exam window for question set {} at {} with {} students",
+            request.getQuestionSetId(), request.getStartTime(), request.getRoster().size());
+
+        // Validate the roster now so that starting the exam needs no checks
+        QuestionSetDTO questionSet = questionSetCache.get(request.getQuestionSetId());
+        long[] usnKeys = new long[request.getRoster().size()];
+        int count = 0;
+        for (RosterEntry entry : request.getRoster()) {
+            long usnKey = UsnCodec.require(entry.getUsn());
+            usnKeys[count++] = usnKey;
+            if (!questionSet.getSemester().equals(entry.getSemester())) {
+                throw new IllegalArgumentException(
+                    String.format("Question set is for semester %d, but %s is in semester %d",
+                        questionSet.getSemester(), entry.getUsn(), entry.getSemester()));
+            }
+            String department = UsnCodec.department(usnKey);
+            if (!questionSet.getDepartment().equalsIgnoreCase(department)) {
+                throw new IllegalArgumentException(
+                    String.format("Question set is for department %s, but %s is from department %s",
+                        questionSet.getDepartment(), entry.getUsn(), department));
+            }
+        }
+        // Packed keys sort like the USNs, so duplicates end up next to each other
+        Arrays.sort(usnKeys);
+        for (int i = 1; i < usnKeys.length; i++) {
+            if (usnKeys[i] == usnKeys[i - 1]) {
+                throw new IllegalArgumentException("Duplicate USN in roster: " + UsnCodec.decode(usnKeys[i]));
+            }
+        }
+
+        ExamWindow window = new ExamWindow();
+        window.setQuestionSetId(request.getQuestionSetId());
+        window.setStartTime(request.getStartTime());
+        window.setDurationMinutes(request.getDurationMinutes());
+        window.setRoster(request.getRoster());
+
+        ExamWindow saved = examWindowRepository.save(window);
+        log.info("Exam window created with ID: {}", saved.getId());
+        return ExamWindowSummary.of(saved, saved.getRoster().size());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ExamWindowSummary> getExamWindowById(Long id) {
+        log.debug("Fetching exam window with ID: {}", id);
+        return examWindowRepository.findById(id)
+            .map(window -> ExamWindowSummary.of(window, examWindowRepository.countRoster(id)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ExamWindowSummary> getAllExamWindows() {
+        log.debug("Fetching all exam windows");
+        return examWindowRepository.findAll().stream()
+            .map(window -> ExamWindowSummary.of(window, examWindowRepository.countRoster(window.getId())))
+            .toList();
+    }
+}
@@ -1,26 +1,49 @@
 package com.examportal.test.service.impl;
 
+import com.examportal.test.cache.QuestionSetCache;
+import com.examportal.test.channel.AnswerChannelRegistry;
+import com.examportal.test.dto.AnswerBatchAck;
+import com.examportal.test.dto.OutboxStats;
+import com.examportal.test.dto.QuestionDTO;
 import com.examportal.test.dto.QuestionSetDTO;
 import com.examportal.test.dto.StartTestRequest;
 import com.examportal.test.dto.SubmitAnswerRequest;
+import com.examportal.test.dto.SubmitAnswersRequest;
+import com.examportal.test.dto.TestSessionFilter;
+import com.examportal.test.dto.TestSessionPage;
+import com.examportal.test.dto.TestSessionSummary;
+import com.examportal.test.entity.ExamWindow;
+import com.examportal.test.entity.OutboxEvent;
 import com.examportal.test.entity.TestSession;
+import com.examportal.test.live.LiveSessionStore;
+import com.examportal.test.repository.ExamWindowRepository;
+import com.examportal.test.repository.OutboxEventRepository;
 import com.examportal.test.repository.TestSessionRepository;
 import com.examportal.test.service.TestSessionService;
+import com.examportal.test.timer.SessionExpiryScheduler;
+import com.examportal.test.util.AnswerCodec;
 import com.examportal.test.util.USNParser;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.examportal.test.util.UsnCodec;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * TestSession Service Implementation
@@ -32,23 +55,35 @@ import java.util.Optional;
 @Transactional
 public class TestSessionServiceImpl implements TestSessionService {
 
-    private final TestSessionRepository testSessionRepository;
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    @Value("${services.question-service.url:http://localhost:8085}")
-    private String questionServiceUrl;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String CSV_HEADER =
+        "id,usn,studentName,semester,department,questionSetId,status,startTime,submittedAt\n";
 
-    @Value("${services.marks-service.url:http://localhost:8087}")
-    private String marksServiceUrl;
+    private final TestSessionRepository testSessionRepository;
+    private final LiveSessionStore liveSessionStore;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ExamWindowRepository examWindowRepository;
+    private final QuestionSetCache questionSetCache;
+    private final SessionExpiryScheduler sessionExpiryScheduler;
+    private final AnswerChannelRegistry answerChannelRegistry;
+    private final ObjectMapper objectMapper;
 
     @Override
     public TestSession startTest(StartTestRequest request) {
         log.info("Starting test for USN: {}, Question Set: {}", request.getUsn(), request.getQuestionSetId());
 
         // Validate USN format
-        if (!USNParser.isValidUSN(request.getUsn())) {
-            throw new IllegalArgumentException("Invalid USN format: " + request.getUsn());
+        long usnKey = UsnCodec.require(request.getUsn());
+
+        // Students on an exam window roster already have a PENDING session; starting it is a state flip
+        Optional<TestSession> windowSession = testSessionRepository
+            .findFirstByUsnKeyAndQuestionSetIdAndExamWindowIdNotNullOrderByIdDesc(
+                usnKey, request.getQuestionSetId());
+        if (windowSession.isPresent()) {
+            Optional<TestSession> started = startWindowSession(windowSession.get());
+            if (started.isPresent()) {
+                return started.get();
+            }
         }
 
         // Parse USN
@@ -76,138 +111,242 @@ public class TestSessionServiceImpl implements TestSessionService {
         // Create test session
         TestSession session = new TestSession();
         session.setUsn(request.getUsn());
+        session.setUsnKey(usnKey);
         session.setStudentName(request.getStudentName());
         session.setSemester(request.getSemester());
         session.setDepartment(department);
         session.setYearOfAdmission(year);
         session.setQuestionSetId(request.getQuestionSetId());
-        session.setAnswers("{}"); // Empty JSON object
+        long[] layout = AnswerCodec.layout(questionSet.getQuestions().stream().map(QuestionDTO::getId).toList());
+        session.setAnswerBits(AnswerCodec.allocate(layout.length));
+        session.setAnswerLayout(AnswerCodec.encodeLayout(layout));
         session.setStatus(TestSession.TestStatus.IN_PROGRESS);
+        if (questionSet.getDurationMinutes() != null) {
+            session.setDeadline(LocalDateTime.now().plusMinutes(questionSet.getDurationMinutes()));
+        }
 
         TestSession saved = testSessionRepository.save(session);
         log.info("Test session created with ID: {}", saved.getId());
+        sessionExpiryScheduler.schedule(saved);
 
         return saved;
     }
 
+    @Override
+    public Optional<Long> findExamWindowId(String usn, Long questionSetId) {
+        long usnKey = UsnCodec.encode(usn);
+        if (usnKey == UsnCodec.INVALID) {
+            return Optional.empty(); // startTest rejects it
+        }
+        return testSessionRepository.findExamWindowIds(usnKey, questionSetId, Limit.of(1)).stream().findFirst();
+    }
+
+    /**
+     * Start a student's exam window session, or return empty once that window is over
+     * so the student can take the set outside it
+     */
+    private Optional<TestSession> startWindowSession(TestSession session) {
+        ExamWindow window = examWindowRepository.findById(session.getExamWindowId())
+            .orElseThrow(() -> new RuntimeException("Exam window not found with ID: " + session.getExamWindowId()));
+        LocalDateTime now = LocalDateTime.now();
+        if (session.getStatus() != TestSession.TestStatus.PENDING) {
+            if (now.isBefore(window.getEndTime())) {
+                throw new IllegalStateException("Test session is already started");
+            }
+            return Optional.empty();
+        }
+        if (now.isBefore(window.getStartTime())) {
+            throw new IllegalArgumentException("Exam window opens at " + window.getStartTime());
+        }
+        if (!now.isBefore(window.getEndTime())) {
+            throw new IllegalArgumentException("Exam window closed at " + window.getEndTime());
+        }
+
+        // The set's duration counts from the student's start, but never past the end of the window
+        QuestionSetDTO questionSet = fetchQuestionSet(session.getQuestionSetId());
+        Integer durationMinutes = questionSet.getDurationMinutes();
+        LocalDateTime deadline = window.getEndTime();
+        if (durationMinutes != null && now.plusMinutes(durationMinutes).isBefore(deadline)) {
+            deadline = now.plusMinutes(durationMinutes);
+        }
+
+        // The set may have changed since the window was prepared, so positions are fixed only now
+        long[] layout = AnswerCodec.layout(questionSet.getQuestions().stream().map(QuestionDTO::getId).toList());
+        byte[] answerBits = AnswerCodec.allocate(layout.length);
+        byte[] answerLayout = AnswerCodec.encodeLayout(layout);
+        if (testSessionRepository.startPending(session.getId(), now, deadline, answerBits, answerLayout,
+                TestSession.TestStatus.PENDING, TestSession.TestStatus.IN_PROGRESS) == 0) {
+            throw new IllegalStateException("Test session is already started");
+        }
+        session.setStatus(TestSession.TestStatus.IN_PROGRESS);
+        session.setStartTime(now);
+        session.setDeadline(deadline);
+        session.setAnswerBits(answerBits);
+        session.setAnswerLayout(answerLayout);
+        session.setVersion(session.getVersion() + 1);
+        log.info("Started pre-created test session {} of exam window {}", session.getId(), window.getId());
+        sessionExpiryScheduler.schedule(session);
+        return Optional.of(session);
+    }
+
     @Override
     public Optional<TestSession> getTestSessionById(Long id) {
         log.debug("Fetching test session with ID: {}", id);
+        Optional<TestSession> live = liveSessionStore.find(id);
+        if (live.isPresent()) {
+            return live;
+        }
         return testSessionRepository.findById(id);
     }
 
     @Override
     public List<TestSession> getTestSessionsByUsn(String usn) {
         log.debug("Fetching test sessions for USN: {}", usn);
-        return testSessionRepository.findByUsn(usn);
+        long usnKey = UsnCodec.encode(usn);
+        if (usnKey == UsnCodec.INVALID) {
+            return testSessionRepository.findByUsn(usn); // Rows started before the stricter format check
+        }
+        // Rows written by an older instance during a rolling deploy have no key until the next backfill
+        return Stream.concat(testSessionRepository.findByUsnKey(usnKey).stream(),
+            testSessionRepository.findByUsnAndUsnKeyIsNull(usn).stream()).toList();
     }
 
     @Override
-    public List<TestSession> getAllTestSessions() {
-        log.debug("Fetching all test sessions");
-        return testSessionRepository.findAll();
+    @Transactional(readOnly = true)
+    public TestSessionPage getTestSessions(TestSessionFilter filter, Long cursor, int limit) {
+        log.debug("Fetching test sessions after cursor {} with filter {}", cursor, filter);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One extra row tells whether another page follows
+        List<TestSessionSummary> rows = testSessionRepository.findSummaries(cursor, filter.getStatus(),
+            filter.getSemester(), filter.getDepartment(), filter.getQuestionSetId(), Limit.of(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new TestSessionPage(rows, null);
+        }
+        List<TestSessionSummary> items = rows.subList(0, pageSize);
+        return new TestSessionPage(items, items.get(pageSize - 1).getId());
     }
 
     @Override
-    public TestSession submitAnswer(Long sessionId, SubmitAnswerRequest request) {
-        log.info("Submitting answer for session {}, question {}", sessionId, request.getQuestionId());
-
-        TestSession session = testSessionRepository.findById(sessionId)
-            .orElseThrow(() -> new RuntimeException("Test session not found with ID: " + sessionId));
+    @Transactional(readOnly = true)
+    public void exportTestSessions(TestSessionFilter filter, String format, OutputStream out) throws IOException {
+        log.info("Exporting test sessions as {} with filter {}", format, filter);
+        boolean csv = "csv".equalsIgnoreCase(format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (csv) {
+            writer.write(CSV_HEADER);
+        }
 
-        if (session.getStatus() == TestSession.TestStatus.COMPLETED) {
-            throw new IllegalStateException("Test session is already completed");
+        long rows = 0;
+        try (Stream<TestSessionSummary> summaries = testSessionRepository.streamSummaries(filter.getStatus(),
+                filter.getSemester(), filter.getDepartment(), filter.getQuestionSetId())) {
+            Iterator<TestSessionSummary> iterator = summaries.iterator();
+            while (iterator.hasNext()) {
+                TestSessionSummary summary = iterator.next();
+                writer.write(csv ? toCsvLine(summary) : objectMapper.writeValueAsString(summary) + "\n");
+                rows++;
+            }
         }
+        writer.flush();
+        log.info("Exported {} test sessions", rows);
+    }
 
-        // Parse existing answers
-        Map<String, String> answers = parseAnswers(session.getAnswers());
+    private static String toCsvLine(TestSessionSummary summary) {
+        return String.join(",",
+            String.valueOf(summary.getId()),
+            csvField(summary.getUsn()),
+            csvField(summary.getStudentName()),
+            String.valueOf(summary.getSemester()),
+            csvField(summary.getDepartment()),
+            String.valueOf(summary.getQuestionSetId()),
+            summary.getStatus().name(),
+            summary.getStartTime() != null ? summary.getStartTime().toString() : "",
+            summary.getSubmittedAt() != null ? summary.getSubmittedAt().toString() : "") + "\n";
+    }
 
-        // Add/update answer
-        answers.put(request.getQuestionId().toString(), request.getSelectedOption());
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TestSession submitAnswer(Long sessionId, SubmitAnswerRequest request) {
+        log.info("Submitting answer for session {}, question {}", sessionId, request.getQuestionId());
 
-        // Save updated answers
-        session.setAnswers(serializeAnswers(answers));
-        TestSession updated = testSessionRepository.save(session);
+        // Buffered in memory; persisted by the live session store
+        TestSession updated = liveSessionStore.recordAnswer(
+            sessionId, request.getQuestionId(), request.getSelectedOption());
 
-        log.debug("Answer saved for question {}", request.getQuestionId());
+        log.debug("Answer buffered for question {}", request.getQuestionId());
         return updated;
     }
 
     @Override
-    public TestSession submitTest(Long sessionId) {
-        log.info("Submitting test for session: {}", sessionId);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AnswerBatchAck submitAnswers(Long sessionId, SubmitAnswersRequest request) {
+        log.info("Submitting {} answers for session {}", request.getAnswers().size(), sessionId);
 
-        TestSession session = testSessionRepository.findById(sessionId)
-            .orElseThrow(() -> new RuntimeException("Test session not found with ID: " + sessionId));
+        AnswerBatchAck ack = liveSessionStore.recordAnswers(sessionId, request.getAnswers());
 
-        if (session.getStatus() == TestSession.TestStatus.COMPLETED) {
-            throw new IllegalStateException("Test session is already completed");
-        }
+        log.debug("Batch applied for session {} up to sequence {}", sessionId, ack.getAppliedSeq());
+        return ack;
+    }
 
-        // Mark session as completed
-        session.setStatus(TestSession.TestStatus.COMPLETED);
-        session.setEndTime(LocalDateTime.now());
-        session.setSubmittedAt(LocalDateTime.now());
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TestSession submitTest(Long sessionId) {
+        log.info("Submitting test for session: {}", sessionId);
 
-        TestSession updated = testSessionRepository.save(session);
+        TestSession updated = complete(sessionId);
 
-        // Call Marks Service to calculate results
-        try {
-            String url = marksServiceUrl + "/api/marks/calculate";
-            Map<String, Object> request = new HashMap<>();
-            request.put("testSessionId", sessionId);
+        log.info("Test submitted for session: {}, marks calculation queued", sessionId);
+        return updated;
+    }
 
-            log.info("Calling Marks Service at: {}", url);
-            restTemplate.postForObject(url, request, Object.class);
-            log.info("Marks calculation initiated for session: {}", sessionId);
-        } catch (Exception e) {
-            log.error("Failed to call Marks Service: {}", e.getMessage());
-            // Don't fail the submission if marks calculation fails
-        }
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TestSession expireTestSession(Long sessionId) {
+        TestSession updated = complete(sessionId);
 
+        log.info("Time is up for session: {}, auto-submitted with marks calculation queued", sessionId);
         return updated;
     }
 
-    @Override
-    public QuestionSetDTO fetchQuestionSet(Long questionSetId) {
-        String url = questionServiceUrl + "/api/question-sets/" + questionSetId;
-        log.info("Fetching question set from: {}", url);
+    private TestSession complete(Long sessionId) {
+        // Flush buffered answers, mark session as completed and queue marks calculation
+        // in one transaction; the outbox dispatcher calls Marks Service after the commit
+        TestSession completed = liveSessionStore.complete(sessionId, session -> {
+            session.setStatus(TestSession.TestStatus.COMPLETED);
+            session.setEndTime(LocalDateTime.now());
+            session.setSubmittedAt(LocalDateTime.now());
+            outboxEventRepository.save(OutboxEvent.of(OutboxEvent.EventType.TEST_SUBMITTED, sessionId));
+        });
+        answerChannelRegistry.sessionCompleted(sessionId);
+        return completed;
+    }
 
-        try {
-            QuestionSetDTO questionSet = restTemplate.getForObject(url, QuestionSetDTO.class);
-            if (questionSet == null) {
-                throw new RuntimeException("Question set not found with ID: " + questionSetId);
-            }
-            log.info("Fetched question set: {} with {} questions",
-                questionSet.getName(), questionSet.getQuestions().size());
-            return questionSet;
-        } catch (Exception e) {
-            log.error("Failed to fetch question set: {}", e.getMessage());
-            throw new RuntimeException("Failed to fetch question set from Question Service", e);
-        }
+    @Override
+    @Transactional(readOnly = true)
+    public OutboxStats getOutboxStats() {
+        long pending = outboxEventRepository.countByStatus(OutboxEvent.OutboxStatus.PENDING);
+        long dead = outboxEventRepository.countByStatus(OutboxEvent.OutboxStatus.DEAD);
+        LocalDateTime oldest = outboxEventRepository.findOldestCreatedAt(OutboxEvent.OutboxStatus.PENDING);
+        long lagSeconds = oldest != null ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).getSeconds()) : 0;
+        return new OutboxStats(pending, dead, oldest, lagSeconds);
     }
 
-    /**
-     * Parse JSON answers string to Map
-     */
-    private Map<String, String> parseAnswers(String answersJson) {
-        try {
-            return objectMapper.readValue(answersJson, HashMap.class);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to parse answers JSON: {}", e.getMessage());
-            return new HashMap<>();
-        }
+    @Override
+    public QuestionSetDTO fetchQuestionSet(Long questionSetId) {
+        return questionSetCache.get(questionSetId);
     }
 
-    /**
-     * Serialize Map to JSON string
-     */
-    private String serializeAnswers(Map<String, String> answers) {
-        try {
-            return objectMapper.writeValueAsString(answers);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to serialize answers: {}", e.getMessage());
-            return "{}";
-        }
+    @Override
+    public String fetchQuestionSetJson(Long questionSetId) {
+        return questionSetCache.getJson(questionSetId);
     }
 }
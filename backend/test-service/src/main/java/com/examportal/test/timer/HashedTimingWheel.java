@@ -0,0 +1,136 @@
+package com.examportal.test.timer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Hashed Timing Wheel
+ * Timer for a large number of deadlines with O(1) scheduling and expiry per timer.
+ * - A ring of buckets is advanced by one bucket per tick on a single worker thread
+ * - A timer lands in the bucket of its deadline tick and carries the number of
+ *   full rotations left, so deadlines beyond one rotation need no larger wheel
+ * - Scheduling only enqueues; timers are moved into their bucket by the worker
+ * Timers fire up to one tick late and cannot be cancelled; the expiry handler
+ * must ignore timers that no longer apply. The handler runs on the worker thread
+ * and should hand work off rather than block.
+ */
+@Slf4j
+public class HashedTimingWheel {
+
+    private final long tickNanos;
+    private final int mask;
+    private final Queue<Timer>[] buckets;
+    private final Queue<Timer> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongConsumer onExpire;
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, long tickMillis, int wheelSize, LongConsumer onExpire) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = wheelSize - 1;
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.onExpire = onExpire;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Fire the handler with the ID once the deadline (epoch millis) has passed
+     */
+    public void schedule(long id, long deadlineMillis) {
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, deadlineMillis - System.currentTimeMillis()));
+        incoming.add(new Timer(id, System.nanoTime() - startNanos + delayNanos));
+        size.incrementAndGet();
+    }
+
+    /**
+     * Timers scheduled and not yet fired
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void run() {
+        while (running) {
+            long tickEnd = (tick + 1) * tickNanos;
+            long sleepNanos = tickEnd - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            transferIncoming();
+            expire(buckets[(int) (tick & mask)], tickEnd);
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Timer timer;
+        while ((timer = incoming.poll()) != null) {
+            // Timers already due go into the current bucket
+            long deadlineTick = Math.max(tick, timer.deadlineNanos / tickNanos);
+            timer.remainingRounds = (deadlineTick - tick) / buckets.length;
+            buckets[(int) (deadlineTick & mask)].add(timer);
+        }
+    }
+
+    private void expire(Queue<Timer> bucket, long tickEnd) {
+        Iterator<Timer> timers = bucket.iterator();
+        while (timers.hasNext()) {
+            Timer timer = timers.next();
+            if (timer.remainingRounds > 0 || timer.deadlineNanos >= tickEnd) {
+                timer.remainingRounds--;
+                continue;
+            }
+            timers.remove();
+            size.decrementAndGet();
+            try {
+                onExpire.accept(timer.id);
+            } catch (RuntimeException e) {
+                log.error("Timer handler failed for {}: {}", timer.id, e.getMessage());
+            }
+        }
+    }
+
+    private static final class Timer {
+        final long id;
+        final long deadlineNanos; // Relative to the wheel's start
+        long remainingRounds;
+
+        Timer(long id, long deadlineNanos) {
+            this.id = id;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.examportal.test.timer;
+
+import com.examportal.test.dto.SessionDeadline;
+import com.examportal.test.entity.TestSession;
+import com.examportal.test.entity.TimerInstance;
+import com.examportal.test.entity.TimerPartitionLease;
+import com.examportal.test.repository.TestSessionRepository;
+import com.examportal.test.repository.TimerInstanceRepository;
+import com.examportal.test.repository.TimerPartitionLeaseRepository;
+import com.examportal.test.service.TestSessionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Session Expiry Scheduler
+ * Auto-submits timed test sessions when their deadline passes.
+ * - Sessions are split into partitions by ID; each partition is leased in the database
+ *   by one instance, which keeps a timer per IN_PROGRESS session of the partition
+ *   in a hashed timing wheel
+ * - Instances heartbeat and take an even share of the partitions; leases of a
+ *   crashed instance expire and are taken over by the others
+ * - Gaining a partition (including on startup) rebuilds its timers with a keyset scan;
+ *   sessions started on other instances are picked up by a scan of recent starts
+ * - Expired sessions are submitted by a bounded pool; failed submits are retried
+ * A lost lease is noticed at the next renewal, so around a takeover a session may be
+ * submitted by two instances; the second submit is rejected as already completed.
+ */
+@Component
+@Slf4j
+public class SessionExpiryScheduler {
+
+    private final TestSessionRepository testSessionRepository;
+    private final TimerPartitionLeaseRepository leaseRepository;
+    private final TimerInstanceRepository instanceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<TestSessionService> testSessionService;
+    private final MeterRegistry meterRegistry;
+
+    private final String instanceId;
+    private final Set<Integer> ownedPartitions = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Long> scheduledDeadlines = new ConcurrentHashMap<>(); // Session ID -> deadline millis
+    private final Counter submitted;
+    private final Counter skipped;
+    private final Counter failed;
+
+    @Value("${test-session.timer.partitions:64}")
+    private int partitionCount;
+
+    @Value("${test-session.timer.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${test-session.timer.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${test-session.timer.lease-ms:30000}")
+    private long leaseMillis;
+
+    @Value("${test-session.timer.catch-up-overlap-ms:10000}")
+    private long catchUpOverlapMillis;
+
+    @Value("${test-session.timer.scan-batch-size:1000}")
+    private int scanBatchSize;
+
+    @Value("${test-session.timer.submit-concurrency:4}")
+    private int submitConcurrency;
+
+    @Value("${test-session.timer.retry-delay-ms:5000}")
+    private long retryDelayMillis;
+
+    private HashedTimingWheel wheel;
+    private ExecutorService submitters;
+    private LocalDateTime lastCatchUp;
+
+    public SessionExpiryScheduler(TestSessionRepository testSessionRepository,
+                                  TimerPartitionLeaseRepository leaseRepository,
+                                  TimerInstanceRepository instanceRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  ObjectProvider<TestSessionService> testSessionService,
+                                  MeterRegistry meterRegistry) {
+        this.testSessionRepository = testSessionRepository;
+        this.leaseRepository = leaseRepository;
+        this.instanceRepository = instanceRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.testSessionService = testSessionService;
+        this.meterRegistry = meterRegistry;
+        this.instanceId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.submitted = meterRegistry.counter("session_timer.expirations", "result", "submitted");
+        this.skipped = meterRegistry.counter("session_timer.expirations", "result", "skipped");
+        this.failed = meterRegistry.counter("session_timer.expirations", "result", "failed");
+    }
+
+    @PostConstruct
+    public void start() {
+        createPartitions();
+        submitters = Executors.newFixedThreadPool(submitConcurrency);
+        wheel = new HashedTimingWheel("session-expiry-wheel", tickMillis, wheelSize, this::onExpire);
+        Gauge.builder("session_timer.scheduled", wheel, HashedTimingWheel::size).register(meterRegistry);
+        Gauge.builder("session_timer.partitions", ownedPartitions, Set::size).register(meterRegistry);
+        lastCatchUp = LocalDateTime.now();
+        log.info("Session expiry timers running as {} over {} partitions", instanceId, partitionCount);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        wheel.stop();
+        submitters.shutdown();
+        submitters.awaitTermination(10, TimeUnit.SECONDS);
+        // Hand partitions over right away instead of after the lease expires
+        for (Integer partition : ownedPartitions) {
+            transactionTemplate.execute(status -> leaseRepository.release(partition, instanceId));
+        }
+        transactionTemplate.executeWithoutResult(status -> instanceRepository.deleteById(instanceId));
+    }
+
+    /**
+     * Time a session just started on this instance if its partition is owned here;
+     * otherwise the owner picks it up with its next scan of recent starts
+     */
+    public void schedule(TestSession session) {
+        if (session.getDeadline() != null && ownedPartitions.contains(partitionOf(session.getId()))) {
+            track(session.getId(), session.getDeadline());
+        }
+    }
+
+    /**
+     * Heartbeat, renew held leases and move towards an even share of the partitions
+     */
+    @Scheduled(fixedDelayString = "${test-session.timer.lease-renew-interval-ms:10000}")
+    public void renewLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+        LocalDateTime heartbeatCutoff = now.minusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+
+        long instances = transactionTemplate.execute(status -> {
+            instanceRepository.save(new TimerInstance(instanceId, now));
+            instanceRepository.deleteExpired(heartbeatCutoff);
+            return instanceRepository.countByHeartbeatAtAfter(heartbeatCutoff);
+        });
+        int share = (int) ((partitionCount + Math.max(1, instances) - 1) / Math.max(1, instances));
+
+        for (Integer partition : List.copyOf(ownedPartitions)) {
+            if (acquire(partition, now, leaseUntil) == 0) {
+                ownedPartitions.remove(partition);
+                log.warn("Lost timer partition {} to another instance", partition);
+            }
+        }
+
+        List<Integer> surplus = ownedPartitions.stream().sorted().skip(share).toList();
+        for (Integer partition : surplus) {
+            ownedPartitions.remove(partition);
+            transactionTemplate.execute(status -> leaseRepository.release(partition, instanceId));
+        }
+
+        List<Integer> gained = new ArrayList<>();
+        for (Integer partition : leaseRepository.findClaimable(now)) {
+            if (ownedPartitions.size() + gained.size() >= share) {
+                break;
+            }
+            if (acquire(partition, now, leaseUntil) == 1) {
+                gained.add(partition);
+            }
+        }
+        if (!gained.isEmpty() || !surplus.isEmpty()) {
+            log.info("Timer partitions: gained {}, released {}, now holding {} of {} ({} instances)",
+                gained.size(), surplus.size(), ownedPartitions.size() + gained.size(), partitionCount, instances);
+        }
+        if (!gained.isEmpty()) {
+            rebuild(gained);
+        }
+    }
+
+    /**
+     * Time sessions of owned partitions that were started on other instances
+     */
+    @Scheduled(fixedDelayString = "${test-session.timer.catch-up-interval-ms:5000}")
+    public void catchUp() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = lastCatchUp.minusNanos(TimeUnit.MILLISECONDS.toNanos(catchUpOverlapMillis));
+        Set<Integer> partitions = Set.copyOf(ownedPartitions);
+        if (!partitions.isEmpty()) {
+            int found = scan(cursor -> testSessionRepository.findDeadlinesStartedSince(
+                TestSession.TestStatus.IN_PROGRESS, partitionCount, partitions, since, cursor, Limit.of(scanBatchSize)));
+            log.debug("Timer catch-up found {} new sessions started since {}", found, since);
+        }
+        lastCatchUp = now;
+    }
+
+    /**
+     * Time every IN_PROGRESS session of newly gained partitions
+     */
+    private void rebuild(Collection<Integer> partitions) {
+        long started = System.nanoTime();
+        ownedPartitions.addAll(partitions);
+        int found = scan(cursor -> testSessionRepository.findDeadlines(
+            TestSession.TestStatus.IN_PROGRESS, partitionCount, partitions, cursor, Limit.of(scanBatchSize)));
+        log.info("Rebuilt timers for {} partitions: {} sessions in {} ms",
+            partitions.size(), found, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Walk a keyset-paged deadline query and track every session not timed yet
+     */
+    private int scan(Function<Long, List<SessionDeadline>> page) {
+        int found = 0;
+        long cursor = 0;
+        List<SessionDeadline> batch;
+        do {
+            batch = page.apply(cursor);
+            for (SessionDeadline deadline : batch) {
+                if (track(deadline.getId(), deadline.getDeadline())) {
+                    found++;
+                }
+                cursor = deadline.getId();
+            }
+        } while (batch.size() == scanBatchSize);
+        return found;
+    }
+
+    private boolean track(Long sessionId, LocalDateTime deadline) {
+        long deadlineMillis = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (scheduledDeadlines.putIfAbsent(sessionId, deadlineMillis) != null) {
+            return false;
+        }
+        wheel.schedule(sessionId, deadlineMillis);
+        return true;
+    }
+
+    /**
+     * Runs on the wheel thread; the submit itself goes to the pool
+     */
+    private void onExpire(long sessionId) {
+        if (!ownedPartitions.contains(partitionOf(sessionId))) {
+            scheduledDeadlines.remove(sessionId);
+            return;
+        }
+        submitters.execute(() -> expire(sessionId));
+    }
+
+    private void expire(long sessionId) {
+        try {
+            testSessionService.getObject().expireTestSession(sessionId);
+            scheduledDeadlines.remove(sessionId);
+            submitted.increment();
+        } catch (IllegalStateException e) {
+            // Submitted by the student or another instance in the meantime
+            scheduledDeadlines.remove(sessionId);
+            skipped.increment();
+        } catch (RuntimeException e) {
+            if (!exists(sessionId)) {
+                // The start that scheduled it was rolled back
+                scheduledDeadlines.remove(sessionId);
+                skipped.increment();
+                return;
+            }
+            failed.increment();
+            log.warn("Auto-submit of expired session {} failed, retrying in {} ms: {}",
+                sessionId, retryDelayMillis, e.getMessage());
+            wheel.schedule(sessionId, System.currentTimeMillis() + retryDelayMillis);
+        }
+    }
+
+    private boolean exists(long sessionId) {
+        try {
+            return testSessionRepository.existsById(sessionId);
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    private int acquire(Integer partition, LocalDateTime now, LocalDateTime leaseUntil) {
+        Integer updated = transactionTemplate.execute(status ->
+            leaseRepository.acquire(partition, instanceId, now, leaseUntil));
+        return updated != null ? updated : 0;
+    }
+
+    private int partitionOf(long sessionId) {
+        return (int) (sessionId % partitionCount);
+    }
+
+    private void createPartitions() {
+        List<Integer> ids = IntStream.range(0, partitionCount).boxed().toList();
+        Set<Integer> existing = Set.copyOf(leaseRepository.findAllById(ids).stream()
+            .map(TimerPartitionLease::getPartitionId).toList());
+        List<TimerPartitionLease> missing = ids.stream()
+            .filter(id -> !existing.contains(id))
+            .map(TimerPartitionLease::unowned)
+            .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        try {
+            leaseRepository.saveAll(missing);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Timer partitions were created by another instance");
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "test-service";
+        }
+    }
+}
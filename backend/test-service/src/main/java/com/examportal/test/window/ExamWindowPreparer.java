@@ -0,0 +1,135 @@
+package com.examportal.test.window;
+
+import com.examportal.test.cache.QuestionSetCache;
+import com.examportal.test.dto.QuestionSetDTO;
+import com.examportal.test.entity.ExamWindow;
+import com.examportal.test.entity.RosterEntry;
+import com.examportal.test.repository.ExamWindowRepository;
+import com.examportal.test.util.AnswerCodec;
+import com.examportal.test.util.USNParser;
+import com.examportal.test.util.UsnCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Exam Window Preparer
+ * Gets exam windows ready shortly before they open, so that starting the exam is a state flip.
+ * - Every instance warms its question set cache for windows opening within the lead time
+ * - One instance claims each window (SCHEDULED -> PREPARING) and bulk-inserts a PENDING
+ *   session per roster student with JDBC batching, then marks the window PREPARED
+ * - A claim older than claim-lease-ms, e.g. left by an instance that died while preparing,
+ *   is taken over by the next tick of any instance
+ * Inserts skip students that already have a session for the window, so preparing is repeatable.
+ * Windows that have already ended are never prepared.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExamWindowPreparer {
+
+    private static final String INSERT_PENDING_SESSION =
+        "INSERT INTO test_sessions (usn, usn_key, student_name, semester, department, year_of_admission, "
+            + "question_set_id, exam_window_id, start_time, answer_bits, status, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'PENDING', 0) "
+            + "ON DUPLICATE KEY UPDATE id = id";
+
+    private final ExamWindowRepository examWindowRepository;
+    private final QuestionSetCache questionSetCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${test-session.exam-window.prepare-lead-ms:600000}")
+    private long prepareLeadMillis;
+
+    @Value("${test-session.exam-window.insert-batch-size:500}")
+    private int insertBatchSize;
+
+    @Value("${test-session.exam-window.claim-lease-ms:300000}")
+    private long claimLeaseMillis;
+
+    /**
+     * Warm the cache for and prepare every window opening within the lead time
+     */
+    @Scheduled(fixedDelayString = "${test-session.exam-window.prepare-interval-ms:30000}")
+    public void prepareUpcomingWindows() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.plusNanos(prepareLeadMillis * 1_000_000);
+
+        for (ExamWindow window : examWindowRepository.findByStartTimeBetween(now, horizon)) {
+            try {
+                questionSetCache.get(window.getQuestionSetId());
+            } catch (RuntimeException e) {
+                log.warn("Failed to warm question set {} for exam window {}: {}",
+                    window.getQuestionSetId(), window.getId(), e.getMessage());
+            }
+        }
+
+        // Windows that ended while no instance was preparing (e.g. during downtime) are left alone:
+        // nobody can start them any more, so their PENDING sessions would only be dead rows.
+        // The end time is derived from the duration, so it is checked here rather than in the query
+        LocalDateTime staleBefore = now.minusNanos(claimLeaseMillis * 1_000_000);
+        for (ExamWindow window : examWindowRepository.findByStatusInAndStartTimeLessThanEqual(
+                EnumSet.of(ExamWindow.WindowStatus.SCHEDULED, ExamWindow.WindowStatus.PREPARING), horizon)) {
+            if (!window.getEndTime().isAfter(now)) {
+                continue;
+            }
+            Integer claimed = transactionTemplate.execute(status ->
+                examWindowRepository.claim(window.getId(), now, staleBefore,
+                    ExamWindow.WindowStatus.SCHEDULED, ExamWindow.WindowStatus.PREPARING));
+            if (claimed == null || claimed == 0) {
+                continue; // Claimed by another instance
+            }
+            if (window.getStatus() == ExamWindow.WindowStatus.PREPARING) {
+                // Inserts skip existing sessions, so resuming a half-done prepare is safe
+                log.warn("Taking over exam window {} left preparing since {}", window.getId(), window.getClaimedAt());
+            }
+            try {
+                prepare(window.getId());
+            } catch (RuntimeException e) {
+                log.error("Failed to prepare exam window {}, will retry: {}", window.getId(), e.getMessage());
+                transactionTemplate.executeWithoutResult(status -> examWindowRepository.transition(
+                    window.getId(), ExamWindow.WindowStatus.PREPARING, ExamWindow.WindowStatus.SCHEDULED));
+            }
+        }
+    }
+
+    private void prepare(Long windowId) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            ExamWindow window = examWindowRepository.findWithRosterById(windowId)
+                .orElseThrow(() -> new RuntimeException("Exam window not found with ID: " + windowId));
+            QuestionSetDTO questionSet = questionSetCache.get(window.getQuestionSetId());
+            byte[] emptyAnswers = AnswerCodec.allocate(questionSet.getQuestions().size());
+            Timestamp scheduledStart = Timestamp.valueOf(window.getStartTime());
+
+            List<RosterEntry> roster = window.getRoster();
+            jdbcTemplate.batchUpdate(INSERT_PENDING_SESSION, roster, insertBatchSize, (ps, entry) -> {
+                ps.setString(1, entry.getUsn());
+                ps.setLong(2, UsnCodec.require(entry.getUsn()));
+                ps.setString(3, entry.getStudentName());
+                ps.setInt(4, entry.getSemester());
+                ps.setString(5, USNParser.parseDepartment(entry.getUsn()));
+                ps.setString(6, USNParser.parseYear(entry.getUsn()));
+                ps.setLong(7, window.getQuestionSetId());
+                ps.setLong(8, window.getId());
+                ps.setTimestamp(9, scheduledStart);
+                ps.setBytes(10, emptyAnswers);
+            });
+
+            window.setStatus(ExamWindow.WindowStatus.PREPARED);
+            window.setPreparedAt(LocalDateTime.now());
+            log.info("Prepared exam window {}: {} pending sessions in {} ms",
+                windowId, roster.size(), (System.nanoTime() - start) / 1_000_000);
+        });
+    }
+}
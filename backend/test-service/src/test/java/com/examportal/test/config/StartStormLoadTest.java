@@ -0,0 +1,150 @@
+package com.examportal.test.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Modeled start storm comparing platform request threads with the virtual-thread mode.
+ * Every start waits on a remote call, then runs one query on a 10 connection pool
+ * behind the real ConcurrencyLimitingDataSource. A pinning driver holds a monitor
+ * around the query, as mysql-connector-j 8.x does around network I/O.
+ * This is a model on one carrier thread, not a measurement of a deployed pod.
+ * Needs JDK 21 and runs only on request:
+ * JAVA_HOME=/path/to/jdk-21 mvn test -Dtest=StartStormLoadTest -Dload-test=true
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@EnabledIfSystemProperty(named = "load-test", matches = "true")
+class StartStormLoadTest {
+
+    private static final int REQUESTS = 2000;
+    private static final int TOMCAT_THREADS = 200;
+    private static final int POOL_SIZE = 10;
+
+    static {
+        // Must be set before the first virtual thread of the JVM is started
+        System.setProperty("jdk.virtualThreadScheduler.parallelism", "1");
+        System.setProperty("jdk.virtualThreadScheduler.maxPoolSize", "1");
+    }
+
+    @Test
+    void startStorm() throws Exception {
+        System.out.printf("%d simultaneous starts, %d connections, 1 carrier%n", REQUESTS, POOL_SIZE);
+        for (long[] timings : new long[][] {{200, 1}, {40, 3}}) {
+            System.out.printf("remote %d ms, query %d ms         p99   max in flight   req/s%n", timings[0], timings[1]);
+            report("platform pool(" + TOMCAT_THREADS + ")",
+                run(() -> Executors.newFixedThreadPool(TOMCAT_THREADS), timings[0], timings[1], false));
+            report("virtual, pinning driver",
+                run(StartStormLoadTest::virtualThreads, timings[0], timings[1], true));
+            report("virtual, non-pinning driver",
+                run(StartStormLoadTest::virtualThreads, timings[0], timings[1], false));
+        }
+    }
+
+    private static Result run(Supplier<ExecutorService> executors, long remoteMillis, long queryMillis,
+                              boolean pinning) throws Exception {
+        DataSource dataSource = new ConcurrencyLimitingDataSource(pool(), POOL_SIZE, 60_000);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicLong failures = new AtomicLong();
+        long[] latencies = new long[REQUESTS];
+        Future<?>[] futures = new Future<?>[REQUESTS];
+
+        long begin = System.nanoTime();
+        ExecutorService executor = executors.get();
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                int request = i;
+                long submitted = System.nanoTime();
+                futures[i] = executor.submit(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(remoteMillis); // Question set fetch
+                        try (Connection connection = dataSource.getConnection()) {
+                            query(connection, queryMillis, pinning);
+                        }
+                    } catch (InterruptedException | SQLException e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        inFlight.decrementAndGet();
+                        latencies[request] = System.nanoTime() - submitted;
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+
+        assertThat(failures.get()).isZero();
+        Arrays.sort(latencies);
+        return new Result(latencies[(int) Math.ceil(REQUESTS * 0.99) - 1] / 1_000_000,
+            maxInFlight.get(), REQUESTS * 1e9 / elapsedNanos);
+    }
+
+    private static void query(Connection connection, long queryMillis, boolean pinning) throws InterruptedException {
+        if (pinning) {
+            synchronized (connection) {
+                Thread.sleep(queryMillis);
+            }
+        } else {
+            Thread.sleep(queryMillis);
+        }
+    }
+
+    /**
+     * A connection pool of POOL_SIZE connections that blocks while all are in use
+     */
+    private static DataSource pool() throws SQLException {
+        Semaphore connections = new Semaphore(POOL_SIZE, true);
+        DataSource pool = mock(DataSource.class);
+        when(pool.getConnection()).thenAnswer(invocation -> {
+            connections.acquireUninterruptibly();
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName())) {
+                        connections.release();
+                    }
+                    return null;
+                });
+        });
+        return pool;
+    }
+
+    private static ExecutorService virtualThreads() {
+        try {
+            // Compiled for Java 17, so the Java 21 factory is looked up at runtime
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads need JDK 21", e);
+        }
+    }
+
+    private static void report(String mode, Result result) {
+        System.out.printf("  %-30s %6d ms %9d %11.0f%n", mode, result.p99Millis(), result.maxInFlight(), result.requestsPerSecond());
+    }
+
+    private record Result(long p99Millis, int maxInFlight, double requestsPerSecond) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.examportal.test.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentKeyFilterTest {
+
+    @Test
+    void neverMissesAnAddedKeyAndRarelyReportsAFreshOne() {
+        RecentKeyFilter filter = new RecentKeyFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("answer:42:" + i);
+        }
+
+        assertThat(IntStream.range(0, 10_000)).allMatch(i -> filter.mightContain("answer:42:" + i));
+        long falsePositives = IntStream.range(0, 10_000)
+            .filter(i -> filter.mightContain("answer:42:" + UUID.randomUUID()))
+            .count();
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void keysAreRememberedForOneFullRotationOnly() {
+        RecentKeyFilter filter = new RecentKeyFilter(1_000, 0.01);
+        filter.add("submit:7:first");
+
+        filter.rotate();
+        filter.add("submit:7:second");
+        assertThat(filter.mightContain("submit:7:first")).isTrue();
+
+        filter.rotate();
+        assertThat(filter.mightContain("submit:7:first")).isFalse();
+        assertThat(filter.mightContain("submit:7:second")).isTrue();
+    }
+}
@@ -0,0 +1,298 @@
+package com.examportal.test.live;
+
+import com.examportal.test.cache.QuestionSetCache;
+import com.examportal.test.entity.OutboxEvent;
+import com.examportal.test.entity.TestSession;
+import com.examportal.test.journal.AnswerJournal;
+import com.examportal.test.repository.OutboxEventRepository;
+import com.examportal.test.repository.TestSessionRepository;
+import com.examportal.test.util.AnswerCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Stress and crash tests of the write-behind answer buffer against an in-memory database.
+ * Two stores stand in for two instances serving the same sessions.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "logging.level.org.hibernate.orm.jdbc.batch=OFF" // Version conflicts are expected here
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LiveSessionStoreStressTest {
+
+    private static final String OPTIONS = "ABCD";
+    private static final long FIRST_QUESTION_ID = 101;
+    private static final int QUESTIONS = 60;
+
+    @Autowired
+    private TestSessionRepository testSessionRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path journalRoot;
+
+    private final QuestionSetCache questionSetCache = mock(QuestionSetCache.class);
+
+    @Test
+    void concurrentWritersOnTwoInstancesLoseNoAnswers() throws Exception {
+        int sessionCount = 10;
+        int writersPerSession = 8;
+        int rounds = 5;
+        List<LiveSessionStore> stores = List.of(
+            newStore(openJournal(journalRoot.resolve("a")), 10),
+            newStore(openJournal(journalRoot.resolve("b")), 10));
+        List<Long> sessionIds = new ArrayList<>();
+        for (int i = 0; i < sessionCount; i++) {
+            sessionIds.add(createSession("1MS22CS" + String.format("%03d", i)));
+        }
+
+        // Each writer owns the questions congruent to its index and rewrites them every round;
+        // writers of one session alternate between the two instances
+        ExecutorService executor = Executors.newFixedThreadPool(sessionCount * writersPerSession + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong answersWritten = new AtomicLong();
+        AtomicLong retries = new AtomicLong();
+        List<Future<?>> writers = new ArrayList<>();
+        for (Long sessionId : sessionIds) {
+            for (int writer = 0; writer < writersPerSession; writer++) {
+                int owner = writer;
+                LiveSessionStore store = stores.get(writer % stores.size());
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < rounds; round++) {
+                        for (int question = owner; question < QUESTIONS; question += writersPerSession) {
+                            while (true) {
+                                try {
+                                    store.recordAnswer(sessionId, FIRST_QUESTION_ID + question, option(question, round));
+                                    answersWritten.incrementAndGet();
+                                    break;
+                                } catch (WriteUnavailableException e) {
+                                    retries.incrementAndGet(); // 503 with Retry-After; the client resends
+                                }
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+        }
+        Future<?> flusher = executor.submit(() -> {
+            while (writing.get()) {
+                stores.forEach(LiveSessionStore::flushDirtySessions);
+                Thread.sleep(5);
+            }
+            return null;
+        });
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(2, TimeUnit.MINUTES);
+        }
+        writing.set(false);
+        flusher.get(1, TimeUnit.MINUTES);
+        stores.forEach(LiveSessionStore::flushAll);
+        long elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+
+        System.out.printf("%d answers from %d concurrent writers in %d ms (%.0f answers/s, %d client retries)%n",
+            answersWritten.get(), writers.size(), elapsedNanos / 1_000_000,
+            answersWritten.get() * 1e9 / elapsedNanos, retries.get());
+        assertThat(answersWritten.get()).isEqualTo((long) sessionCount * QUESTIONS * rounds);
+        for (Long sessionId : sessionIds) {
+            byte[] stored = testSessionRepository.findById(sessionId).orElseThrow().getAnswerBits();
+            for (int question = 0; question < QUESTIONS; question++) {
+                assertThat(AnswerCodec.decodeOption(AnswerCodec.get(stored, question)))
+                    .as("session %d question %d", sessionId, question)
+                    .isEqualTo(option(question, rounds - 1));
+            }
+        }
+    }
+
+    @Test
+    void answersBufferedAtCrashAreRecoveredFromTheJournal() throws Exception {
+        Path directory = journalRoot.resolve("crash");
+        Long sessionId = createSession("1MS22CS100");
+        LiveSessionStore crashed = newStore(openJournal(directory), Integer.MAX_VALUE);
+        for (int question = 0; question < QUESTIONS; question++) {
+            crashed.recordAnswer(sessionId, FIRST_QUESTION_ID + question, option(question, 0));
+        }
+        assertThat(AnswerCodec.countAnswered(
+            testSessionRepository.findById(sessionId).orElseThrow().getAnswerBits(), QUESTIONS)).isZero();
+
+        // The process dies without flushing, halfway through writing the next record
+        tearNextRecord(directory, QUESTIONS);
+
+        AnswerJournal reopened = openJournal(directory);
+        assertThat(reopened.recoveredRecords()).hasSize(QUESTIONS)
+            .allSatisfy(record -> assertThat(record.layoutTag()).isEqualTo(AnswerJournal.layoutTag(layout())));
+        newStore(reopened, Integer.MAX_VALUE).recoverJournal();
+
+        byte[] stored = testSessionRepository.findById(sessionId).orElseThrow().getAnswerBits();
+        for (int question = 0; question < QUESTIONS; question++) {
+            assertThat(AnswerCodec.decodeOption(AnswerCodec.get(stored, question))).isEqualTo(option(question, 0));
+        }
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertThat(segments.count()).as("only the new active segment is left").isEqualTo(1);
+        }
+    }
+
+    @Test
+    void answersBufferedOnTheAffinityInstanceSurviveADeadlineAutoSubmitElsewhere() {
+        Long sessionId = createSession("1MS22CS200");
+        LiveSessionStore affinity = newStore(openJournal(journalRoot.resolve("affinity")), Integer.MAX_VALUE);
+        LocalDateTime deadline = bufferAnswersThenAutoSubmitElsewhere(sessionId, affinity, "owner");
+
+        affinity.flushDirtySessions();
+
+        assertAutoSubmittedWithBufferedAnswers(sessionId, deadline);
+    }
+
+    @Test
+    void studentSubmitOnTheAffinityInstanceAfterADeadlineAutoSubmitKeepsBufferedAnswers() {
+        Long sessionId = createSession("1MS22CS201");
+        LiveSessionStore affinity = newStore(openJournal(journalRoot.resolve("affinity-submit")), Integer.MAX_VALUE);
+        LocalDateTime deadline = bufferAnswersThenAutoSubmitElsewhere(sessionId, affinity, "owner-submit");
+
+        // The student's own submit reaches the affinity instance in the grace period
+        TestSession submitted = affinity.complete(sessionId, completed -> {
+            completed.setStatus(TestSession.TestStatus.COMPLETED);
+            completed.setSubmittedAt(LocalDateTime.now());
+        });
+
+        assertThat(submitted.getStatus()).isEqualTo(TestSession.TestStatus.COMPLETED);
+        assertAutoSubmittedWithBufferedAnswers(sessionId, deadline);
+        assertThat(affinity.find(sessionId)).as("evicted after the final write").isEmpty();
+    }
+
+    /**
+     * Buffer an answer to every question on the affinity store, then auto-submit the session at its
+     * deadline on the timer partition owner, which never saw those answers. Returns the deadline.
+     */
+    private LocalDateTime bufferAnswersThenAutoSubmitElsewhere(Long sessionId, LiveSessionStore affinity,
+                                                              String ownerJournal) {
+        LiveSessionStore timerOwner = newStore(openJournal(journalRoot.resolve(ownerJournal)), Integer.MAX_VALUE);
+        LocalDateTime deadline = LocalDateTime.now().plusSeconds(1).truncatedTo(ChronoUnit.MILLIS);
+        TestSession session = testSessionRepository.findById(sessionId).orElseThrow();
+        session.setDeadline(deadline);
+        testSessionRepository.save(session);
+        for (int question = 0; question < QUESTIONS; question++) {
+            affinity.recordAnswer(sessionId, FIRST_QUESTION_ID + question, option(question, 0));
+        }
+
+        timerOwner.complete(sessionId, completed -> {
+            completed.setStatus(TestSession.TestStatus.COMPLETED);
+            completed.setEndTime(deadline);
+            completed.setSubmittedAt(deadline);
+        });
+        return deadline;
+    }
+
+    private void assertAutoSubmittedWithBufferedAnswers(Long sessionId, LocalDateTime deadline) {
+        TestSession stored = testSessionRepository.findById(sessionId).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(TestSession.TestStatus.COMPLETED);
+        assertThat(stored.getSubmittedAt()).as("the timer's completion is kept").isEqualTo(deadline);
+        for (int question = 0; question < QUESTIONS; question++) {
+            assertThat(AnswerCodec.decodeOption(AnswerCodec.get(stored.getAnswerBits(), question)))
+                .as("question %d", question).isEqualTo(option(question, 0));
+        }
+        assertThat(outboxEventRepository.findAll())
+            .anySatisfy(event -> {
+                assertThat(event.getEventType()).isEqualTo(OutboxEvent.EventType.TEST_SUBMITTED);
+                assertThat(event.getAggregateId()).isEqualTo(sessionId);
+            });
+    }
+
+    private Long createSession(String usn) {
+        long[] layout = layout();
+        TestSession session = new TestSession();
+        session.setUsn(usn);
+        session.setStudentName("Student " + usn);
+        session.setSemester(5);
+        session.setDepartment("CS");
+        session.setQuestionSetId(1L);
+        session.setAnswerBits(AnswerCodec.allocate(layout.length));
+        session.setAnswerLayout(AnswerCodec.encodeLayout(layout));
+        session.setStatus(TestSession.TestStatus.IN_PROGRESS);
+        return testSessionRepository.save(session).getId();
+    }
+
+    private static long[] layout() {
+        return LongStream.range(FIRST_QUESTION_ID, FIRST_QUESTION_ID + QUESTIONS).toArray();
+    }
+
+    private LiveSessionStore newStore(AnswerJournal journal, int maxUnflushedAnswers) {
+        LiveSessionStore store = new LiveSessionStore(
+            testSessionRepository, outboxEventRepository, questionSetCache, journal, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(store, "maxUnflushedAnswers", maxUnflushedAnswers);
+        ReflectionTestUtils.setField(store, "flushBatchSize", 200);
+        ReflectionTestUtils.setField(store, "idleEvictionMs", 1_800_000L);
+        ReflectionTestUtils.setField(store, "maxMergeRetries", 5);
+        ReflectionTestUtils.setField(store, "answerGraceMillis", 5_000L);
+        return store;
+    }
+
+    private static AnswerJournal openJournal(Path directory) {
+        AnswerJournal journal = new AnswerJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "directory", directory);
+        ReflectionTestUtils.setField(journal, "segmentSizeBytes", 64 * 1024);
+        ReflectionTestUtils.invokeMethod(journal, "open");
+        return journal;
+    }
+
+    /**
+     * Write the first half of a record after the last complete one of the newest segment
+     */
+    private static void tearNextRecord(Path directory, int recordsWritten) throws IOException {
+        Path newest;
+        try (Stream<Path> segments = Files.list(directory)) {
+            newest = segments.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(newest, StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(16).putLong(42L).putLong(FIRST_QUESTION_ID).flip();
+            channel.write(torn, 16 + (long) recordsWritten * 32);
+        }
+    }
+
+    private static String option(int question, int round) {
+        return String.valueOf(OPTIONS.charAt((question + round) % OPTIONS.length()));
+    }
+}
@@ -0,0 +1,62 @@
+package com.examportal.test.repository;
+
+import com.examportal.test.entity.ExamWindow;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExamWindowRepositoryTest {
+
+    private static final ExamWindow.WindowStatus SCHEDULED = ExamWindow.WindowStatus.SCHEDULED;
+    private static final ExamWindow.WindowStatus PREPARING = ExamWindow.WindowStatus.PREPARING;
+
+    @Autowired
+    private ExamWindowRepository examWindowRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void aScheduledWindowIsClaimedOnce() {
+        Long id = createWindow();
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(claim(id, now, now.minusMinutes(5))).isEqualTo(1);
+        assertThat(claim(id, now, now.minusMinutes(5))).as("held by the first claim").isZero();
+        assertThat(examWindowRepository.findById(id).orElseThrow().getStatus()).isEqualTo(PREPARING);
+    }
+
+    @Test
+    void aStaleClaimIsTakenOver() {
+        Long id = createWindow();
+        LocalDateTime claimedAt = LocalDateTime.now().minusMinutes(10);
+        assertThat(claim(id, claimedAt, claimedAt.minusMinutes(5))).isEqualTo(1);
+
+        LocalDateTime now = LocalDateTime.now();
+        assertThat(claim(id, now, now.minusMinutes(5))).isEqualTo(1);
+        assertThat(examWindowRepository.findById(id).orElseThrow().getClaimedAt()).isAfter(claimedAt);
+    }
+
+    private int claim(Long id, LocalDateTime now, LocalDateTime staleBefore) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+            examWindowRepository.claim(id, now, staleBefore, SCHEDULED, PREPARING));
+    }
+
+    private Long createWindow() {
+        ExamWindow window = new ExamWindow();
+        window.setQuestionSetId(1L);
+        window.setStartTime(LocalDateTime.now().plusMinutes(5));
+        window.setDurationMinutes(60);
+        return examWindowRepository.save(window).getId();
+    }
+}
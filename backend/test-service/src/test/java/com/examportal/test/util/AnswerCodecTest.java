@@ -0,0 +1,101 @@
+package com.examportal.test.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnswerCodecTest {
+
+    @Test
+    void roundTripsEveryPositionIncludingThoseSpanningTwoBytes() {
+        int questionCount = 100;
+        byte[] bits = AnswerCodec.allocate(questionCount);
+        assertThat(bits).hasSize(38);
+
+        int[] expected = new int[questionCount];
+        Random random = new Random(42);
+        for (int position = 0; position < questionCount; position++) {
+            expected[position] = random.nextInt(5);
+            AnswerCodec.set(bits, position, expected[position]);
+        }
+        for (int position = 0; position < questionCount; position++) {
+            assertThat(AnswerCodec.get(bits, position)).as("position %d", position).isEqualTo(expected[position]);
+        }
+    }
+
+    @Test
+    void writingAPositionLeavesItsNeighboursIntact() {
+        byte[] bits = AnswerCodec.allocate(8); // 24 bits: positions 2 and 5 straddle a byte boundary
+        for (int position = 0; position < 8; position++) {
+            AnswerCodec.set(bits, position, 4);
+        }
+
+        AnswerCodec.set(bits, 2, 1);
+        AnswerCodec.set(bits, 5, 2);
+
+        assertThat(AnswerCodec.get(bits, 1)).isEqualTo(4);
+        assertThat(AnswerCodec.get(bits, 2)).isEqualTo(1);
+        assertThat(AnswerCodec.get(bits, 3)).isEqualTo(4);
+        assertThat(AnswerCodec.get(bits, 4)).isEqualTo(4);
+        assertThat(AnswerCodec.get(bits, 5)).isEqualTo(2);
+        assertThat(AnswerCodec.get(bits, 6)).isEqualTo(4);
+        assertThat(AnswerCodec.countAnswered(bits, 8)).isEqualTo(8);
+    }
+
+    @Test
+    void lastPositionFitsInTheFinalByte() {
+        byte[] bits = AnswerCodec.allocate(3); // 9 bits, the last answer starts at bit 6 of byte 0
+        AnswerCodec.set(bits, 2, 3);
+
+        assertThat(bits).hasSize(2);
+        assertThat(AnswerCodec.get(bits, 2)).isEqualTo(3);
+        assertThat(AnswerCodec.get(bits, 3)).isEqualTo(AnswerCodec.UNANSWERED);
+        assertThat(AnswerCodec.get(null, 0)).isEqualTo(AnswerCodec.UNANSWERED);
+    }
+
+    @Test
+    void rejectsCodesOutsideTheOptionRange() {
+        byte[] bits = AnswerCodec.allocate(4);
+
+        assertThatThrownBy(() -> AnswerCodec.set(bits, 0, 5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> AnswerCodec.encodeOption("E")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(AnswerCodec.decodeOption(AnswerCodec.encodeOption("c"))).isEqualTo("C");
+    }
+
+    @Test
+    void layoutIsSortedAndRoundTripsThroughItsEncoding() {
+        long[] layout = AnswerCodec.layout(List.of(907L, 3L, 128L, 5_000_000_000L, 129L));
+
+        assertThat(layout).containsExactly(3L, 128L, 129L, 907L, 5_000_000_000L);
+        assertThat(AnswerCodec.positionOf(layout, 907L)).isEqualTo(3);
+        assertThat(AnswerCodec.positionOf(layout, 4L)).isEqualTo(-1);
+        assertThat(AnswerCodec.decodeLayout(AnswerCodec.encodeLayout(layout))).containsExactly(layout);
+        assertThat(AnswerCodec.decodeLayout(AnswerCodec.encodeLayout(new long[0]))).isEmpty();
+    }
+
+    @Test
+    void storedLayoutKeepsPositionsWhenTheSetChanges() {
+        byte[] stored = AnswerCodec.encodeLayout(AnswerCodec.layout(List.of(10L, 20L, 30L)));
+        byte[] bits = AnswerCodec.allocate(3);
+        AnswerCodec.set(bits, AnswerCodec.positionOf(AnswerCodec.decodeLayout(stored), 20L), 2);
+
+        // Question 15 joins the set after the session started; question 20 must stay at its position
+        long[] current = AnswerCodec.layout(List.of(10L, 15L, 20L, 30L));
+        long[] layout = AnswerCodec.decodeLayout(stored);
+
+        assertThat(AnswerCodec.get(bits, AnswerCodec.positionOf(layout, 20L))).isEqualTo(2);
+        assertThat(AnswerCodec.get(bits, AnswerCodec.positionOf(current, 20L))).isEqualTo(AnswerCodec.UNANSWERED);
+    }
+
+    @Test
+    void rejectsUnsortedOrTruncatedLayouts() {
+        assertThatThrownBy(() -> AnswerCodec.encodeLayout(new long[] {5L, 5L}))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> AnswerCodec.decodeLayout(new byte[] {(byte) 0x80}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,119 @@
+package com.examportal.test.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Microbenchmark of UsnCodec against the USN parsing it replaced.
+ * JMH is not part of this build, so this is a warmed-up loop over random USNs in one thread;
+ * compare the two rows with each other rather than reading them as absolute costs.
+ * Allocation is read from the JVM's per-thread allocation counter.
+ * Runs only on request:
+ * mvn test -Dtest=UsnCodecBenchmarkTest -Dload-test=true
+ */
+@EnabledIfSystemProperty(named = "load-test", matches = "true")
+class UsnCodecBenchmarkTest {
+
+    private static final int USNS = 4096;
+    private static final int OPERATIONS = 20_000_000;
+    private static final int ROUNDS = 3;
+    private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    @Test
+    void codecVersusLegacyParser() {
+        String[] usns = randomUsns(new Random(42), USNS);
+        System.out.printf("%d random USNs, %d operations per round%n", USNS, OPERATIONS);
+        System.out.printf("  %-57s %7s %8s%n", "", "ns/op", "B/op");
+        Result codec = null;
+        for (int round = 1; round <= ROUNDS; round++) {
+            report(round, "legacy isValidUSN + parseYear + parseDepartment", measure(usns, LegacyUsnParser::parse));
+            codec = measure(usns, UsnCodec::encode);
+            report(round, "UsnCodec.encode", codec);
+        }
+        assertThat(codec.bytesPerOperation()).isLessThan(1.0);
+    }
+
+    static String[] randomUsns(Random random, int count) {
+        String[] usns = new String[count];
+        for (int i = 0; i < count; i++) {
+            usns[i] = String.format("%d%c%c%02d%c%c%03d", random.nextInt(10),
+                LETTERS.charAt(random.nextInt(26)), LETTERS.charAt(random.nextInt(26)), random.nextInt(100),
+                LETTERS.charAt(random.nextInt(26)), LETTERS.charAt(random.nextInt(26)), random.nextInt(1000));
+        }
+        return usns;
+    }
+
+    private static Result measure(String[] usns, ToLongFunction<String> operation) {
+        long sink = 0;
+        for (int i = 0; i < OPERATIONS / 10; i++) { // Warm-up
+            sink += operation.applyAsLong(usns[i & (USNS - 1)]);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long begin = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            sink += operation.applyAsLong(usns[i & (USNS - 1)]);
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        assertThat(sink).isNotZero(); // Keeps the results alive
+        return new Result(elapsedNanos / (double) OPERATIONS, allocated / (double) OPERATIONS);
+    }
+
+    private static void report(int round, String operation, Result result) {
+        System.out.printf("  round %d  %-48s %7.1f %8.1f%n", round, operation,
+            result.nanosPerOperation(), result.bytesPerOperation());
+    }
+
+    private record Result(double nanosPerOperation, double bytesPerOperation) {
+    }
+
+    /**
+     * USNParser as it was before UsnCodec, including its debug logging
+     */
+    private static final class LegacyUsnParser {
+
+        private static final Logger log = LoggerFactory.getLogger(LegacyUsnParser.class);
+
+        static long parse(String usn) {
+            if (!isValidUSN(usn)) {
+                return 0;
+            }
+            return parseYear(usn).hashCode() * 31L + parseDepartment(usn).hashCode();
+        }
+
+        static String parseYear(String usn) {
+            String year = usn.substring(3, 5);
+            log.debug("Parsed year from USN {}: {}", usn, year);
+            return year;
+        }
+
+        static String parseDepartment(String usn) {
+            String department = usn.substring(5, 7);
+            log.debug("Parsed department from USN {}: {}", usn, department);
+            return department;
+        }
+
+        static boolean isValidUSN(String usn) {
+            if (usn == null || usn.length() < 10) {
+                return false;
+            }
+            try {
+                String year = usn.substring(3, 5);
+                String dept = usn.substring(5, 7);
+                Integer.parseInt(year);
+                return dept.matches("[A-Z]{2}");
+            } catch (Exception e) {
+                return false;
+            }
+        }
+    }
+}
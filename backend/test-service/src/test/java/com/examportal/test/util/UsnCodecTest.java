@@ -0,0 +1,47 @@
+package com.examportal.test.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UsnCodecTest {
+
+    @Test
+    void roundTripsAndExposesTheFields() {
+        long key = UsnCodec.encode("1MS22CS023");
+
+        assertThat(key).isNotEqualTo(UsnCodec.INVALID);
+        assertThat(UsnCodec.decode(key)).isEqualTo("1MS22CS023");
+        assertThat(UsnCodec.yearOfAdmission(key)).isEqualTo(22);
+        assertThat(UsnCodec.department(key)).isEqualTo("CS");
+        assertThat(UsnCodec.rollNumber(key)).isEqualTo(23);
+        assertThat(UsnCodec.decode(UsnCodec.encode("9ZZ99ZZ999"))).isEqualTo("9ZZ99ZZ999");
+        assertThat(UsnCodec.decode(UsnCodec.encode("0AA00AA000"))).isEqualTo("0AA00AA000");
+    }
+
+    @Test
+    void keysSortLikeTheUsnStrings() {
+        String[] usns = UsnCodecBenchmarkTest.randomUsns(new Random(7), 2000);
+        long[] keys = Arrays.stream(usns).mapToLong(UsnCodec::encode).toArray();
+
+        Arrays.sort(usns);
+        Arrays.sort(keys);
+        for (int i = 0; i < usns.length; i++) {
+            assertThat(UsnCodec.decode(keys[i])).isEqualTo(usns[i]);
+        }
+    }
+
+    @Test
+    void rejectsMalformedUsns() {
+        for (String usn : new String[] {null, "", "1MS22CS02", "1MS22CS0234", "1ms22cs023", "AMS22CS023",
+                "1M522CS023", "1MSX2CS023", "1MS22C5023", "1MS22CS02A", "1MS22CS 23"}) {
+            assertThat(UsnCodec.encode(usn)).as(usn).isEqualTo(UsnCodec.INVALID);
+            assertThat(USNParser.isValidUSN(usn)).as(usn).isFalse();
+        }
+        assertThatThrownBy(() -> UsnCodec.require("1MS22CS02")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
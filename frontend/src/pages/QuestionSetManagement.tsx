@@ -2,11 +2,11 @@ import { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { Plus, ArrowLeft, Loader2, Save, X } from 'lucide-react';
 import axios from 'axios';
-import type { QuestionSet, Question } from '../types';
+import type { QuestionSetSummary, Question } from '../types';
 
 const QuestionSetManagement = () => {
     const navigate = useNavigate();
-    const [questionSets, setQuestionSets] = useState<QuestionSet[]>([]);
+    const [questionSets, setQuestionSets] = useState<QuestionSetSummary[]>([]);
     const [allQuestions, setAllQuestions] = useState<Question[]>([]);
     const [loading, setLoading] = useState(true);
     const [showForm, setShowForm] = useState(false);
@@ -53,9 +53,11 @@ const QuestionSetManagement = () => {
 
             const setId = setResponse.data.id;
 
-            // Add selected questions to the set
-            for (const questionId of selectedQuestions) {
-                await axios.post(`http://localhost:8080/api/question-sets/${setId}/questions/${questionId}`);
+            // Add selected questions to the set in one request
+            if (selectedQuestions.length > 0) {
+                await axios.post(`http://localhost:8080/api/question-sets/${setId}/questions`, {
+                    questionIds: selectedQuestions
+                });
             }
 
             setShowForm(false);
@@ -266,7 +268,7 @@ const QuestionSetManagement = () => {
                                             {set.department}
                                         </span>
                                         <span className="text-gray-600">
-                                            {set.questions.length} questions
+                                            {set.questionCount} questions
                                         </span>
                                     </div>
                                 </div>
@@ -4,6 +4,9 @@ import { Trophy, CheckCircle, XCircle, Home, Loader2, BarChart3 } from 'lucide-r
 import { getResultBySessionId } from '../services/api';
 import type { Result } from '../types';
 
+const RESULT_POLL_ATTEMPTS = 10;
+const RESULT_POLL_INTERVAL_MS = 1000;
+
 const ResultsDisplay = () => {
     const { sessionId } = useParams();
     const navigate = useNavigate();
@@ -17,15 +20,22 @@ const ResultsDisplay = () => {
     }, [sessionId]);
 
     const fetchResult = async (id: number) => {
-        try {
-            setLoading(true);
-            const data = await getResultBySessionId(id);
-            setResult(data);
-        } catch (err) {
-            console.error('Failed to fetch result:', err);
-        } finally {
-            setLoading(false);
+        setLoading(true);
+        // Marks are calculated asynchronously after submission, so poll briefly
+        for (let attempt = 1; attempt <= RESULT_POLL_ATTEMPTS; attempt++) {
+            try {
+                const data = await getResultBySessionId(id);
+                setResult(data);
+                break;
+            } catch (err) {
+                if (attempt === RESULT_POLL_ATTEMPTS) {
+                    console.error('Failed to fetch result:', err);
+                } else {
+                    await new Promise(resolve => setTimeout(resolve, RESULT_POLL_INTERVAL_MS));
+                }
+            }
         }
+        setLoading(false);
     };
 
     const handleNewTest = () => {
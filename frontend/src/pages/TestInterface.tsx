@@ -1,8 +1,9 @@
-import { useState, useEffect } from 'react';
+import { useState, useEffect, useRef } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
 import { CheckCircle2, Circle, Loader2, Send } from 'lucide-react';
-import { startTest, submitAnswer, submitTest } from '../services/api';
-import type { Student, Question, StartTestResponse } from '../types';
+import { startTest, submitAnswers, submitTest } from '../services/api';
+import { openAnswerChannel, type AnswerChannel } from '../services/answerChannel';
+import type { Student, Question, StartTestResponse, AnswerEntry } from '../types';
 
 const TestInterface = () => {
     const { sessionId } = useParams();
@@ -14,6 +15,11 @@ const TestInterface = () => {
     const [loading, setLoading] = useState(true);
     const [submitting, setSubmitting] = useState(false);
     const [testSessionId, setTestSessionId] = useState<number | null>(null);
+    const [secondsLeft, setSecondsLeft] = useState<number | null>(null);
+    const channel = useRef<AnswerChannel | null>(null);
+    const unacked = useRef(new Map<number, AnswerEntry>()); // Latest answer per question not yet acknowledged
+    const nextSeq = useRef(Date.now()); // Keeps increasing across reloads of the page
+    const clockSkewMs = useRef(0); // Local clock minus server clock, from the channel's ticks
 
     useEffect(() => {
         const studentData = sessionStorage.getItem('student');
@@ -29,6 +35,66 @@ const TestInterface = () => {
         initializeTest(parsedStudent, parseInt(questionSetId));
     }, [navigate]);
 
+    // Timed tests are auto-submitted by the server at the deadline; follow it to the results
+    useEffect(() => {
+        const deadline = testData?.session.deadline;
+        if (!deadline || !testSessionId) return;
+
+        const tick = () => {
+            const left = Math.max(0, Math.round((new Date(deadline).getTime() - Date.now() + clockSkewMs.current) / 1000));
+            setSecondsLeft(left);
+            if (left === 0) {
+                navigate(`/results/${testSessionId}`);
+            }
+        };
+        tick();
+        const timer = setInterval(tick, 1000);
+        return () => clearInterval(timer);
+    }, [testData, testSessionId, navigate]);
+
+    // Answers go over the live channel while it is open and over REST otherwise;
+    // answers still unacknowledged when the channel closes are resent over REST
+    useEffect(() => {
+        if (!testSessionId) return;
+        const deadline = testData?.session.deadline;
+
+        const opened = openAnswerChannel(testSessionId, {
+            onAck: (appliedSeq) => {
+                unacked.current.forEach((entry, questionId) => {
+                    if (entry.clientSeq <= appliedSeq) unacked.current.delete(questionId);
+                });
+            },
+            onTick: (serverSecondsLeft) => {
+                if (deadline) {
+                    clockSkewMs.current = Date.now() + serverSecondsLeft * 1000 - new Date(deadline).getTime();
+                }
+            },
+            onCompleted: () => navigate(`/results/${testSessionId}`),
+            onClosed: () => {
+                channel.current = null;
+                resendUnacked(testSessionId);
+            },
+        });
+        channel.current = opened;
+        return () => {
+            channel.current = null;
+            opened.close();
+        };
+    }, [testSessionId]);
+
+    const resendUnacked = async (sessionId: number) => {
+        const entries = Array.from(unacked.current.values());
+        if (entries.length === 0) return;
+        try {
+            const ack = await submitAnswers(sessionId, { answers: entries });
+            entries.forEach(entry => {
+                if (entry.clientSeq <= ack.appliedSeq) unacked.current.delete(entry.questionId);
+            });
+        } catch (err) {
+            console.error('Failed to save answers:', err);
+        }
+    };
+
     const initializeTest = async (student: Student, questionSetId: number) => {
         try {
             setLoading(true);
@@ -52,10 +118,10 @@ const TestInterface = () => {
         setAnswers(new Map(answers.set(questionId, option)));
 
         if (testSessionId) {
-            try {
-                await submitAnswer(testSessionId, { questionId, selectedOption: option });
-            } catch (err) {
-                console.error('Failed to save answer:', err);
+            const entry = { questionId, selectedOption: option, clientSeq: ++nextSeq.current };
+            unacked.current.set(questionId, entry);
+            if (!channel.current?.send([entry])) {
+                await resendUnacked(testSessionId);
             }
         }
     };
@@ -72,6 +138,7 @@ const TestInterface = () => {
 
         try {
             setSubmitting(true);
+            await resendUnacked(testSessionId);
             await submitTest(testSessionId);
             navigate(`/results/${testSessionId}`);
         } catch (err) {
@@ -101,6 +168,11 @@ const TestInterface = () => {
                     <h2 className="text-2xl font-bold text-gray-900 mb-2">{testData.questionSet.name}</h2>
                     <div className="flex items-center justify-between text-sm text-gray-600">
                         <span>{student?.name} ({student?.usn})</span>
+                        {secondsLeft !== null && (
+                            <span className={secondsLeft < 60 ? 'font-semibold text-red-600' : ''}>
+                                Time left {Math.floor(secondsLeft / 60)}:{String(secondsLeft % 60).padStart(2, '0')}
+                            </span>
+                        )}
                         <span>Question {currentQuestionIndex + 1} of {questions.length}</span>
                     </div>
                     <div className="mt-4 bg-gray-200 rounded-full h-2">
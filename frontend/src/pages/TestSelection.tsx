@@ -2,12 +2,12 @@ import { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { BookOpen, Users, Clock, ArrowRight, Loader2 } from 'lucide-react';
 import { getQuestionSets } from '../services/api';
-import type { Student, QuestionSet } from '../types';
+import type { Student, QuestionSetSummary } from '../types';
 
 const TestSelection = () => {
     const navigate = useNavigate();
     const [student, setStudent] = useState<Student | null>(null);
-    const [questionSets, setQuestionSets] = useState<QuestionSet[]>([]);
+    const [questionSets, setQuestionSets] = useState<QuestionSetSummary[]>([]);
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState('');
 
@@ -92,11 +92,11 @@ const TestSelection = () => {
                                         <div className="flex items-center gap-4 text-sm text-gray-500">
                                             <span className="flex items-center gap-1">
                                                 <BookOpen className="w-4 h-4" />
-                                                {set.questions.length} Questions
+                                                {set.questionCount} Questions
                                             </span>
                                             <span className="flex items-center gap-1">
                                                 <Clock className="w-4 h-4" />
-                                                ~{set.questions.length * 2} minutes
+                                                ~{set.questionCount * 2} minutes
                                             </span>
                                         </div>
                                     </div>
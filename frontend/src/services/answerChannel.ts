@@ -0,0 +1,60 @@
+import { API_BASE_URL } from './api';
+import type { AnswerChannelEvent, AnswerEntry } from '../types';
+
+// The server buffers at most 2048 characters per message
+const MAX_ANSWERS_PER_MESSAGE = 20;
+// Beyond this much unsent data the caller is told to use the REST endpoints instead
+const MAX_BUFFERED_BYTES = 16 * 1024;
+
+export interface AnswerChannelHandlers {
+    onAck: (appliedSeq: number) => void;
+    onTick: (secondsLeft: number) => void;
+    onCompleted: () => void;
+    onClosed: () => void;
+}
+
+export interface AnswerChannel {
+    // Returns false when the answers were not sent and must go over REST
+    send: (answers: AnswerEntry[]) => boolean;
+    close: () => void;
+}
+
+// Live answer channel of a test session: answers out, acks, time left and the forced submit in.
+// The channel is not reopened once closed; the caller falls back to the REST endpoints.
+export const openAnswerChannel = (sessionId: number, handlers: AnswerChannelHandlers): AnswerChannel => {
+    const socket = new WebSocket(`${API_BASE_URL.replace(/^http/, 'ws')}/ws/test-sessions/${sessionId}`);
+
+    socket.onmessage = (message) => {
+        const event: AnswerChannelEvent = JSON.parse(message.data);
+        switch (event.type) {
+            case 'ACK':
+                handlers.onAck(event.appliedSeq ?? 0);
+                break;
+            case 'TICK':
+                if (event.secondsLeft !== undefined) {
+                    handlers.onTick(event.secondsLeft);
+                }
+                break;
+            case 'COMPLETED':
+                handlers.onCompleted();
+                break;
+            case 'ERROR':
+                console.error('Answer channel rejected a message:', event.error);
+                break;
+        }
+    };
+    socket.onclose = () => handlers.onClosed();
+
+    return {
+        send: (answers) => {
+            if (socket.readyState !== WebSocket.OPEN || socket.bufferedAmount > MAX_BUFFERED_BYTES) {
+                return false;
+            }
+            for (let i = 0; i < answers.length; i += MAX_ANSWERS_PER_MESSAGE) {
+                socket.send(JSON.stringify({ answers: answers.slice(i, i + MAX_ANSWERS_PER_MESSAGE) }));
+            }
+            return true;
+        },
+        close: () => socket.close(),
+    };
+};
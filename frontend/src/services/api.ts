@@ -1,15 +1,20 @@
 import axios from 'axios';
 import type {
     QuestionSet,
+    QuestionSetSummary,
+    StudentQuestionSet,
     StartTestRequest,
     StartTestResponse,
     SubmitAnswerRequest,
+    SubmitAnswersRequest,
+    AnswerBatchAck,
+    SessionWriteAck,
     TestSession,
     Result,
     DashboardStats
 } from '../types';
 
-const API_BASE_URL = 'http://localhost:8080'; // API Gateway
+export const API_BASE_URL = 'http://localhost:8080'; // API Gateway
 
 const api = axios.create({
     baseURL: API_BASE_URL,
@@ -19,7 +24,7 @@ const api = axios.create({
 });
 
 // Question Sets
-export const getQuestionSets = async (semester: number, department: string): Promise<QuestionSet[]> => {
+export const getQuestionSets = async (semester: number, department: string): Promise<QuestionSetSummary[]> => {
     const response = await api.get(`/api/question-sets`, {
         params: { semester, department }
     });
@@ -27,24 +32,83 @@ export const getQuestionSets = async (semester: number, department: string): Pro
 };
 
 export const getQuestionSetById = async (id: number): Promise<QuestionSet> => {
-    const response = await api.get(`/api/question-sets/${id}`);
-    return response.data;
+    const response = await api.get<StudentQuestionSet>(`/api/question-sets/${id}/student`);
+    return decodeStudentQuestionSet(response.data);
 };
 
+// Students get question sets without answer keys, each question as [id, questionText, optionA, optionB, optionC, optionD]
+export const decodeStudentQuestionSet = (set: StudentQuestionSet): QuestionSet => ({
+    id: set.id,
+    name: set.name,
+    description: set.description,
+    semester: set.semester,
+    department: set.department,
+    durationMinutes: set.durationMinutes,
+    questions: set.questions.map(([id, questionText, optionA, optionB, optionC, optionD]) => ({
+        id,
+        questionText,
+        optionA,
+        optionB,
+        optionC,
+        optionD,
+        semester: set.semester,
+        department: set.department
+    }))
+});
+
 // Test Sessions
+const MAX_START_ATTEMPTS = 20;
+
 export const startTest = async (data: StartTestRequest): Promise<StartTestResponse> => {
-    const response = await api.post('/api/test-sessions/start', data);
-    return response.data;
+    // At exam start the server admits students gradually; wait the suggested delay and retry
+    for (let attempt = 1; ; attempt++) {
+        try {
+            const response = await api.post<{ session: TestSession; questionSet: StudentQuestionSet }>(
+                '/api/test-sessions/start', data);
+            return { session: response.data.session, questionSet: decodeStudentQuestionSet(response.data.questionSet) };
+        } catch (err) {
+            if (!axios.isAxiosError(err) || err.response?.status !== 429 || attempt >= MAX_START_ATTEMPTS) {
+                throw err;
+            }
+            const retryAfterMs = err.response.data?.retryAfterMs ?? 1000;
+            await new Promise(resolve => setTimeout(resolve, retryAfterMs));
+        }
+    }
 };
 
-export const submitAnswer = async (sessionId: number, answer: SubmitAnswerRequest): Promise<TestSession> => {
-    const response = await api.put(`/api/test-sessions/${sessionId}/answer`, answer);
-    return response.data;
+const MAX_WRITE_ATTEMPTS = 4;
+
+// Retry a write after a lost connection, a server error or a 409 (original still running) with
+// the same Idempotency-Key, so the server answers a retry of an already applied write with the original response.
+// A 503 means the write was not persisted yet; its Retry-After is honoured.
+const withIdempotentRetry = async <T>(send: (headers: Record<string, string>) => Promise<{ data: T }>): Promise<T> => {
+    const headers = { 'Idempotency-Key': crypto.randomUUID() };
+    for (let attempt = 1; ; attempt++) {
+        try {
+            const response = await send(headers);
+            return response.data;
+        } catch (err) {
+            const retryable = axios.isAxiosError(err)
+                && (!err.response || err.response.status >= 500 || err.response.status === 409);
+            if (!retryable || attempt >= MAX_WRITE_ATTEMPTS) {
+                throw err;
+            }
+            const retryAfterMs = axios.isAxiosError(err) ? Number(err.response?.headers['retry-after'] ?? 0) * 1000 : 0;
+            await new Promise(resolve => setTimeout(resolve, Math.max(250 * 2 ** attempt, retryAfterMs)));
+        }
+    }
 };
 
-export const submitTest = async (sessionId: number): Promise<TestSession> => {
-    const response = await api.post(`/api/test-sessions/${sessionId}/submit`);
-    return response.data;
+export const submitAnswer = async (sessionId: number, answer: SubmitAnswerRequest): Promise<SessionWriteAck> => {
+    return withIdempotentRetry(headers => api.put(`/api/test-sessions/${sessionId}/answer`, answer, { headers }));
+};
+
+export const submitAnswers = async (sessionId: number, batch: SubmitAnswersRequest): Promise<AnswerBatchAck> => {
+    return withIdempotentRetry(headers => api.put(`/api/test-sessions/${sessionId}/answers`, batch, { headers }));
+};
+
+export const submitTest = async (sessionId: number): Promise<SessionWriteAck> => {
+    return withIdempotentRetry(headers => api.post(`/api/test-sessions/${sessionId}/submit`, undefined, { headers }));
 };
 
 export const getTestSession = async (sessionId: number): Promise<TestSession> => {
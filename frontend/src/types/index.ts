@@ -25,9 +25,36 @@ export interface QuestionSet {
     description: string;
     semester: number;
     department: string;
+    durationMinutes?: number; // Absent for untimed sets
     questions: Question[];
 }
 
+// Student view of a question set on the wire, without answer keys; decode with decodeStudentQuestionSet
+export type StudentQuestionRow = [id: number, questionText: string, optionA: string, optionB: string, optionC: string, optionD: string];
+
+export interface StudentQuestionSet {
+    id: number;
+    name: string;
+    description: string;
+    semester: number;
+    department: string;
+    durationMinutes?: number;
+    version: number;
+    questions: StudentQuestionRow[];
+}
+
+// Returned by the question set listing, without the questions
+export interface QuestionSetSummary {
+    id: number;
+    name: string;
+    description: string;
+    semester: number;
+    department: string;
+    durationMinutes?: number;
+    questionCount: number;
+    version: number;
+}
+
 export interface TestSession {
     id: number;
     usn: string;
@@ -38,8 +65,10 @@ export interface TestSession {
     questionSetId: number;
     startTime: string;
     endTime?: string;
-    answers: string; // JSON string
-    status: 'IN_PROGRESS' | 'COMPLETED';
+    deadline?: string; // Auto-submitted by the server at this time
+    answers?: string; // Legacy JSON string
+    answerBits?: string; // Base64, 3 bits per question ordered by question ID
+    status: 'PENDING' | 'IN_PROGRESS' | 'COMPLETED';
     submittedAt?: string;
 }
 
@@ -80,7 +109,42 @@ export interface SubmitAnswerRequest {
     selectedOption: string;
 }
 
+export interface AnswerEntry extends SubmitAnswerRequest {
+    clientSeq: number;
+}
+
+export interface SubmitAnswersRequest {
+    answers: AnswerEntry[];
+}
+
 // Response Types
+export interface AnswerBatchAck {
+    sessionId: number;
+    appliedSeq: number;
+    applied: number;
+    superseded: number;
+}
+
+// Returned by answer and submit writes; pass view=full to get the whole TestSession instead
+export interface SessionWriteAck {
+    sessionId: number;
+    version: number;
+    answeredCount: number;
+    status: TestSession['status'];
+}
+
+// Pushed on the live answer channel (WebSocket)
+export interface AnswerChannelEvent {
+    type: 'ACK' | 'TICK' | 'COMPLETED' | 'ERROR';
+    sessionId: number;
+    appliedSeq?: number; // ACK
+    applied?: number;
+    superseded?: number;
+    secondsLeft?: number; // TICK, absent for untimed sessions
+    status?: TestSession['status']; // COMPLETED
+    error?: string; // ERROR
+}
+
 export interface StartTestResponse {
     session: TestSession;
     questionSet: QuestionSet;